@@ -0,0 +1,100 @@
+/*
+ * Copyright (c) 2017 Google, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.common.truth;
+
+import com.google.common.collect.ImmutableList;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Shared fixtures for the benchmarks in this package.
+ */
+final class BenchmarkFixtures {
+  private BenchmarkFixtures() {}
+
+  /**
+   * A {@link FailureStrategy} which records failures instead of throwing, so that a failing
+   * assertion can be benchmarked without the cost of building and unwinding an exception (but
+   * including the cost of building the failure message).
+   */
+  static final class RecordingFailureStrategy extends FailureStrategy {
+    int failureCount;
+    String lastMessage;
+
+    @Override
+    public void fail(String message, Throwable cause) {
+      failureCount++;
+      lastMessage = message;
+    }
+  }
+
+  /** Returns a {@link TestVerb} which reports failures to the given strategy. */
+  static TestVerb verb(RecordingFailureStrategy failureStrategy) {
+    return new TestVerb(failureStrategy);
+  }
+
+  /**
+   * Returns a list of {@code size} strings, of which roughly {@code duplicateRatio * size} are
+   * copies of other elements of the list. The order of the list is pseudo-random, but
+   * deterministic for a given seed.
+   */
+  static List<String> elements(int size, double duplicateRatio, long seed) {
+    Random random = new Random(seed);
+    int distinct = Math.max(1, (int) Math.round(size * (1.0 - duplicateRatio)));
+    List<String> elements = new ArrayList<String>(size);
+    for (int i = 0; i < size; i++) {
+      elements.add(element(i < distinct ? i : random.nextInt(distinct)));
+    }
+    Collections.shuffle(elements, random);
+    return ImmutableList.copyOf(elements);
+  }
+
+  /** Returns the string used to represent the element with the given identifier. */
+  static String element(int id) {
+    return "element-" + id;
+  }
+
+  /**
+   * Returns a copy of the given elements in which the last element has been replaced by one which
+   * does not occur in the input, if the outcome is {@link Outcome#FAIL}, or an unmodified copy
+   * otherwise.
+   */
+  static List<String> withOutcome(List<String> elements, Outcome outcome) {
+    List<String> copy = new ArrayList<String>(elements);
+    if (outcome == Outcome.FAIL && !copy.isEmpty()) {
+      copy.set(copy.size() - 1, "missing-element");
+    }
+    return ImmutableList.copyOf(copy);
+  }
+
+  /** Returns a copy of the given elements in a pseudo-random order. */
+  static List<String> shuffled(List<String> elements, long seed) {
+    List<String> copy = new ArrayList<String>(elements);
+    Collections.shuffle(copy, new Random(seed));
+    return ImmutableList.copyOf(copy);
+  }
+
+  /** Returns every {@code stride}-th element of the given list, preserving order. */
+  static List<String> everyNth(List<String> elements, int stride) {
+    ImmutableList.Builder<String> builder = ImmutableList.builder();
+    for (int i = 0; i < elements.size(); i += stride) {
+      builder.add(elements.get(i));
+    }
+    return builder.build();
+  }
+}
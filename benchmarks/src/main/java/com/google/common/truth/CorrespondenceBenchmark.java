@@ -0,0 +1,106 @@
+/*
+ * Copyright (c) 2017 Google, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.common.truth;
+
+import static com.google.common.truth.BenchmarkFixtures.shuffled;
+import static com.google.common.truth.BenchmarkFixtures.verb;
+import static com.google.common.truth.BenchmarkFixtures.withOutcome;
+
+import com.google.common.truth.BenchmarkFixtures.RecordingFailureStrategy;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/** Benchmarks for {@link IterableSubject.UsingCorrespondence}. */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CorrespondenceBenchmark {
+  // These sizes are smaller than for the other benchmarks, because the any-order check is
+  // inherently O(n^2) in the number of calls to Correspondence.compare.
+  @Param({"10", "100", "1000"})
+  int size;
+
+  @Param({"0.0", "0.5"})
+  double duplicateRatio;
+
+  @Param({"PASS", "FAIL"})
+  Outcome outcome;
+
+  private static final Correspondence<String, String> EQUALS_IGNORING_CASE =
+      new Correspondence<String, String>() {
+        @Override
+        public boolean compare(String actual, String expected) {
+          return actual.equalsIgnoreCase(expected);
+        }
+
+        @Override
+        public String toString() {
+          return "is equal (ignoring case) to";
+        }
+      };
+
+  private List<String> actual;
+  private List<String> expectedInOrder;
+  private List<String> expectedAnyOrder;
+
+  @Setup
+  public void setUp() {
+    actual = BenchmarkFixtures.elements(size, duplicateRatio, 1);
+    List<String> upperCase = new ArrayList<String>(actual.size());
+    for (String element : actual) {
+      upperCase.add(element.toUpperCase(Locale.ROOT));
+    }
+    expectedInOrder = withOutcome(upperCase, outcome);
+    expectedAnyOrder = shuffled(expectedInOrder, 2);
+  }
+
+  @Benchmark
+  public String containsExactlyElementsIn() {
+    RecordingFailureStrategy failures = new RecordingFailureStrategy();
+    verb(failures)
+        .that(actual)
+        .comparingElementsUsing(EQUALS_IGNORING_CASE)
+        .containsExactlyElementsIn(expectedAnyOrder);
+    return failures.lastMessage;
+  }
+
+  @Benchmark
+  public String containsExactlyElementsIn_inOrder() {
+    RecordingFailureStrategy failures = new RecordingFailureStrategy();
+    verb(failures)
+        .that(actual)
+        .comparingElementsUsing(EQUALS_IGNORING_CASE)
+        .containsExactlyElementsIn(expectedInOrder)
+        .inOrder();
+    return failures.lastMessage;
+  }
+}
@@ -0,0 +1,93 @@
+/*
+ * Copyright (c) 2017 Google, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.common.truth;
+
+import com.google.common.collect.ImmutableBiMap;
+import com.google.common.collect.ImmutableSetMultimap;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks for {@link GraphMatching}, over graphs shaped like the candidate mappings built by
+ * {@link IterableSubject.UsingCorrespondence}: the vertices on each side are dense indexes.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class GraphMatchingBenchmark {
+  /** The number of vertices on each side of the graph. */
+  @Param({"100", "1000", "10000"})
+  int size;
+
+  /** The average number of edges from each LHS vertex, in addition to the planted matching. */
+  @Param({"0", "2", "8"})
+  int extraDegree;
+
+  /**
+   * Whether the graph has a perfect matching ({@link Outcome#PASS}) or is one short of it ({@link
+   * Outcome#FAIL}), corresponding to a passing or failing {@code containsExactlyElementsIn}.
+   */
+  @Param({"PASS", "FAIL"})
+  Outcome outcome;
+
+  private ImmutableSetMultimap<Integer, Integer> graph;
+
+  @Setup
+  public void setUp() {
+    Random random = new Random(1);
+    ImmutableSetMultimap.Builder<Integer, Integer> builder = ImmutableSetMultimap.builder();
+    for (int lhs = 0; lhs < size; lhs++) {
+      if (outcome == Outcome.FAIL && lhs == 1) {
+        // Make LHS vertex 1 compete with LHS vertex 0 for RHS vertex 0, and leave RHS vertex 1
+        // with no edges at all.
+        builder.put(lhs, 0);
+        continue;
+      }
+      builder.put(lhs, lhs);
+      for (int i = 0; i < extraDegree; i++) {
+        int rhs = random.nextInt(size);
+        if (outcome == Outcome.PASS || rhs != 1) {
+          builder.put(lhs, rhs);
+        }
+      }
+    }
+    graph = builder.build();
+  }
+
+  @Benchmark
+  public ImmutableBiMap<Integer, Integer> maximumCardinalityBipartiteMatching() {
+    return GraphMatching.maximumCardinalityBipartiteMatching(graph);
+  }
+
+  @Benchmark
+  public ImmutableBiMap<Integer, Integer> maximumCardinalityBipartiteMatchingOfIndexes() {
+    return GraphMatching.maximumCardinalityBipartiteMatchingOfIndexes(graph);
+  }
+}
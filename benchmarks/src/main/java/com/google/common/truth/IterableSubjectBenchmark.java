@@ -0,0 +1,110 @@
+/*
+ * Copyright (c) 2017 Google, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.common.truth;
+
+import static com.google.common.truth.BenchmarkFixtures.everyNth;
+import static com.google.common.truth.BenchmarkFixtures.shuffled;
+import static com.google.common.truth.BenchmarkFixtures.verb;
+import static com.google.common.truth.BenchmarkFixtures.withOutcome;
+
+import com.google.common.truth.BenchmarkFixtures.RecordingFailureStrategy;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks for the collection propositions of {@link IterableSubject}.
+ *
+ * <p>Each benchmark returns the failure message (or null, if the assertion passed), so that the
+ * cost of building the message is included in the measurement.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class IterableSubjectBenchmark {
+  @Param({"100", "1000", "10000"})
+  int size;
+
+  @Param({"0.0", "0.5"})
+  double duplicateRatio;
+
+  @Param({"PASS", "FAIL"})
+  Outcome outcome;
+
+  private List<String> actual;
+  private List<String> expectedInOrder;
+  private List<String> expectedAnyOrder;
+  private List<String> subsetInOrder;
+  private List<String> subsetAnyOrder;
+
+  @Setup
+  public void setUp() {
+    actual = BenchmarkFixtures.elements(size, duplicateRatio, 1);
+    expectedInOrder = withOutcome(actual, outcome);
+    expectedAnyOrder = shuffled(expectedInOrder, 2);
+    subsetInOrder = withOutcome(everyNth(actual, 10), outcome);
+    subsetAnyOrder = shuffled(subsetInOrder, 3);
+  }
+
+  @Benchmark
+  public String containsExactlyElementsIn() {
+    RecordingFailureStrategy failures = new RecordingFailureStrategy();
+    verb(failures).that(actual).containsExactlyElementsIn(expectedAnyOrder);
+    return failures.lastMessage;
+  }
+
+  @Benchmark
+  public String containsExactlyElementsIn_inOrder() {
+    RecordingFailureStrategy failures = new RecordingFailureStrategy();
+    verb(failures).that(actual).containsExactlyElementsIn(expectedInOrder).inOrder();
+    return failures.lastMessage;
+  }
+
+  @Benchmark
+  public String containsAllIn() {
+    RecordingFailureStrategy failures = new RecordingFailureStrategy();
+    verb(failures).that(actual).containsAllIn(subsetAnyOrder);
+    return failures.lastMessage;
+  }
+
+  @Benchmark
+  public String containsAllIn_inOrder() {
+    RecordingFailureStrategy failures = new RecordingFailureStrategy();
+    verb(failures).that(actual).containsAllIn(subsetInOrder).inOrder();
+    return failures.lastMessage;
+  }
+
+  @Benchmark
+  public String containsNoDuplicates() {
+    // The outcome of this assertion is determined by the duplicate ratio, not the outcome param.
+    RecordingFailureStrategy failures = new RecordingFailureStrategy();
+    verb(failures).that(actual).containsNoDuplicates();
+    return failures.lastMessage;
+  }
+}
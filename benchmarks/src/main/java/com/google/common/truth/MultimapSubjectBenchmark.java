@@ -0,0 +1,99 @@
+/*
+ * Copyright (c) 2017 Google, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.common.truth;
+
+import static com.google.common.truth.BenchmarkFixtures.verb;
+
+import com.google.common.collect.ImmutableListMultimap;
+import com.google.common.truth.BenchmarkFixtures.RecordingFailureStrategy;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/** Benchmarks for {@link MultimapSubject}. */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MultimapSubjectBenchmark {
+  /** The total number of entries in the multimap. */
+  @Param({"100", "1000", "10000"})
+  int size;
+
+  /** The number of values associated with each key. */
+  @Param({"1", "10"})
+  int valuesPerKey;
+
+  /** The proportion of values which are copies of other values. */
+  @Param({"0.0", "0.5"})
+  double duplicateRatio;
+
+  @Param({"PASS", "FAIL"})
+  Outcome outcome;
+
+  private ImmutableListMultimap<String, String> actual;
+  private ImmutableListMultimap<String, String> expectedInOrder;
+  private ImmutableListMultimap<String, String> expectedAnyOrder;
+
+  @Setup
+  public void setUp() {
+    List<String> values = BenchmarkFixtures.elements(size, duplicateRatio, 1);
+    ImmutableListMultimap.Builder<String, String> actualBuilder = ImmutableListMultimap.builder();
+    ImmutableListMultimap.Builder<String, String> expectedBuilder =
+        ImmutableListMultimap.builder();
+    ImmutableListMultimap.Builder<String, String> reversedBuilder =
+        ImmutableListMultimap.builder();
+    for (int i = 0; i < size; i++) {
+      String key = "key-" + (i / valuesPerKey);
+      actualBuilder.put(key, values.get(i));
+      boolean differs = outcome == Outcome.FAIL && i == size - 1;
+      expectedBuilder.put(key, differs ? "different-value" : values.get(i));
+    }
+    actual = actualBuilder.build();
+    expectedInOrder = expectedBuilder.build();
+    // Reverse the order of the values for every key, and the order of the keys.
+    for (String key : expectedInOrder.keySet().asList().reverse()) {
+      reversedBuilder.putAll(key, expectedInOrder.get(key).reverse());
+    }
+    expectedAnyOrder = reversedBuilder.build();
+  }
+
+  @Benchmark
+  public String containsExactlyEntriesIn() {
+    RecordingFailureStrategy failures = new RecordingFailureStrategy();
+    verb(failures).that(actual).containsExactlyEntriesIn(expectedAnyOrder);
+    return failures.lastMessage;
+  }
+
+  @Benchmark
+  public String containsExactlyEntriesIn_inOrder() {
+    RecordingFailureStrategy failures = new RecordingFailureStrategy();
+    verb(failures).that(actual).containsExactlyEntriesIn(expectedInOrder).inOrder();
+    return failures.lastMessage;
+  }
+}
@@ -16,6 +16,7 @@
 package com.google.common.truth;
 
 import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.truth.BoundedRendering.render;
 
 import java.util.List;
 import javax.annotation.Nullable;
@@ -66,7 +67,7 @@ abstract class AbstractArraySubject<S extends AbstractArraySubject<S, T>, T>
   @Override
   protected String actualCustomStringRepresentation() {
     return (internalCustomName() == null)
-        ? "(" + underlyingType() + brackets() + ") " + listRepresentation() + ""
+        ? "(" + underlyingType() + brackets() + ") " + render(listRepresentation())
         : "";
   }
 
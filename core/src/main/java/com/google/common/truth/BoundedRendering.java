@@ -0,0 +1,309 @@
+/*
+ * Copyright (c) 2017 Google, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.common.truth;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Multimap;
+import com.google.common.collect.Multiset;
+import com.google.common.collect.Table;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import javax.annotation.Nullable;
+
+/**
+ * Renders values for failure messages into strings of bounded size, so that a failing assertion
+ * about a huge collection doesn't try to build a huge message.
+ *
+ * <p>A value is rendered exactly as {@link String#valueOf(Object)} would render it unless it
+ * contains (directly, or in nested collections) more elements in total than the element limit, in
+ * which case it is rendered in the same format as the standard {@code toString()} implementations
+ * of collections, maps, multisets, multimaps, and tables, but showing at most that many elements of
+ * each collection followed by {@code ... N more}. (An iterable which isn't a collection, such as a
+ * lazy view, is read at most one element past the limit, and since its size is unknown, its
+ * elements are followed only by {@code ...}.) Either way, the result is then cut off after the
+ * character limit. The limits default to {@value #DEFAULT_MAX_ELEMENTS} elements and {@value
+ * #DEFAULT_MAX_CHARACTERS} characters, and can be overridden on the JVM with the system properties
+ * {@value #MAX_ELEMENTS_PROPERTY} and {@value #MAX_CHARACTERS_PROPERTY}.
+ */
+final class BoundedRendering {
+  static final String MAX_ELEMENTS_PROPERTY = "truth.maxRenderedElements";
+  static final String MAX_CHARACTERS_PROPERTY = "truth.maxRenderedCharacters";
+  static final int DEFAULT_MAX_ELEMENTS = 10000;
+  static final int DEFAULT_MAX_CHARACTERS = 1000000;
+
+  private static final String ELLIPSIS = "...";
+
+  private final int maxElements;
+  private final int maxCharacters;
+  private final StringBuilder builder = new StringBuilder();
+
+  private BoundedRendering(int maxElements, int maxCharacters) {
+    this.maxElements = maxElements;
+    this.maxCharacters = maxCharacters;
+  }
+
+  /** Renders the given value, using the configured limits. */
+  static String render(@Nullable Object value) {
+    return render(value, maxElements(), maxCharacters());
+  }
+
+  /** Renders each of the given values, using the configured limits. */
+  static Object[] renderAll(Object... values) {
+    Object[] rendered = new Object[values.length];
+    for (int i = 0; i < values.length; i++) {
+      rendered[i] = render(values[i]);
+    }
+    return rendered;
+  }
+
+  /**
+   * Renders the given elements in the standard format of a collection, using the configured limits.
+   * If {@code more} is true, this also shows that they are followed by further elements which were
+   * not given, as when describing only the first few elements of a huge or one-shot iterable.
+   */
+  static String renderPrefix(List<?> elements, boolean more) {
+    BoundedRendering rendering = new BoundedRendering(maxElements(), maxCharacters());
+    rendering.appendCollection(elements, more);
+    return truncate(rendering.builder.toString(), rendering.maxCharacters);
+  }
+
+  /** Returns the configured maximum number of elements to show of each collection. */
+  static int maxElements() {
+    return limit(MAX_ELEMENTS_PROPERTY, DEFAULT_MAX_ELEMENTS);
+  }
+
+  private static int maxCharacters() {
+    return limit(MAX_CHARACTERS_PROPERTY, DEFAULT_MAX_CHARACTERS);
+  }
+
+  /** Renders the given value, using the given limits. */
+  static String render(@Nullable Object value, int maxElements, int maxCharacters) {
+    BoundedRendering rendering = new BoundedRendering(maxElements, maxCharacters);
+    if (isSequence(value)) {
+      // Only iterate once, since the iterable may be lazy, or even one-shot.
+      if (!rendering.appendSequence((Iterable<?>) value)) {
+        return truncate(String.valueOf(value), maxCharacters);
+      }
+    } else if (countElements(value, maxElements) <= maxElements) {
+      return truncate(String.valueOf(value), maxCharacters);
+    } else {
+      rendering.append(value);
+    }
+    return truncate(rendering.builder.toString(), maxCharacters);
+  }
+
+  private static int limit(String property, int defaultValue) {
+    int value = Platform.intSystemProperty(property, defaultValue);
+    return value > 0 ? value : defaultValue;
+  }
+
+  /**
+   * Returns the total number of elements in the given value and any collections nested in it, or
+   * some number greater than {@code maxElements} if that is greater.
+   */
+  private static int countElements(@Nullable Object value, int maxElements) {
+    value = standardForm(value);
+    int count = 0;
+    if (value instanceof Collection<?>) {
+      Collection<?> collection = (Collection<?>) value;
+      if (collection.size() > maxElements) {
+        return collection.size();
+      }
+      for (Object element : collection) {
+        count += 1 + (element == collection ? 0 : countElements(element, maxElements - count));
+        if (count > maxElements) {
+          break;
+        }
+      }
+    } else if (isSequence(value)) {
+      List<Object> prefix = prefix((Iterable<?>) value, maxElements);
+      return prefix == null ? 0 : countElements(prefix, maxElements);
+    } else if (value instanceof Map<?, ?>) {
+      Map<?, ?> map = (Map<?, ?>) value;
+      if (map.size() > maxElements) {
+        return map.size();
+      }
+      for (Map.Entry<?, ?> entry : map.entrySet()) {
+        count += 1;
+        count += entry.getKey() == map ? 0 : countElements(entry.getKey(), maxElements - count);
+        count += entry.getValue() == map ? 0 : countElements(entry.getValue(), maxElements - count);
+        if (count > maxElements) {
+          break;
+        }
+      }
+    }
+    return count;
+  }
+
+  /**
+   * Returns the collection or map whose {@code toString()} is the same as that of the given value,
+   * for the collection types which don't format their elements directly.
+   */
+  @Nullable
+  private static Object standardForm(@Nullable Object value) {
+    if (value instanceof Multiset<?>) {
+      return ((Multiset<?>) value).entrySet();
+    } else if (value instanceof Multimap<?, ?>) {
+      return ((Multimap<?, ?>) value).asMap();
+    } else if (value instanceof Table<?, ?, ?>) {
+      return ((Table<?, ?, ?>) value).rowMap();
+    }
+    return value;
+  }
+
+  /**
+   * Returns whether the given value is an iterable which isn't a collection (e.g., a lazy view),
+   * and so may only be read a limited number of elements at a time, not knowing its size.
+   */
+  private static boolean isSequence(@Nullable Object value) {
+    return value instanceof Iterable<?> && !(standardForm(value) instanceof Collection<?>);
+  }
+
+  /**
+   * Returns the first {@code maxElements + 1} elements of the given iterable (or all of them, if it
+   * has fewer), or null if iterating over it throws (e.g., because it was one-shot, and has been
+   * read already).
+   */
+  @Nullable
+  private static List<Object> prefix(Iterable<?> iterable, int maxElements) {
+    List<Object> prefix = Lists.newArrayList();
+    try {
+      for (Iterator<?> elements = iterable.iterator();
+          prefix.size() <= maxElements && elements.hasNext(); ) {
+        prefix.add(elements.next());
+      }
+    } catch (RuntimeException e) {
+      return null;
+    }
+    return prefix;
+  }
+
+  private boolean isFull() {
+    return builder.length() > maxCharacters;
+  }
+
+  private void append(@Nullable Object value) {
+    Object standard = standardForm(value);
+    if (standard instanceof Collection<?>) {
+      appendCollection((Collection<?>) standard);
+    } else if (standard instanceof Map<?, ?>) {
+      appendMap((Map<?, ?>) standard);
+    } else if (!isSequence(value) || !appendSequence((Iterable<?>) value)) {
+      String string = String.valueOf(value);
+      // Anything past the character limit is cut off in the end, so don't bother copying it.
+      int room = Math.max(0, maxCharacters + 1 - builder.length());
+      builder.append(string, 0, Math.min(string.length(), room));
+    }
+  }
+
+  private void appendCollection(Collection<?> collection) {
+    appendCollection(collection, false);
+  }
+
+  /**
+   * Appends the given iterable, reading at most one more element than the limit, in the standard
+   * format of a collection, followed by {@code ...} if it has more elements than that. Returns
+   * false, appending nothing, if it has few enough elements (counting nested ones) to be rendered
+   * with its own {@code toString()}, or if iterating over it throws.
+   */
+  private boolean appendSequence(Iterable<?> iterable) {
+    List<Object> prefix = prefix(iterable, maxElements);
+    if (prefix == null) {
+      return false;
+    }
+    if (prefix.size() > maxElements) {
+      appendCollection(prefix.subList(0, maxElements), true);
+      return true;
+    }
+    if (countElements(prefix, maxElements) > maxElements) {
+      appendCollection(prefix);
+      return true;
+    }
+    return false;
+  }
+
+  private void appendCollection(Collection<?> collection, boolean more) {
+    builder.append('[');
+    int index = 0;
+    for (Object element : collection) {
+      if (isFull()) {
+        return;
+      }
+      if (index > 0) {
+        builder.append(", ");
+      }
+      if (index == maxElements) {
+        appendMore(collection.size() - index);
+        builder.append(']');
+        return;
+      }
+      if (element == collection) {
+        builder.append("(this Collection)");
+      } else {
+        append(element);
+      }
+      index++;
+    }
+    if (more) {
+      builder.append(index > 0 ? ", " : "").append(ELLIPSIS);
+    }
+    builder.append(']');
+  }
+
+  private void appendMap(Map<?, ?> map) {
+    builder.append('{');
+    int index = 0;
+    for (Map.Entry<?, ?> entry : map.entrySet()) {
+      if (isFull()) {
+        return;
+      }
+      if (index > 0) {
+        builder.append(", ");
+      }
+      if (index == maxElements) {
+        appendMore(map.size() - index);
+        break;
+      }
+      appendMapPart(map, entry.getKey());
+      builder.append('=');
+      appendMapPart(map, entry.getValue());
+      index++;
+    }
+    builder.append('}');
+  }
+
+  private void appendMapPart(Map<?, ?> map, @Nullable Object part) {
+    if (part == map) {
+      builder.append("(this Map)");
+    } else {
+      append(part);
+    }
+  }
+
+  private void appendMore(int count) {
+    builder.append(ELLIPSIS).append(' ').append(count).append(" more");
+  }
+
+  /** Cuts off the given string after the given number of characters, marking where it was cut. */
+  private static String truncate(String string, int maxCharacters) {
+    if (string.length() <= maxCharacters) {
+      return string;
+    }
+    return string.substring(0, maxCharacters) + ELLIPSIS;
+  }
+}
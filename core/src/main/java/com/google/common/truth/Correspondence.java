@@ -18,6 +18,8 @@ package com.google.common.truth;
 import static com.google.common.base.Preconditions.checkNotNull;
 import static com.google.common.truth.DoubleSubject.checkTolerance;
 
+import com.google.common.base.Function;
+import com.google.common.base.Objects;
 import javax.annotation.Nullable;
 
 /**
@@ -65,7 +67,11 @@ public abstract class Correspondence<A, E> {
     return new TolerantNumericEquality(tolerance);
   }
 
-  private static final class TolerantNumericEquality extends Correspondence<Number, Number> {
+  /**
+   * A {@link Correspondence} between numbers within a tolerance of each other. See {@link
+   * #tolerance}.
+   */
+  static final class TolerantNumericEquality extends Correspondence<Number, Number> {
 
     private final double tolerance;
 
@@ -73,6 +79,11 @@ public abstract class Correspondence<A, E> {
       this.tolerance = tolerance;
     }
 
+    /** Returns the tolerance, which has not been checked. */
+    double tolerance() {
+      return tolerance;
+    }
+
     @Override
     public boolean compare(Number actual, Number expected) {
       checkTolerance(tolerance);
@@ -87,6 +98,117 @@ public abstract class Correspondence<A, E> {
     }
   }
 
+  /**
+   * Returns a {@link Correspondence} which considers an actual and an expected value to correspond
+   * if {@code actualKeyFunction} and {@code expectedKeyFunction} return equal keys for them, and
+   * {@code correspondence} considers them to correspond too. Its {@link #toString} is that of
+   * {@code correspondence}.
+   *
+   * <p>This allows assertions like {@link IterableSubject.UsingCorrespondence#containsExactly} to
+   * group the actual and expected elements by key, and only compare elements with equal keys, which
+   * is much faster than comparing every actual element with every expected element when there are
+   * many elements. The keys must therefore implement {@link Object#equals} and {@link
+   * Object#hashCode} consistently. Such assertions call each key function once per element, and
+   * only consult {@code correspondence} for pairs of elements which have equal keys.
+   *
+   * <p>For example, to compare records by their IDs and then by their contents: <pre>   {@code
+   *   Correspondence.keyed(Record.GET_ID, Record.GET_ID, RECORD_CONTENTS_MATCH)}</pre>
+   */
+  public static <A, E> Correspondence<A, E> keyed(
+      Function<? super A, ?> actualKeyFunction,
+      Function<? super E, ?> expectedKeyFunction,
+      Correspondence<? super A, ? super E> correspondence) {
+    return new KeyedCorrespondence<A, E>(actualKeyFunction, expectedKeyFunction, correspondence);
+  }
+
+  /**
+   * Returns a {@link Correspondence} which considers an actual and an expected value to correspond
+   * if {@code actualTransform} and {@code expectedTransform} transform them to equal values. Its
+   * {@link #toString} is {@code description}.
+   *
+   * <p>This is a {@link #keyed} correspondence whose keys are the transformed values, so
+   * assertions like {@link IterableSubject.UsingCorrespondence#containsExactly} call each transform
+   * once per element and then group the elements by the transformed values, rather than
+   * transforming both elements of every pair they compare. That makes it the better choice when
+   * the transforms are expensive (e.g., parsing or normalizing). The transformed values must
+   * therefore implement {@link Object#equals} and {@link Object#hashCode} consistently.
+   *
+   * <p>For example, to compare strings with integers by parsing them: <pre>   {@code
+   *   Correspondence.transforming(PARSE_INT, Functions.<Integer>identity(), "parses to")}</pre>
+   */
+  public static <A, E> Correspondence<A, E> transforming(
+      Function<? super A, ?> actualTransform,
+      Function<? super E, ?> expectedTransform,
+      final String description) {
+    checkNotNull(description);
+    return new KeyedCorrespondence<A, E>(
+        actualTransform,
+        expectedTransform,
+        new Correspondence<A, E>() {
+          @Override
+          public boolean compare(@Nullable A actual, @Nullable E expected) {
+            // Only called when the transformed values are equal.
+            return true;
+          }
+
+          @Override
+          public String toString() {
+            return description;
+          }
+        });
+  }
+
+  /**
+   * A {@link Correspondence} under which values can only correspond if they have equal keys. See
+   * {@link #keyed} and {@link #transforming}.
+   */
+  static final class KeyedCorrespondence<A, E> extends Correspondence<A, E> {
+
+    private final Function<? super A, ?> actualKeyFunction;
+    private final Function<? super E, ?> expectedKeyFunction;
+    private final Correspondence<? super A, ? super E> correspondence;
+
+    private KeyedCorrespondence(
+        Function<? super A, ?> actualKeyFunction,
+        Function<? super E, ?> expectedKeyFunction,
+        Correspondence<? super A, ? super E> correspondence) {
+      this.actualKeyFunction = checkNotNull(actualKeyFunction);
+      this.expectedKeyFunction = checkNotNull(expectedKeyFunction);
+      this.correspondence = checkNotNull(correspondence);
+    }
+
+    /** Returns the key of the given actual value. */
+    @Nullable
+    Object actualKey(@Nullable A actual) {
+      return actualKeyFunction.apply(actual);
+    }
+
+    /** Returns the key of the given expected value. */
+    @Nullable
+    Object expectedKey(@Nullable E expected) {
+      return expectedKeyFunction.apply(expected);
+    }
+
+    /**
+     * Returns whether the given values correspond, assuming that they are already known to have
+     * equal keys.
+     */
+    boolean compareWithEqualKeys(@Nullable A actual, @Nullable E expected) {
+      return correspondence.compare(actual, expected);
+    }
+
+    @Override
+    public boolean compare(@Nullable A actual, @Nullable E expected) {
+      return Objects.equal(actualKey(actual), expectedKey(expected))
+          && compareWithEqualKeys(actual, expected);
+    }
+
+    @Override
+    public String toString() {
+      return correspondence.toString();
+    }
+  }
+
   /**
    * Returns whether or not the {@code actual} value is said to correspond to the {@code expected}
    * value for the purposes of this test.
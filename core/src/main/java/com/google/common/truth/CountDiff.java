@@ -0,0 +1,145 @@
+/*
+ * Copyright (c) 2017 Google, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.common.truth;
+
+import com.google.common.base.Objects;
+import com.google.common.collect.HashMultiset;
+import com.google.common.collect.ImmutableMultiset;
+import com.google.common.collect.LinkedHashMultiset;
+import com.google.common.collect.Multiset;
+import com.google.common.collect.SortedMultiset;
+import java.util.Iterator;
+
+/**
+ * The difference between a multiset of actual elements and a multiset of expected ones, found from
+ * their counts: one pass over the distinct elements of each, looking each up in the other, so in
+ * {@code O(n + m)} time for {@code n} and {@code m} distinct elements however many copies of each
+ * there are. It holds the copies of the expected elements which are missing and the copies of the
+ * actual elements which are extra, as a {@link MultisetDiff} would, in the order of the multisets.
+ *
+ * <p>Elements are compared with {@link Object#equals}, as {@code containsExactly} compares them. A
+ * multiset which may count elements some other way (e.g., a {@link SortedMultiset}) or may throw
+ * when asked for a null element or an element of another type is first copied, by its counts, into
+ * a {@link HashMultiset}.
+ */
+final class CountDiff {
+  private final Multiset<Object> missing = LinkedHashMultiset.create();
+  private final Multiset<Object> extra = LinkedHashMultiset.create();
+
+  private CountDiff() {}
+
+  /**
+   * Returns the difference between the given multisets. If {@code findExtra} is false, only the
+   * missing copies are found, and the actual multiset is only looked into.
+   */
+  static CountDiff between(Multiset<?> actual, Multiset<?> expected, boolean findExtra) {
+    CountDiff diff = new CountDiff();
+    Multiset<?> actualCounts = lookup(actual);
+    int foundElements = 0;
+    boolean anyExcess = false;
+    for (Multiset.Entry<?> entry : expected.entrySet()) {
+      int actualCount = actualCounts.count(entry.getElement());
+      if (actualCount > 0) {
+        foundElements++;
+      }
+      if (actualCount < entry.getCount()) {
+        diff.missing.add(entry.getElement(), entry.getCount() - actualCount);
+      } else if (actualCount > entry.getCount()) {
+        anyExcess = true;
+      }
+    }
+    // Unless an expected element has too many copies, there are extra copies if and only if the
+    // actual multiset has more distinct elements than were found.
+    if (findExtra && (anyExcess || actual.entrySet().size() > foundElements)) {
+      Multiset<?> expectedCounts = lookup(expected);
+      for (Multiset.Entry<?> entry : actual.entrySet()) {
+        int expectedCount = expectedCounts.count(entry.getElement());
+        if (entry.getCount() > expectedCount) {
+          diff.extra.add(entry.getElement(), entry.getCount() - expectedCount);
+        }
+      }
+    }
+    return diff;
+  }
+
+  /** Returns a multiset which counts elements with {@link Object#equals}, accepting any element. */
+  private static Multiset<?> lookup(Multiset<?> multiset) {
+    if (multiset.getClass() == HashMultiset.class
+        || multiset.getClass() == LinkedHashMultiset.class
+        || (multiset instanceof ImmutableMultiset<?> && !(multiset instanceof SortedMultiset<?>))) {
+      return multiset;
+    }
+    Multiset<Object> copy = HashMultiset.create();
+    for (Multiset.Entry<?> entry : multiset.entrySet()) {
+      copy.add(entry.getElement(), entry.getCount());
+    }
+    return copy;
+  }
+
+  /** The copies of the expected elements which are missing, in the expected order. */
+  Multiset<?> missing() {
+    return missing;
+  }
+
+  /** The copies of the actual elements which are extra, in the actual order. */
+  Multiset<?> extra() {
+    return extra;
+  }
+
+  /** Returns whether the actual and expected multisets are equal. */
+  boolean isEmpty() {
+    return missing.isEmpty() && extra.isEmpty();
+  }
+
+  /**
+   * Returns whether the given multisets, which must be equal, iterate over their elements in the
+   * same order. This walks their distinct elements together once, looking nothing up.
+   */
+  static boolean inSameOrder(Multiset<?> actual, Multiset<?> expected) {
+    Iterator<? extends Multiset.Entry<?>> actualEntries = actual.entrySet().iterator();
+    for (Multiset.Entry<?> expectedEntry : expected.entrySet()) {
+      if (!actualEntries.hasNext() || !equal(actualEntries.next(), expectedEntry)) {
+        return false;
+      }
+    }
+    return !actualEntries.hasNext();
+  }
+
+  /**
+   * Returns whether the copies of the expected elements, which the actual multiset must contain,
+   * appear in the same order in the actual multiset, though not necessarily consecutively. Since
+   * each multiset iterates over all the copies of an element together, this only has to find the
+   * distinct expected elements in order among the distinct actual elements, in one walk.
+   */
+  static boolean containsInOrder(Multiset<?> actual, Multiset<?> expected) {
+    Iterator<? extends Multiset.Entry<?>> actualEntries = actual.entrySet().iterator();
+    for (Multiset.Entry<?> expectedEntry : expected.entrySet()) {
+      boolean found = false;
+      while (!found && actualEntries.hasNext()) {
+        found = Objects.equal(actualEntries.next().getElement(), expectedEntry.getElement());
+      }
+      if (!found) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private static boolean equal(Multiset.Entry<?> actual, Multiset.Entry<?> expected) {
+    return actual.getCount() == expected.getCount()
+        && Objects.equal(actual.getElement(), expected.getElement());
+  }
+}
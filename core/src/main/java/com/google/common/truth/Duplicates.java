@@ -0,0 +1,468 @@
+/*
+ * Copyright (c) 2017 Google, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.common.truth;
+
+import static com.google.common.base.Preconditions.checkState;
+
+import com.google.common.collect.Sets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Executor;
+import javax.annotation.Nullable;
+
+/**
+ * Finds whether any two elements of a collection are equal, stopping at the first such pair.
+ *
+ * <p>Describing the duplicates of a collection means counting all its elements, but most
+ * assertions that there are none pass, and only need to know that there are none. So this answers
+ * just that, as cheaply as possible: integral values ({@code int}, {@code long} and {@code char}
+ * arrays, and collections all of whose elements are {@link Integer}, {@link Long}, {@link Short},
+ * {@link Byte} or {@link Character} instances of the same class) are added to an open-addressing
+ * hash set of {@code long} values without boxing, and other elements to a {@code HashSet}. Given an
+ * executor, this splits the elements into partitions by hash, and looks for duplicates in
+ * each partition in a separate task, since equal elements always fall into the same partition. The
+ * partition of each element is found once, by tasks which each group the indexes of a range of the
+ * elements by partition, so the tasks for the partitions only visit their own elements.
+ */
+final class Duplicates {
+  private Duplicates() {}
+
+  /**
+   * Integral values, read as {@code long} values. Two values are equal if and only if the elements
+   * they were read from are.
+   */
+  abstract static class IntegralValues {
+    abstract int size();
+
+    abstract long get(int index);
+  }
+
+  static IntegralValues of(final int[] array) {
+    return new IntegralValues() {
+      @Override
+      int size() {
+        return array.length;
+      }
+
+      @Override
+      long get(int index) {
+        return array[index];
+      }
+    };
+  }
+
+  static IntegralValues of(final long[] array) {
+    return new IntegralValues() {
+      @Override
+      int size() {
+        return array.length;
+      }
+
+      @Override
+      long get(int index) {
+        return array[index];
+      }
+    };
+  }
+
+  static IntegralValues of(final char[] array) {
+    return new IntegralValues() {
+      @Override
+      int size() {
+        return array.length;
+      }
+
+      @Override
+      long get(int index) {
+        return array[index];
+      }
+    };
+  }
+
+  /**
+   * Returns the values of the given elements, or null if they aren't all non-null instances of the
+   * same one of the integral classes listed above.
+   */
+  @Nullable
+  static IntegralValues ofIntegral(final List<?> elements) {
+    if (elements.isEmpty()) {
+      return null;
+    }
+    Object first = elements.get(0);
+    final boolean characters = first instanceof Character;
+    if (!(characters
+        || first instanceof Integer
+        || first instanceof Long
+        || first instanceof Short
+        || first instanceof Byte)) {
+      return null;
+    }
+    Class<?> type = first.getClass();
+    for (Object element : elements) {
+      if (element == null || element.getClass() != type) {
+        return null;
+      }
+    }
+    return new IntegralValues() {
+      @Override
+      int size() {
+        return elements.size();
+      }
+
+      @Override
+      long get(int index) {
+        Object element = elements.get(index);
+        return characters ? (Character) element : ((Number) element).longValue();
+      }
+    };
+  }
+
+  /** Returns whether any two of the given values are equal. */
+  static boolean exist(IntegralValues values) {
+    LongHashSet distinct = new LongHashSet(values.size());
+    for (int index = 0; index < values.size(); index++) {
+      if (!distinct.add(values.get(index))) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /** Returns whether any two of the given elements are equal. */
+  static boolean exist(Iterable<?> elements) {
+    Set<Object> distinct =
+        elements instanceof Collection<?>
+            ? Sets.newHashSetWithExpectedSize(((Collection<?>) elements).size())
+            : Sets.newHashSet();
+    for (Object element : elements) {
+      if (!distinct.add(element)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Returns whether any two of the given values are equal, looking in each of at most {@code
+   * maxTasks} partitions in a separate task run on the given executor.
+   */
+  static boolean exist(final IntegralValues values, Executor executor, int maxTasks) {
+    final int partitionCount = partitionCount(values.size(), maxTasks);
+    final Chunk[] chunks =
+        scatter(
+            values.size(),
+            new Partitioner(partitionCount) {
+              @Override
+              int partition(int index) {
+                return partitionOf(mix(values.get(index)));
+              }
+            },
+            executor);
+    final boolean[] found = new boolean[partitionCount];
+    List<Runnable> tasks = new ArrayList<Runnable>(partitionCount);
+    for (int partition = 0; partition < partitionCount; partition++) {
+      final int taskPartition = partition;
+      tasks.add(
+          new Runnable() {
+            @Override
+            public void run() {
+              LongHashSet distinct = new LongHashSet(sizeOf(chunks, taskPartition));
+              for (Chunk chunk : chunks) {
+                for (int i = chunk.start(taskPartition); i < chunk.end(taskPartition); i++) {
+                  if (!distinct.add(values.get(chunk.indexes[i]))) {
+                    found[taskPartition] = true;
+                    return;
+                  }
+                }
+              }
+            }
+          });
+    }
+    Platform.runAll(executor, tasks);
+    return anyOf(found);
+  }
+
+  /**
+   * Returns whether any two of the given elements are equal, looking in each of at most {@code
+   * maxTasks} partitions in a separate task run on the given executor. If any element's {@link
+   * Object#hashCode} or {@link Object#equals} throws, the first exception thrown by {@code
+   * hashCode} (in the order of the elements, roughly) or else the exception thrown in the first
+   * partition in which {@code equals} threw is rethrown, unless a duplicate was found.
+   */
+  static boolean exist(final List<?> elements, Executor executor, int maxTasks) {
+    final int partitionCount = partitionCount(elements.size(), maxTasks);
+    final Chunk[] chunks =
+        scatter(
+            elements.size(),
+            new Partitioner(partitionCount) {
+              @Override
+              int partition(int index) {
+                Object element = elements.get(index);
+                return partitionOf(mix(element == null ? 0 : element.hashCode()));
+              }
+            },
+            executor);
+    final boolean[] found = new boolean[partitionCount];
+    final RuntimeException[] thrown = new RuntimeException[partitionCount];
+    List<Runnable> tasks = new ArrayList<Runnable>(partitionCount);
+    for (int partition = 0; partition < partitionCount; partition++) {
+      final int taskPartition = partition;
+      tasks.add(
+          new Runnable() {
+            @Override
+            public void run() {
+              try {
+                Set<Object> distinct =
+                    Sets.newHashSetWithExpectedSize(sizeOf(chunks, taskPartition));
+                for (Chunk chunk : chunks) {
+                  for (int i = chunk.start(taskPartition); i < chunk.end(taskPartition); i++) {
+                    if (!distinct.add(elements.get(chunk.indexes[i]))) {
+                      found[taskPartition] = true;
+                      return;
+                    }
+                  }
+                }
+              } catch (RuntimeException e) {
+                thrown[taskPartition] = e;
+              }
+            }
+          });
+    }
+    Platform.runAll(executor, tasks);
+    if (anyOf(found)) {
+      return true;
+    }
+    for (Chunk chunk : chunks) {
+      if (chunk.thrown != null) {
+        throw chunk.thrown;
+      }
+    }
+    for (RuntimeException e : thrown) {
+      if (e != null) {
+        throw e;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * The most partitions the elements are split into, so that the partition of each element of a
+   * chunk fits in a byte, along with one more value for the elements whose partition is unknown.
+   */
+  private static final int MAX_PARTITIONS = 255;
+
+  private static int partitionCount(int size, int maxTasks) {
+    return Math.max(1, Math.min(size, Math.min(maxTasks, MAX_PARTITIONS)));
+  }
+
+  /** Finds the partition of the element at an index. */
+  private abstract static class Partitioner {
+    final int partitionCount;
+
+    Partitioner(int partitionCount) {
+      this.partitionCount = partitionCount;
+    }
+
+    /** Returns the partition of the element at the given index. This may throw. */
+    abstract int partition(int index);
+
+    /** Returns the partition of a mixed hash, from its high bits, which the hash sets don't use. */
+    final int partitionOf(long mixedHash) {
+      return (int) ((mixedHash >>> 33) % partitionCount);
+    }
+  }
+
+  /**
+   * The indexes of a contiguous range of elements, grouped by partition: those in partition {@code
+   * p} are {@code indexes[start(p)]} up to (but not including) {@code indexes[end(p)]}.
+   */
+  private static final class Chunk {
+    final int[] indexes;
+    /** The start of the indexes in each partition, and then of those of no known partition. */
+    final int[] offsets;
+    /** The first exception thrown while finding the partition of an element, if any. */
+    @Nullable final RuntimeException thrown;
+
+    Chunk(int[] indexes, int[] offsets, @Nullable RuntimeException thrown) {
+      this.indexes = indexes;
+      this.offsets = offsets;
+      this.thrown = thrown;
+    }
+
+    int start(int partition) {
+      return offsets[partition];
+    }
+
+    int end(int partition) {
+      return offsets[partition + 1];
+    }
+  }
+
+  /**
+   * Splits the indexes {@code [0, size)} into contiguous chunks, one per partition, and groups the
+   * indexes of each chunk by partition in a separate task run on the given executor. This finds the
+   * partition of each element once, so that each partition's task then only visits its own
+   * elements. An element whose partition can't be found (because finding it threw) is in no
+   * partition.
+   */
+  private static Chunk[] scatter(final int size, final Partitioner partitioner, Executor executor) {
+    final int chunkCount = partitioner.partitionCount;
+    final Chunk[] chunks = new Chunk[chunkCount];
+    List<Runnable> tasks = new ArrayList<Runnable>(chunkCount);
+    for (int chunk = 0; chunk < chunkCount; chunk++) {
+      final int taskChunk = chunk;
+      tasks.add(
+          new Runnable() {
+            @Override
+            public void run() {
+              int start = (int) ((long) size * taskChunk / chunkCount);
+              int end = (int) ((long) size * (taskChunk + 1) / chunkCount);
+              int unknown = partitioner.partitionCount;
+              RuntimeException thrown = null;
+              byte[] partitions = new byte[end - start];
+              // Count the elements of each partition, shifted up by one...
+              int[] offsets = new int[unknown + 2];
+              for (int index = start; index < end; index++) {
+                int partition;
+                try {
+                  partition = partitioner.partition(index);
+                } catch (RuntimeException e) {
+                  if (thrown == null) {
+                    thrown = e;
+                  }
+                  partition = unknown;
+                }
+                partitions[index - start] = (byte) partition;
+                offsets[partition + 1]++;
+              }
+              // ...so that summing them gives the start of each partition.
+              for (int partition = 0; partition <= unknown; partition++) {
+                offsets[partition + 1] += offsets[partition];
+              }
+              int[] next = Arrays.copyOf(offsets, offsets.length);
+              int[] indexes = new int[end - start];
+              for (int index = start; index < end; index++) {
+                indexes[next[partitions[index - start] & 0xff]++] = index;
+              }
+              chunks[taskChunk] = new Chunk(indexes, offsets, thrown);
+            }
+          });
+    }
+    Platform.runAll(executor, tasks);
+    return chunks;
+  }
+
+  /** Returns the number of elements in the given partition. */
+  private static int sizeOf(Chunk[] chunks, int partition) {
+    int size = 0;
+    for (Chunk chunk : chunks) {
+      size += chunk.end(partition) - chunk.start(partition);
+    }
+    return size;
+  }
+
+  private static boolean anyOf(boolean[] flags) {
+    for (boolean flag : flags) {
+      if (flag) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /** Scrambles the bits of the given value, so that both its low and high bits are well spread. */
+  private static long mix(long value) {
+    // The finalization step of MurmurHash3.
+    value ^= value >>> 33;
+    value *= 0xff51afd7ed558ccdL;
+    value ^= value >>> 33;
+    value *= 0xc4ceb9fe1a85ec53L;
+    value ^= value >>> 33;
+    return value;
+  }
+
+  /**
+   * A set of {@code long} values, stored in an open-addressing hash table with linear probing. Zero
+   * marks an empty slot, so whether the set contains zero is recorded separately.
+   */
+  private static final class LongHashSet {
+    private static final int MAX_CAPACITY = 1 << 30;
+
+    private long[] table;
+    private int size;
+    private boolean containsZero;
+
+    LongHashSet(int expectedSize) {
+      table = new long[capacityFor(expectedSize)];
+    }
+
+    /** Adds the given value, returning whether it was not already present. */
+    boolean add(long value) {
+      if (value == 0) {
+        boolean added = !containsZero;
+        containsZero = true;
+        return added;
+      }
+      int mask = table.length - 1;
+      int index = (int) mix(value) & mask;
+      while (table[index] != 0) {
+        if (table[index] == value) {
+          return false;
+        }
+        index = (index + 1) & mask;
+      }
+      table[index] = value;
+      if (++size > maxSize(table.length)) {
+        grow();
+      }
+      return true;
+    }
+
+    private void grow() {
+      checkState(table.length < MAX_CAPACITY, "Too many distinct values");
+      long[] oldTable = table;
+      table = new long[oldTable.length * 2];
+      int mask = table.length - 1;
+      for (long value : oldTable) {
+        if (value != 0) {
+          int index = (int) mix(value) & mask;
+          while (table[index] != 0) {
+            index = (index + 1) & mask;
+          }
+          table[index] = value;
+        }
+      }
+    }
+
+    /** Returns the number of values a table of the given capacity holds before growing. */
+    private static int maxSize(int capacity) {
+      // A load factor of 3/4, except that the largest table fills up, since it can't grow.
+      return capacity == MAX_CAPACITY ? capacity - 1 : capacity - capacity / 4;
+    }
+
+    /** Returns the smallest capacity which holds the given number of values without growing. */
+    private static int capacityFor(int expectedSize) {
+      int capacity = 16;
+      while (capacity < MAX_CAPACITY && maxSize(capacity) < expectedSize) {
+        capacity *= 2;
+      }
+      return capacity;
+    }
+  }
+}
@@ -0,0 +1,73 @@
+/*
+ * Copyright (c) 2017 Google, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.common.truth;
+
+import com.google.common.collect.Maps;
+import com.google.common.primitives.Ints;
+import java.util.Map;
+import javax.annotation.Nullable;
+
+/**
+ * The number of times each distinct element occurs in some elements, found by hashing. Each
+ * distinct element has a dense index, so that callers can keep their own counts in an {@code int[]}
+ * of size {@link #distinctCount} instead of in a hash multiset. Instances are immutable, so they
+ * can be shared (see {@link PreparedExpected}).
+ */
+final class ElementCounts {
+  private final Map<Object, Integer> indexes;
+  private final int[] counts;
+
+  private ElementCounts(Map<Object, Integer> indexes, int[] counts) {
+    this.indexes = indexes;
+    this.counts = counts;
+  }
+
+  /**
+   * Counts the given elements.
+   *
+   * @throws RuntimeException if any element's {@link Object#hashCode} does
+   */
+  static ElementCounts of(Iterable<?> elements) {
+    Map<Object, Integer> indexes = Maps.newHashMap();
+    int[] counts = new int[8];
+    for (Object element : elements) {
+      Integer index = indexes.get(element);
+      if (index == null) {
+        index = indexes.size();
+        indexes.put(element, index);
+        counts = Ints.ensureCapacity(counts, index + 1, index + 1);
+      }
+      counts[index]++;
+    }
+    return new ElementCounts(indexes, counts);
+  }
+
+  /** Returns the index of the given element, or -1 if it doesn't occur. */
+  int indexOf(@Nullable Object element) {
+    Integer index = indexes.get(element);
+    return index == null ? -1 : index;
+  }
+
+  /** Returns the number of times the element with the given index occurs. */
+  int count(int index) {
+    return counts[index];
+  }
+
+  /** Returns the number of distinct elements, which is one more than the greatest index. */
+  int distinctCount() {
+    return indexes.size();
+  }
+}
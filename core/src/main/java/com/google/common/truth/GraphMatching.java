@@ -15,16 +15,26 @@
  */
 package com.google.common.truth;
 
+import static com.google.common.base.Preconditions.checkArgument;
+
 import com.google.common.base.Optional;
 import com.google.common.collect.BiMap;
 import com.google.common.collect.HashBiMap;
 import com.google.common.collect.ImmutableBiMap;
 import com.google.common.collect.Multimap;
+import com.google.common.primitives.Ints;
 import com.google.errorprone.annotations.CanIgnoreReturnValue;
 import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Queue;
+import java.util.concurrent.Executor;
+import javax.annotation.Nullable;
 
 /**
  * Helper routines related to <a href="https://en.wikipedia.org/wiki/Matching_(graph_theory)">graph
@@ -55,6 +65,91 @@ final class GraphMatching {
     return HopcroftKarp.overBipartiteGraph(graph).perform();
   }
 
+  /**
+   * Finds a maximum cardinality matching of a bipartite graph whose vertices are dense indexes, as
+   * for {@link #maximumCardinalityBipartiteMatching(Multimap)}. The keys and values of the multimap
+   * must be non-negative integers, identifying the vertices in the two parts; these are mapped to
+   * arrays with one element per index up to the largest one, so they should be dense. The result
+   * is the same as that of {@link #maximumCardinalityBipartiteMatching(int[], int[], int)}, in the
+   * form of a bimap whose entries are in increasing order of key.
+   */
+  static ImmutableBiMap<Integer, Integer> maximumCardinalityBipartiteMatchingOfIndexes(
+      Multimap<Integer, Integer> graph) {
+    return maximumCardinalityBipartiteMatchingOfIndexes(graph, null);
+  }
+
+  /**
+   * As {@link #maximumCardinalityBipartiteMatchingOfIndexes(Multimap)}, but solving independent
+   * parts of the graph in parallel using tasks run on the given executor, if it is not null. The
+   * result is the same either way.
+   */
+  static ImmutableBiMap<Integer, Integer> maximumCardinalityBipartiteMatchingOfIndexes(
+      Multimap<Integer, Integer> graph, @Nullable Executor executor) {
+    int lhsCount = 0;
+    int rhsCount = 0;
+    for (Map.Entry<Integer, Integer> edge : graph.entries()) {
+      checkArgument(edge.getKey() >= 0 && edge.getValue() >= 0, "negative index in %s", edge);
+      lhsCount = Math.max(lhsCount, edge.getKey() + 1);
+      rhsCount = Math.max(rhsCount, edge.getValue() + 1);
+    }
+    int[] edgeStarts = new int[lhsCount + 1];
+    for (Map.Entry<Integer, Collection<Integer>> edges : graph.asMap().entrySet()) {
+      edgeStarts[edges.getKey() + 1] = edges.getValue().size();
+    }
+    for (int lhs = 0; lhs < lhsCount; lhs++) {
+      edgeStarts[lhs + 1] += edgeStarts[lhs];
+    }
+    int[] edgeTargets = new int[edgeStarts[lhsCount]];
+    for (Map.Entry<Integer, Collection<Integer>> edges : graph.asMap().entrySet()) {
+      int edge = edgeStarts[edges.getKey()];
+      for (int rhs : edges.getValue()) {
+        edgeTargets[edge++] = rhs;
+      }
+    }
+
+    int[] matching =
+        maximumCardinalityBipartiteMatching(edgeStarts, edgeTargets, rhsCount, executor);
+    ImmutableBiMap.Builder<Integer, Integer> result = ImmutableBiMap.builder();
+    for (int lhs = 0; lhs < lhsCount; lhs++) {
+      if (matching[lhs] != UNMATCHED) {
+        result.put(lhs, matching[lhs]);
+      }
+    }
+    return result.build();
+  }
+
+  /**
+   * Finds a maximum cardinality matching of a bipartite graph whose vertices are identified by
+   * indexes, using the same algorithm as {@link #maximumCardinalityBipartiteMatching(Multimap)} but
+   * without boxing, hashing, or recursion. The graph is given in compressed sparse row form: there
+   * are {@code edgeStarts.length - 1} LHS vertices and {@code rhsCount} RHS vertices, and the edges
+   * from LHS vertex {@code i} lead to the RHS vertices {@code edgeTargets[edgeStarts[i]]} up to
+   * (but excluding) {@code edgeTargets[edgeStarts[i + 1]]}. Returns an array giving the RHS vertex
+   * matched to each LHS vertex, or {@link #UNMATCHED}.
+   *
+   * <p>Candidate mappings are usually nearly 1:1, so before running the full algorithm this matches
+   * every vertex which has only one possible partner, then extends the matching greedily, and then
+   * only runs the full algorithm on those connected components of the graph which might still
+   * contain an augmenting path.
+   */
+  static int[] maximumCardinalityBipartiteMatching(
+      int[] edgeStarts, int[] edgeTargets, int rhsCount) {
+    return maximumCardinalityBipartiteMatching(edgeStarts, edgeTargets, rhsCount, null);
+  }
+
+  /**
+   * As {@link #maximumCardinalityBipartiteMatching(int[], int[], int)}, but solving the connected
+   * components of the graph in parallel using tasks run on the given executor, if it is not null.
+   * The result is the same either way.
+   */
+  static int[] maximumCardinalityBipartiteMatching(
+      int[] edgeStarts, int[] edgeTargets, int rhsCount, @Nullable Executor executor) {
+    return new IndexedMatching(edgeStarts, edgeTargets, rhsCount).perform(executor);
+  }
+
+  /** The value used in the result of the indexed matching to represent an unmatched vertex. */
+  static final int UNMATCHED = -1;
+
   private GraphMatching() {}
 
   /**
@@ -259,4 +354,445 @@ final class GraphMatching {
       return false;
     }
   }
+
+  /**
+   * Helper which finds a maximum cardinality matching over a graph whose vertices are indexes and
+   * whose edges are held in arrays, by reducing the problem as far as cheaply possible before
+   * running {@link IndexedHopcroftKarp}.
+   */
+  private static final class IndexedMatching {
+
+    /** The maximum number of tasks into which the components are split when run in parallel. */
+    private static final int MAX_PARALLEL_TASKS = 64;
+
+    private final int[] edgeStarts;
+    private final int[] edgeTargets;
+    private final int lhsCount;
+    private final int rhsCount;
+
+    /** The edges in compressed sparse row form again, but from the RHS vertices. */
+    private final int[] rhsEdgeStarts;
+    private final int[] rhsEdgeTargets;
+
+    private final int[] lhsMatches;
+    private final int[] rhsMatches;
+
+    IndexedMatching(int[] edgeStarts, int[] edgeTargets, int rhsCount) {
+      this.edgeStarts = edgeStarts;
+      this.edgeTargets = edgeTargets;
+      this.lhsCount = edgeStarts.length - 1;
+      this.rhsCount = rhsCount;
+      this.rhsEdgeStarts = new int[rhsCount + 1];
+      this.rhsEdgeTargets = new int[edgeTargets.length];
+      for (int rhs : edgeTargets) {
+        rhsEdgeStarts[rhs + 1]++;
+      }
+      for (int rhs = 0; rhs < rhsCount; rhs++) {
+        rhsEdgeStarts[rhs + 1] += rhsEdgeStarts[rhs];
+      }
+      int[] nextEdges = Arrays.copyOf(rhsEdgeStarts, rhsCount);
+      for (int lhs = 0; lhs < lhsCount; lhs++) {
+        for (int edge = edgeStarts[lhs]; edge < edgeStarts[lhs + 1]; edge++) {
+          rhsEdgeTargets[nextEdges[edgeTargets[edge]]++] = lhs;
+        }
+      }
+      this.lhsMatches = new int[lhsCount];
+      this.rhsMatches = new int[rhsCount];
+      Arrays.fill(lhsMatches, UNMATCHED);
+      Arrays.fill(rhsMatches, UNMATCHED);
+    }
+
+    /** Finds the matching, and returns the RHS vertex matched to each LHS vertex. */
+    int[] perform(@Nullable Executor executor) {
+      matchForcedVertices();
+      matchGreedily();
+      matchAmbiguousComponents(executor);
+      return lhsMatches;
+    }
+
+    private void match(int lhs, int rhs) {
+      lhsMatches[lhs] = rhs;
+      rhsMatches[rhs] = lhs;
+    }
+
+    /**
+     * Repeatedly matches any vertex which has exactly one unmatched neighbour to that neighbour.
+     * Some maximum matching of the remaining graph always includes such an edge, so this never
+     * makes the result smaller. A vertex can only be queued when its count of unmatched neighbours
+     * drops to one, which happens at most once, so the queue needs one slot per vertex. (The RHS
+     * vertices are queued as {@code lhsCount + rhs}.)
+     */
+    private void matchForcedVertices() {
+      int[] lhsDegrees = new int[lhsCount];
+      int[] rhsDegrees = new int[rhsCount];
+      int[] queue = new int[lhsCount + rhsCount];
+      int head = 0;
+      int tail = 0;
+      for (int lhs = 0; lhs < lhsCount; lhs++) {
+        lhsDegrees[lhs] = edgeStarts[lhs + 1] - edgeStarts[lhs];
+        if (lhsDegrees[lhs] == 1) {
+          queue[tail++] = lhs;
+        }
+      }
+      for (int rhs = 0; rhs < rhsCount; rhs++) {
+        rhsDegrees[rhs] = rhsEdgeStarts[rhs + 1] - rhsEdgeStarts[rhs];
+        if (rhsDegrees[rhs] == 1) {
+          queue[tail++] = lhsCount + rhs;
+        }
+      }
+
+      while (head < tail) {
+        int vertex = queue[head++];
+        int lhs;
+        int rhs;
+        if (vertex < lhsCount) {
+          lhs = vertex;
+          rhs = lhsMatches[lhs] == UNMATCHED ? firstUnmatchedRhsNeighbour(lhs) : UNMATCHED;
+        } else {
+          rhs = vertex - lhsCount;
+          lhs = rhsMatches[rhs] == UNMATCHED ? firstUnmatchedLhsNeighbour(rhs) : UNMATCHED;
+        }
+        if (lhs == UNMATCHED || rhs == UNMATCHED) {
+          // The vertex was matched, or lost its last unmatched neighbour, since it was queued.
+          continue;
+        }
+        match(lhs, rhs);
+        for (int edge = edgeStarts[lhs]; edge < edgeStarts[lhs + 1]; edge++) {
+          int neighbour = edgeTargets[edge];
+          if (rhsMatches[neighbour] == UNMATCHED && --rhsDegrees[neighbour] == 1) {
+            queue[tail++] = lhsCount + neighbour;
+          }
+        }
+        for (int edge = rhsEdgeStarts[rhs]; edge < rhsEdgeStarts[rhs + 1]; edge++) {
+          int neighbour = rhsEdgeTargets[edge];
+          if (lhsMatches[neighbour] == UNMATCHED && --lhsDegrees[neighbour] == 1) {
+            queue[tail++] = neighbour;
+          }
+        }
+      }
+    }
+
+    private int firstUnmatchedRhsNeighbour(int lhs) {
+      for (int edge = edgeStarts[lhs]; edge < edgeStarts[lhs + 1]; edge++) {
+        if (rhsMatches[edgeTargets[edge]] == UNMATCHED) {
+          return edgeTargets[edge];
+        }
+      }
+      return UNMATCHED;
+    }
+
+    private int firstUnmatchedLhsNeighbour(int rhs) {
+      for (int edge = rhsEdgeStarts[rhs]; edge < rhsEdgeStarts[rhs + 1]; edge++) {
+        if (lhsMatches[rhsEdgeTargets[edge]] == UNMATCHED) {
+          return rhsEdgeTargets[edge];
+        }
+      }
+      return UNMATCHED;
+    }
+
+    /** Matches each unmatched LHS vertex to its first unmatched neighbour, if it has one. */
+    private void matchGreedily() {
+      for (int lhs = 0; lhs < lhsCount; lhs++) {
+        if (lhsMatches[lhs] == UNMATCHED) {
+          int rhs = firstUnmatchedRhsNeighbour(lhs);
+          if (rhs != UNMATCHED) {
+            match(lhs, rhs);
+          }
+        }
+      }
+    }
+
+    /**
+     * Runs {@link IndexedHopcroftKarp} separately on each connected component of the graph which
+     * might contain an augmenting path. Since the matching is now maximal, an augmenting path can
+     * only exist in a component which has both an unmatched LHS vertex and an unmatched RHS vertex
+     * with edges. The components are independent, so they can be solved in parallel.
+     */
+    private void matchAmbiguousComponents(@Nullable Executor executor) {
+      // Label the components using union-find, with the RHS vertices numbered after the LHS ones.
+      int[] parents = new int[lhsCount + rhsCount];
+      for (int vertex = 0; vertex < parents.length; vertex++) {
+        parents[vertex] = vertex;
+      }
+      for (int lhs = 0; lhs < lhsCount; lhs++) {
+        for (int edge = edgeStarts[lhs]; edge < edgeStarts[lhs + 1]; edge++) {
+          union(parents, lhs, lhsCount + edgeTargets[edge]);
+        }
+      }
+      boolean[] hasFreeLhs = new boolean[parents.length];
+      boolean[] hasFreeRhs = new boolean[parents.length];
+      for (int lhs = 0; lhs < lhsCount; lhs++) {
+        if (lhsMatches[lhs] == UNMATCHED && edgeStarts[lhs] < edgeStarts[lhs + 1]) {
+          hasFreeLhs[find(parents, lhs)] = true;
+        }
+      }
+      for (int rhs = 0; rhs < rhsCount; rhs++) {
+        if (rhsMatches[rhs] == UNMATCHED && rhsEdgeStarts[rhs] < rhsEdgeStarts[rhs + 1]) {
+          hasFreeRhs[find(parents, lhsCount + rhs)] = true;
+        }
+      }
+
+      // Collect the vertices of each ambiguous component, in increasing order.
+      Map<Integer, Component> components = new LinkedHashMap<Integer, Component>();
+      for (int vertex = 0; vertex < parents.length; vertex++) {
+        int root = find(parents, vertex);
+        if (hasFreeLhs[root] && hasFreeRhs[root]) {
+          Component component = components.get(root);
+          if (component == null) {
+            component = new Component();
+            components.put(root, component);
+          }
+          if (vertex < lhsCount) {
+            component.lhsVertices.add(vertex);
+          } else {
+            component.rhsVertices.add(vertex - lhsCount);
+          }
+        }
+      }
+
+      final List<Component> ambiguous = new ArrayList<Component>(components.values());
+      if (executor == null || ambiguous.size() < 2) {
+        for (Component component : ambiguous) {
+          solve(component);
+        }
+        return;
+      }
+      // Each task solves a contiguous range of the components, each of which only touches the
+      // matches of its own vertices, so the result doesn't depend on how the tasks are run.
+      int taskCount = Math.min(ambiguous.size(), MAX_PARALLEL_TASKS);
+      List<Runnable> tasks = new ArrayList<Runnable>(taskCount);
+      for (int task = 0; task < taskCount; task++) {
+        final int fromIndex = ambiguous.size() * task / taskCount;
+        final int toIndex = ambiguous.size() * (task + 1) / taskCount;
+        tasks.add(
+            new Runnable() {
+              @Override
+              public void run() {
+                for (Component component : ambiguous.subList(fromIndex, toIndex)) {
+                  solve(component);
+                }
+              }
+            });
+      }
+      Platform.runAll(executor, tasks);
+    }
+
+    /** The LHS and RHS vertices of a connected component of the graph. */
+    private static final class Component {
+      final List<Integer> lhsVertices = new ArrayList<Integer>();
+      final List<Integer> rhsVertices = new ArrayList<Integer>();
+    }
+
+    /**
+     * Runs {@link IndexedHopcroftKarp} on the subgraph formed by the given component, starting from
+     * the current matching, and copies the result back.
+     */
+    private void solve(Component component) {
+      int componentLhsCount = component.lhsVertices.size();
+      int componentRhsCount = component.rhsVertices.size();
+      int[] globalLhs = Ints.toArray(component.lhsVertices);
+      int[] globalRhs = Ints.toArray(component.rhsVertices);
+      // The RHS vertices are in increasing order, so a binary search gives their local indexes.
+      int[] localEdgeStarts = new int[componentLhsCount + 1];
+      for (int local = 0; local < componentLhsCount; local++) {
+        int lhs = globalLhs[local];
+        localEdgeStarts[local + 1] = localEdgeStarts[local] + edgeStarts[lhs + 1] - edgeStarts[lhs];
+      }
+      int[] localEdgeTargets = new int[localEdgeStarts[componentLhsCount]];
+      int[] localLhsMatches = new int[componentLhsCount];
+      int[] localRhsMatches = new int[componentRhsCount];
+      Arrays.fill(localRhsMatches, UNMATCHED);
+      for (int local = 0; local < componentLhsCount; local++) {
+        int lhs = globalLhs[local];
+        int localEdge = localEdgeStarts[local];
+        for (int edge = edgeStarts[lhs]; edge < edgeStarts[lhs + 1]; edge++) {
+          localEdgeTargets[localEdge++] = Arrays.binarySearch(globalRhs, edgeTargets[edge]);
+        }
+        if (lhsMatches[lhs] == UNMATCHED) {
+          localLhsMatches[local] = UNMATCHED;
+        } else {
+          int localRhs = Arrays.binarySearch(globalRhs, lhsMatches[lhs]);
+          localLhsMatches[local] = localRhs;
+          localRhsMatches[localRhs] = local;
+        }
+      }
+
+      new IndexedHopcroftKarp(localEdgeStarts, localEdgeTargets, localLhsMatches, localRhsMatches)
+          .perform();
+
+      for (int local = 0; local < componentLhsCount; local++) {
+        if (localLhsMatches[local] != UNMATCHED) {
+          match(globalLhs[local], globalRhs[localLhsMatches[local]]);
+        }
+      }
+    }
+
+    private static int find(int[] parents, int vertex) {
+      while (parents[vertex] != vertex) {
+        // Path halving keeps the trees shallow.
+        parents[vertex] = parents[parents[vertex]];
+        vertex = parents[vertex];
+      }
+      return vertex;
+    }
+
+    private static void union(int[] parents, int first, int second) {
+      int firstRoot = find(parents, first);
+      int secondRoot = find(parents, second);
+      if (firstRoot != secondRoot) {
+        parents[Math.max(firstRoot, secondRoot)] = Math.min(firstRoot, secondRoot);
+      }
+    }
+  }
+
+  /**
+   * Helper which implements the Hopcroft–Karp algorithm, as {@link HopcroftKarp} does, over a
+   * graph whose vertices are indexes and whose edges are held in arrays. The depth-first searches
+   * use an explicit stack, so long augmenting paths can't overflow the call stack, and each LHS
+   * vertex keeps a cursor into its edges, so each phase considers each edge at most once.
+   */
+  private static final class IndexedHopcroftKarp {
+
+    /** The layer of an LHS vertex which has not been visited (or which is a dead end). */
+    private static final int NO_LAYER = 0;
+
+    private final int[] edgeStarts;
+    private final int[] edgeTargets;
+    private final int lhsCount;
+
+    private final int[] lhsMatches;
+    private final int[] rhsMatches;
+    private final int[] layers;
+    private final int[] cursors;
+    private final int[] stack;
+
+    /**
+     * Constructs an instance ready to perform the algorithm, starting from the matching given by
+     * the two arrays, which this will update in place.
+     */
+    IndexedHopcroftKarp(int[] edgeStarts, int[] edgeTargets, int[] lhsMatches, int[] rhsMatches) {
+      this.edgeStarts = edgeStarts;
+      this.edgeTargets = edgeTargets;
+      this.lhsCount = edgeStarts.length - 1;
+      this.lhsMatches = lhsMatches;
+      this.rhsMatches = rhsMatches;
+      this.layers = new int[lhsCount];
+      this.cursors = new int[lhsCount];
+      this.stack = new int[lhsCount];
+    }
+
+    /** Performs the algorithm, and returns the RHS vertex matched to each LHS vertex. */
+    int[] perform() {
+      while (true) {
+        int freeRhsVertexLayer = breadthFirstSearch();
+        if (freeRhsVertexLayer == NO_LAYER) {
+          break;
+        }
+        System.arraycopy(edgeStarts, 0, cursors, 0, lhsCount);
+        for (int lhs = 0; lhs < lhsCount; lhs++) {
+          if (lhsMatches[lhs] == UNMATCHED && hasEdges(lhs)) {
+            depthFirstSearch(freeRhsVertexLayer, lhs);
+          }
+        }
+      }
+      return lhsMatches;
+    }
+
+    private boolean hasEdges(int lhs) {
+      return edgeStarts[lhs] < edgeStarts[lhs + 1];
+    }
+
+    /**
+     * Performs the Breadth-First Search phase of the algorithm, as {@link
+     * HopcroftKarp#breadthFirstSearch} does, filling in the layers of the LHS vertices visited.
+     * Returns the layer in which the first free RHS vertex was found, or {@link #NO_LAYER}.
+     */
+    private int breadthFirstSearch() {
+      Arrays.fill(layers, NO_LAYER);
+      // The BFS visits each LHS vertex at most once, so the stack array can serve as the queue.
+      int[] queue = stack;
+      int head = 0;
+      int tail = 0;
+      for (int lhs = 0; lhs < lhsCount; lhs++) {
+        if (lhsMatches[lhs] == UNMATCHED && hasEdges(lhs)) {
+          layers[lhs] = 1;
+          queue[tail++] = lhs;
+        }
+      }
+
+      int freeRhsVertexLayer = NO_LAYER;
+      while (head < tail) {
+        int lhs = queue[head++];
+        int layer = layers[lhs];
+        if (freeRhsVertexLayer != NO_LAYER && layer > freeRhsVertexLayer) {
+          break;
+        }
+        for (int edge = edgeStarts[lhs]; edge < edgeStarts[lhs + 1]; edge++) {
+          int nextLhs = rhsMatches[edgeTargets[edge]];
+          if (nextLhs == UNMATCHED) {
+            if (freeRhsVertexLayer == NO_LAYER) {
+              freeRhsVertexLayer = layer;
+            }
+          } else if (layers[nextLhs] == NO_LAYER) {
+            layers[nextLhs] = layer + 1;
+            queue[tail++] = nextLhs;
+          }
+        }
+      }
+      return freeRhsVertexLayer;
+    }
+
+    /**
+     * Performs the Depth-First Search phase of the algorithm from the given free LHS vertex, as
+     * {@link HopcroftKarp#depthFirstSearch} does, flipping the edges along the augmenting path if
+     * it finds one. The stack holds the LHS vertices on the current search path, and the cursor of
+     * each of them identifies the edge it is following. An LHS vertex from which the search can't
+     * reach a free RHS vertex is removed from the layers, since no later search in this phase can
+     * succeed through it either.
+     */
+    private void depthFirstSearch(int freeRhsVertexLayer, int startLhs) {
+      int depth = 0;
+      stack[0] = startLhs;
+      while (depth >= 0) {
+        int lhs = stack[depth];
+        int layer = layers[lhs];
+        boolean descended = false;
+        while (layer <= freeRhsVertexLayer && cursors[lhs] < edgeStarts[lhs + 1]) {
+          int nextLhs = rhsMatches[edgeTargets[cursors[lhs]]];
+          if (nextLhs == UNMATCHED) {
+            augment(depth);
+            return;
+          }
+          if (layers[nextLhs] == layer + 1) {
+            stack[++depth] = nextLhs;
+            descended = true;
+            break;
+          }
+          cursors[lhs]++;
+        }
+        if (!descended) {
+          // This is a dead end: remove it from the layers, and move on to the parent's next edge.
+          layers[lhs] = NO_LAYER;
+          depth--;
+          if (depth >= 0) {
+            cursors[stack[depth]]++;
+          }
+        }
+      }
+    }
+
+    /**
+     * Flips the edges along the augmenting path given by the LHS vertices on the stack up to the
+     * given depth and the edges identified by their cursors, the last of which leads to a free RHS
+     * vertex.
+     */
+    private void augment(int depth) {
+      for (int i = depth; i >= 0; i--) {
+        int lhs = stack[i];
+        int rhs = edgeTargets[cursors[lhs]];
+        lhsMatches[lhs] = rhs;
+        rhsMatches[rhs] = lhs;
+      }
+    }
+  }
 }
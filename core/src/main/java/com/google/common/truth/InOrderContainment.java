@@ -0,0 +1,230 @@
+/*
+ * Copyright (c) 2017 Google, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.common.truth;
+
+import com.google.common.base.Objects;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.primitives.Ints;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The result of checking whether a list of actual elements contains all of a collection of
+ * expected elements, respecting multiplicity: the expected elements which are missing, and whether
+ * the expected elements which are present appear in the same order in the actual elements.
+ *
+ * <p>The result is exactly that of the naive algorithm, which walks through the expected elements
+ * looking for each one in the actual elements after the one found for the previous expected
+ * element, and otherwise among the unused actual elements before it (in which case the elements are
+ * not in order). The naive algorithm takes {@code O(n m)} time, though, so this indexes the
+ * positions of each distinct actual element in a hash map instead, taking {@code O(n + m)} time.
+ *
+ * <p>As with {@link MultisetDiff}, this falls back to the naive algorithm if any element throws
+ * when hashed, or if any missing element is equal to any actual element (a check which, as there,
+ * is bounded by {@link SubjectUtils#MAX_HASH_VERIFICATION_COMPARISONS}). If hashing finds the
+ * elements to be out of order, that is confirmed with a linear scan which doesn't rely on hash
+ * codes.
+ */
+final class InOrderContainment {
+  private final List<Object> missing;
+  private final boolean inOrder;
+
+  private InOrderContainment(List<Object> missing, boolean inOrder) {
+    this.missing = missing;
+    this.inOrder = inOrder;
+  }
+
+  /** Checks whether the given actual elements contain all of the given expected elements. */
+  static InOrderContainment check(List<?> actual, Iterable<?> expected) {
+    InOrderContainment hashed = hashingCheck(actual, expected);
+    if (hashed == null || hasEqualMissingAndActualElements(hashed.missing, actual)) {
+      return naiveCheck(actual, expected);
+    }
+    if (!hashed.inOrder && hashed.missing.isEmpty() && isSubsequence(expected, actual)) {
+      return new InOrderContainment(hashed.missing, true);
+    }
+    return hashed;
+  }
+
+  /** The expected elements which are missing from the actual elements, in their original order. */
+  List<Object> missing() {
+    return missing;
+  }
+
+  /**
+   * Returns whether the expected elements which were found appear in the actual elements in the
+   * same order (though not necessarily consecutively).
+   */
+  boolean isInOrder() {
+    return inOrder;
+  }
+
+  /**
+   * The positions at which a distinct element appears in the actual elements, in increasing order.
+   * Positions before {@code next} are before the current position in the walk of the actual
+   * elements, and {@code used} of them have already been matched to expected elements.
+   */
+  private static final class Positions {
+    int[] positions = new int[1];
+    int size;
+    int next;
+    int used;
+
+    void add(int position) {
+      if (size == positions.length) {
+        positions = Ints.ensureCapacity(positions, size + 1, size);
+      }
+      positions[size++] = position;
+    }
+  }
+
+  /**
+   * Performs the check by hashing, or returns null if any element could not be hashed (i.e. its
+   * {@link Object#hashCode} threw).
+   */
+  private static InOrderContainment hashingCheck(List<?> actual, Iterable<?> expected) {
+    List<Object> missing = Lists.newArrayList();
+    boolean inOrder = true;
+    try {
+      Map<Object, Positions> index = Maps.newHashMap();
+      int position = 0;
+      for (Object item : actual) {
+        Positions positions = index.get(item);
+        if (positions == null) {
+          positions = new Positions();
+          index.put(item, positions);
+        }
+        positions.add(position++);
+      }
+
+      // The position in the actual elements just after the last one matched in order.
+      int cursor = 0;
+      for (Object item : expected) {
+        Positions positions = index.get(item);
+        if (positions == null) {
+          missing.add(item);
+          continue;
+        }
+        while (positions.next < positions.size && positions.positions[positions.next] < cursor) {
+          positions.next++;
+        }
+        if (positions.next < positions.size) {
+          // Found after the cursor: everything in between is skipped, so move the cursor past it.
+          cursor = positions.positions[positions.next] + 1;
+          positions.next++;
+          positions.used++;
+        } else if (positions.used < positions.next) {
+          // Only found among the skipped elements before the cursor, which means out of order.
+          positions.used++;
+          inOrder = false;
+        } else {
+          missing.add(item);
+        }
+      }
+    } catch (RuntimeException unhashable) {
+      return null;
+    }
+    return new InOrderContainment(missing, inOrder);
+  }
+
+  /**
+   * Returns whether any of the given missing elements is equal to any of the given actual elements,
+   * in which case the hashing check may have been fooled by an inconsistent hash code. For
+   * efficiency, this only checks pairs in which at least one of the elements is not known to hash
+   * reliably, and it trusts the hash codes (returning false) if checking them would take more than
+   * {@link SubjectUtils#MAX_HASH_VERIFICATION_COMPARISONS} comparisons.
+   */
+  private static boolean hasEqualMissingAndActualElements(List<?> missing, List<?> actual) {
+    if (missing.isEmpty()) {
+      return false;
+    }
+    List<Object> unreliableMissing = Lists.newArrayList();
+    for (Object item : missing) {
+      if (!SubjectUtils.hasReliableHashCode(item)) {
+        unreliableMissing.add(item);
+      }
+    }
+    int unreliableActual = 0;
+    for (Object actualItem : actual) {
+      if (!SubjectUtils.hasReliableHashCode(actualItem)) {
+        unreliableActual++;
+      }
+    }
+    long comparisons =
+        (long) (actual.size() - unreliableActual) * unreliableMissing.size()
+            + (long) unreliableActual * missing.size();
+    if (comparisons > SubjectUtils.MAX_HASH_VERIFICATION_COMPARISONS) {
+      return false;
+    }
+    for (Object actualItem : actual) {
+      boolean reliable = SubjectUtils.hasReliableHashCode(actualItem);
+      for (Object missingItem : reliable ? unreliableMissing : missing) {
+        if (Objects.equal(missingItem, actualItem)) {
+          return true;
+        }
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Returns whether the expected elements appear in the actual elements in order, by greedily
+   * matching each one to the first equal actual element after the previous match.
+   */
+  private static boolean isSubsequence(Iterable<?> expected, List<?> actual) {
+    Iterator<?> actualIter = actual.iterator();
+    for (Object item : expected) {
+      boolean found = false;
+      while (!found && actualIter.hasNext()) {
+        found = Objects.equal(item, actualIter.next());
+      }
+      if (!found) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /** Performs the check using the naive {@code O(n m)} algorithm described above. */
+  private static InOrderContainment naiveCheck(List<?> actualList, Iterable<?> expected) {
+    List<?> actual = Lists.newLinkedList(actualList);
+    List<Object> missing = Lists.newArrayList();
+    List<Object> actualNotInOrder = Lists.newArrayList();
+
+    boolean ordered = true;
+    // step through the expected elements...
+    for (Object e : expected) {
+      int index = actual.indexOf(e);
+      if (index != -1) { // if we find the element in the actual list...
+        // drain all the elements that come before that element into actualNotInOrder
+        for (int i = 0; i < index; i++) {
+          actualNotInOrder.add(actual.remove(0));
+        }
+        // and remove the element from the actual list
+        actual.remove(0);
+      } else { // otherwise try removing it from actualNotInOrder...
+        if (actualNotInOrder.remove(e)) { // if it was in actualNotInOrder, we're not in order
+          ordered = false;
+        } else { // if it's not in actualNotInOrder, we're missing an expected element
+          missing.add(e);
+        }
+      }
+    }
+    return new InOrderContainment(missing, ordered);
+  }
+}
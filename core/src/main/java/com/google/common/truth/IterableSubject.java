@@ -18,31 +18,43 @@ package com.google.common.truth;
 import static com.google.common.base.Preconditions.checkArgument;
 import static com.google.common.base.Preconditions.checkNotNull;
 import static com.google.common.truth.SubjectUtils.accumulate;
+import static com.google.common.truth.SubjectUtils.countCopies;
 import static com.google.common.truth.SubjectUtils.countDuplicates;
 import static java.util.Arrays.asList;
 
 import com.google.common.base.Objects;
 import com.google.common.base.Optional;
+import com.google.common.base.Predicate;
+import com.google.common.collect.ArrayListMultimap;
 import com.google.common.collect.BiMap;
+import com.google.common.collect.HashMultiset;
 import com.google.common.collect.ImmutableBiMap;
+import com.google.common.collect.ImmutableCollection;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMultimap;
 import com.google.common.collect.ImmutableSetMultimap;
 import com.google.common.collect.Iterables;
 import com.google.common.collect.Iterators;
 import com.google.common.collect.LinkedHashMultiset;
+import com.google.common.collect.ListMultimap;
 import com.google.common.collect.Lists;
 import com.google.common.collect.Multiset;
 import com.google.common.collect.Multiset.Entry;
 import com.google.common.collect.Ordering;
 import com.google.common.collect.Sets;
+import com.google.common.truth.Correspondence.KeyedCorrespondence;
+import com.google.common.truth.Correspondence.TolerantNumericEquality;
 import com.google.errorprone.annotations.CanIgnoreReturnValue;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.Comparator;
 import java.util.Iterator;
 import java.util.List;
+import java.util.RandomAccess;
 import java.util.Set;
+import java.util.SortedSet;
+import java.util.concurrent.Executor;
 import javax.annotation.Nullable;
 
 /**
@@ -55,7 +67,8 @@ import javax.annotation.Nullable;
  *       unusual implementation of {@link Iterable} which does not support multiple iterations
  *       (sometimes known as a "one-shot iterable"), you must copy your iterable into a collection
  *       which does (e.g. {@code ImmutableList.copyOf(iterable)} or, if your iterable may contain
- *       null, {@code newArrayList(iterable)}). If you don't, you may see surprising failures.
+ *       null, {@code newArrayList(iterable)}), or use the assertions on {@link #streaming}, which
+ *       iterate only once. If you don't, you may see surprising failures.
  *   <li>Assertions may also require that the elements in the given {@link Iterable} implement
  *       {@link Object#hashCode} correctly.
  * </ul>
@@ -66,9 +79,44 @@ import javax.annotation.Nullable;
 // Can't be final since MultisetSubject and SortedSetSubject extend it
 public class IterableSubject extends Subject<IterableSubject, Iterable<?>> {
 
+  /** The maximum number of tasks into which assertions run in parallel split the work. */
+  private static final int MAX_PARALLEL_TASKS = 64;
+
+  /**
+   * Built on first use, and then shared by all the membership assertions on this subject if it is
+   * immutable. (Otherwise it could change between them, so each builds its own.)
+   */
+  @Nullable private MembershipIndex membership;
+
+  /** The values of the primitive array which the subject is a view of, if it is one. */
+  @Nullable private final Duplicates.IntegralValues primitiveValues;
+
   // TODO(kak): Make this package-protected?
   protected IterableSubject(FailureStrategy failureStrategy, @Nullable Iterable<?> list) {
+    this(failureStrategy, list, null);
+  }
+
+  /**
+   * Creates a subject for a list view of a primitive array, whose values some assertions can then
+   * read without boxing them.
+   */
+  IterableSubject(
+      FailureStrategy failureStrategy,
+      @Nullable Iterable<?> list,
+      @Nullable Duplicates.IntegralValues primitiveValues) {
     super(failureStrategy, list);
+    this.primitiveValues = primitiveValues;
+  }
+
+  private MembershipIndex membership() {
+    if (membership != null) {
+      return membership;
+    }
+    MembershipIndex index = new MembershipIndex(checkNotNull(actual()));
+    if (actual() instanceof ImmutableCollection<?>) {
+      membership = index;
+    }
+    return index;
   }
 
   /** Fails if the subject is not empty. */
@@ -100,20 +148,39 @@ public class IterableSubject extends Subject<IterableSubject, Iterable<?>> {
 
   /** Attests (with a side-effect failure) that the subject contains the supplied item. */
   public final void contains(@Nullable Object element) {
-    if (!Iterables.contains(actual(), element)) {
+    if (!membership().contains(element)) {
       failWithRawMessage("%s should have contained <%s>", actualAsString(), element);
     }
   }
 
   /** Attests (with a side-effect failure) that the subject does not contain the supplied item. */
   public final void doesNotContain(@Nullable Object element) {
-    if (Iterables.contains(actual(), element)) {
+    if (membership().contains(element)) {
       failWithRawMessage("%s should not have contained <%s>", actualAsString(), element);
     }
   }
 
   /** Attests that the subject does not contain duplicate elements. */
   public final void containsNoDuplicates() {
+    // Usually there are none, so first look for any at all, which can stop at the first one, and
+    // only count all the elements to describe the duplicates if there are some.
+    boolean hasDuplicates;
+    if (primitiveValues != null) {
+      hasDuplicates = Duplicates.exist(primitiveValues);
+    } else {
+      Duplicates.IntegralValues integralValues =
+          actual() instanceof List<?> && actual() instanceof RandomAccess
+              ? Duplicates.ofIntegral((List<?>) actual())
+              : null;
+      hasDuplicates =
+          integralValues != null ? Duplicates.exist(integralValues) : Duplicates.exist(actual());
+    }
+    if (hasDuplicates) {
+      failWithDuplicates();
+    }
+  }
+
+  private void failWithDuplicates() {
     List<Entry<?>> duplicates = Lists.newArrayList();
     for (Multiset.Entry<?> entry : LinkedHashMultiset.create(actual()).entrySet()) {
       if (entry.getCount() > 1) {
@@ -140,13 +207,9 @@ public class IterableSubject extends Subject<IterableSubject, Iterable<?>> {
   }
 
   private void containsAny(String failVerb, Iterable<?> expected) {
-    Collection<?> actual = iterableToCollection(actual());
-    for (Object item : expected) {
-      if (actual.contains(item)) {
-        return;
-      }
+    if (!membership().containsAny(expected)) {
+      fail(failVerb, expected);
     }
-    fail(failVerb, expected);
   }
 
   private static <T> Collection<T> iterableToCollection(Iterable<T> iterable) {
@@ -200,44 +263,35 @@ public class IterableSubject extends Subject<IterableSubject, Iterable<?>> {
   }
 
   private Ordered containsAll(String failVerb, Iterable<?> expectedIterable) {
-    List<?> actual = Lists.newLinkedList(actual());
-    Collection<?> expected = iterableToCollection(expectedIterable);
-
-    List<Object> missing = Lists.newArrayList();
-    List<Object> actualNotInOrder = Lists.newArrayList();
-
-    boolean ordered = true;
-    // step through the expected elements...
-    for (Object e : expected) {
-      int index = actual.indexOf(e);
-      if (index != -1) { // if we find the element in the actual list...
-        // drain all the elements that come before that element into actualNotInOrder
-        moveElements(actual, actualNotInOrder, index);
-        // and remove the element from the actual list
-        actual.remove(0);
-      } else { // otherwise try removing it from actualNotInOrder...
-        if (actualNotInOrder.remove(e)) { // if it was in actualNotInOrder, we're not in order
-          ordered = false;
-        } else { // if it's not in actualNotInOrder, we're missing an expected element
-          missing.add(e);
-        }
-      }
+    // Multisets can be compared by their counts, without iterating over every copy.
+    if (actual() instanceof Multiset<?> && expectedIterable instanceof Multiset<?>) {
+      return containsAllCounts(failVerb, (Multiset<?>) expectedIterable);
     }
+    Collection<?> expected = iterableToCollection(expectedIterable);
+    InOrderContainment containment = InOrderContainment.check(iterableToList(actual()), expected);
     // if we have any missing expected elements, fail
-    if (!missing.isEmpty()) {
-      failWithBadResults(failVerb, expected, "is missing", countDuplicates(missing));
+    if (!containment.missing().isEmpty()) {
+      failWithBadResults(failVerb, expected, "is missing", countDuplicates(containment.missing()));
     }
-    return ordered ? IN_ORDER : new NotInOrder("contains all elements in order", expected);
+    return containment.isInOrder()
+        ? IN_ORDER
+        : new NotInOrder("contains all elements in order", expected);
   }
 
   /**
-   * Removes at most the given number of available elements from the input list and adds them to the
-   * given output collection.
+   * Fails if the actual multiset does not contain at least the copies of the expected multiset, as
+   * {@link #containsAll} does, but comparing their counts.
    */
-  private static void moveElements(List<?> input, Collection<Object> output, int maxElements) {
-    for (int i = 0; i < maxElements; i++) {
-      output.add(input.remove(0));
+  @CanIgnoreReturnValue
+  final Ordered containsAllCounts(String failVerb, Multiset<?> expected) {
+    Multiset<?> actual = (Multiset<?>) actual();
+    CountDiff diff = CountDiff.between(actual, expected, false);
+    if (!diff.missing().isEmpty()) {
+      failWithBadResults(failVerb, expected, "is missing", countCopies(diff.missing()));
     }
+    return CountDiff.containsInOrder(actual, expected)
+        ? IN_ORDER
+        : new NotInOrder("contains all elements in order", expected);
   }
 
   /**
@@ -290,6 +344,29 @@ public class IterableSubject extends Subject<IterableSubject, Iterable<?>> {
       return IN_ORDER;
     }
 
+    // Sets sorted the same way can be compared by walking them together.
+    if (actual() instanceof SortedSet<?> && required instanceof SortedSet<?>) {
+      SortedMerge merge = SortedMerge.ofElements((SortedSet<?>) actual(), (SortedSet<?>) required);
+      if (merge != null) {
+        if (merge.isEmpty()) {
+          // Equal sets sorted the same way iterate in the same order.
+          return IN_ORDER;
+        }
+        failWithRawMessage(
+            "Not true that %s contains exactly <%s>. %s%s",
+            actualAsString(),
+            required,
+            merge.describe("element"),
+            failSuffix);
+        return new NotInOrder("contains exactly these elements in order", required, true);
+      }
+    }
+
+    // Multisets can be compared by their counts, without iterating over every copy.
+    if (actual() instanceof Multiset<?> && required instanceof Multiset<?>) {
+      return containsExactlyCounts((Multiset<?>) required, failSuffix);
+    }
+
     // Step through both iterators comparing elements pairwise.
     while (actualIter.hasNext() && requiredIter.hasNext()) {
       Object actualElement = actualIter.next();
@@ -300,57 +377,30 @@ public class IterableSubject extends Subject<IterableSubject, Iterable<?>> {
       // Since any previous pairs of elements we iterated over were equal, they have no
       // effect on the result now.
       if (!Objects.equal(actualElement, requiredElement)) {
-        // Missing elements; elements that are not missing will be removed as we iterate.
-        Collection<Object> missing = Lists.newArrayList();
-        missing.add(requiredElement);
-        Iterators.addAll(missing, requiredIter);
-
-        // Extra elements that the subject had but shouldn't have.
-        Collection<Object> extra = Lists.newArrayList();
-
-        // Remove all actual elements from missing, and add any that weren't in missing
-        // to extra.
-        if (!missing.remove(actualElement)) {
-          extra.add(actualElement);
-        }
-        while (actualIter.hasNext()) {
-          Object item = actualIter.next();
-          if (!missing.remove(item)) {
-            extra.add(item);
-          }
+        // Missing elements that the subject should have had, and extra elements that the subject
+        // had but shouldn't have.
+        MultisetDiff diff;
+        if (PreparedExpected.isCacheable(required)) {
+          // The pairs before this one were equal, so the difference between all the elements is
+          // the same as that between the rest of them, and the counts of all the expected elements
+          // can come from the cache.
+          diff = MultisetDiff.between(iterableToList(actual()), required);
+        } else {
+          // The remaining elements of each iterable, starting with the pair that differ.
+          List<Object> remainingRequired = Lists.newArrayList();
+          remainingRequired.add(requiredElement);
+          Iterators.addAll(remainingRequired, requiredIter);
+          List<Object> remainingActual = Lists.newArrayList();
+          remainingActual.add(actualElement);
+          Iterators.addAll(remainingActual, actualIter);
+          diff = MultisetDiff.between(remainingActual, remainingRequired);
         }
-
         // Fail if there are either missing or extra elements.
-
-        // TODO(kak): Possible enhancement: Include "[1 copy]" if the element does appear in
-        // the subject but not enough times. Similarly for unexpected extra items.
-        if (!missing.isEmpty()) {
-          if (!extra.isEmpty()) {
-            // Subject is both missing required elements and contains extra elements
-            failWithRawMessage(
-                "Not true that %s contains exactly <%s>. "
-                    + "It is missing <%s> and has unexpected items <%s>%s",
-                actualAsString(),
-                required,
-                countDuplicates(missing),
-                countDuplicates(extra),
-                failSuffix);
-          } else {
-            failWithBadResultsAndSuffix(
-                "contains exactly", required, "is missing", countDuplicates(missing), failSuffix);
-          }
-        }
-        if (!extra.isEmpty()) {
-          failWithBadResultsAndSuffix(
-              "contains exactly",
-              required,
-              "has unexpected items",
-              countDuplicates(extra),
-              failSuffix);
-        }
+        failWithMissingAndExtra(
+            required, countDuplicates(diff.missing()), countDuplicates(diff.extra()), failSuffix);
 
         // Since we know the iterables were not in the same order, inOrder() can just fail.
-        return new NotInOrder("contains exactly these elements in order", required);
+        return new NotInOrder("contains exactly these elements in order", required, true);
       }
     }
 
@@ -378,6 +428,53 @@ public class IterableSubject extends Subject<IterableSubject, Iterable<?>> {
     return IN_ORDER;
   }
 
+  /**
+   * Fails if the actual multiset does not contain exactly the copies of the required multiset, as
+   * {@link #containsExactlyElementsIn} does, but comparing their counts.
+   */
+  @CanIgnoreReturnValue
+  final Ordered containsExactlyCounts(Multiset<?> required, String failSuffix) {
+    Multiset<?> actual = (Multiset<?>) actual();
+    CountDiff diff = CountDiff.between(actual, required, true);
+    if (diff.isEmpty() && CountDiff.inSameOrder(actual, required)) {
+      return IN_ORDER;
+    }
+    failWithMissingAndExtra(
+        required, countCopies(diff.missing()), countCopies(diff.extra()), failSuffix);
+    // Describing how the order differs would mean listing every copy, so inOrder() just fails.
+    return new NotInOrder("contains exactly these elements in order", required);
+  }
+
+  /**
+   * Fails if there are any missing or extra elements, given each as an element or as an element
+   * with a count of its copies.
+   */
+  private void failWithMissingAndExtra(
+      Object required, List<Object> missing, List<Object> extra, String failSuffix) {
+    // TODO(kak): Possible enhancement: Include "[1 copy]" if the element does appear in
+    // the subject but not enough times. Similarly for unexpected extra items.
+    if (!missing.isEmpty()) {
+      if (!extra.isEmpty()) {
+        // Subject is both missing required elements and contains extra elements
+        failWithRawMessage(
+            "Not true that %s contains exactly <%s>. "
+                + "It is missing <%s> and has unexpected items <%s>%s",
+            actualAsString(),
+            required,
+            missing,
+            extra,
+            failSuffix);
+      } else {
+        failWithBadResultsAndSuffix(
+            "contains exactly", required, "is missing", missing, failSuffix);
+      }
+    }
+    if (!extra.isEmpty()) {
+      failWithBadResultsAndSuffix(
+          "contains exactly", required, "has unexpected items", extra, failSuffix);
+    }
+  }
+
   /**
    * Fails with the bad results and a suffix.
    *
@@ -420,10 +517,10 @@ public class IterableSubject extends Subject<IterableSubject, Iterable<?>> {
   }
 
   private void containsNone(String failVerb, Iterable<?> excluded) {
-    Collection<?> actual = iterableToCollection(actual());
+    MembershipIndex membership = membership();
     Collection<Object> present = new ArrayList<Object>();
     for (Object item : Sets.newLinkedHashSet(excluded)) {
-      if (actual.contains(item)) {
+      if (membership.contains(item)) {
         present.add(item);
       }
     }
@@ -436,20 +533,45 @@ public class IterableSubject extends Subject<IterableSubject, Iterable<?>> {
   private class NotInOrder implements Ordered {
     private final String check;
     private final Iterable<?> required;
+    private final boolean exactly;
 
     NotInOrder(String check, Iterable<?> required) {
+      this(check, required, false);
+    }
+
+    /**
+     * Creates an instance which, if {@code exactly} is true (i.e., the check was that the subject
+     * contains exactly the required elements), describes how the order of the subject differs from
+     * theirs.
+     */
+    NotInOrder(String check, Iterable<?> required, boolean exactly) {
       this.check = check;
       this.required = required;
+      this.exactly = exactly;
     }
 
     @Override
     public void inOrder() {
+      // Only collections can safely be iterated again.
+      if (exactly && actual() instanceof Collection<?> && required instanceof Collection<?>) {
+        SequenceDiff diff =
+            SequenceDiff.between(iterableToList(required), iterableToList(actual()));
+        if (diff != null && !diff.isEmpty()) {
+          failWithRawMessage(
+              "Not true that %s %s <%s>. The differences from the expected order are: %s",
+              actualAsString(),
+              check,
+              required,
+              diff.describe());
+          return;
+        }
+      }
       fail(check, required);
     }
   }
 
   /** Ordered implementation that does nothing because it's already known to be true. */
-  private static final Ordered IN_ORDER =
+  static final Ordered IN_ORDER =
       new Ordered() {
         @Override
         public void inOrder() {}
@@ -474,18 +596,8 @@ public class IterableSubject extends Subject<IterableSubject, Iterable<?>> {
    *
    * @throws ClassCastException if any pair of elements is not mutually Comparable
    */
-  @SuppressWarnings({"unchecked"})
-  public final void isStrictlyOrdered(final Comparator<?> comparator) {
-    checkNotNull(comparator);
-    pairwiseCheck(
-        new PairwiseChecker() {
-          @Override
-          public void check(Object prev, Object next) {
-            if (((Comparator<Object>) comparator).compare(prev, next) >= 0) {
-              fail("is strictly ordered", prev, next);
-            }
-          }
-        });
+  public final void isStrictlyOrdered(Comparator<?> comparator) {
+    pairwiseCheck("is strictly ordered", comparator, true);
   }
 
   /**
@@ -512,18 +624,8 @@ public class IterableSubject extends Subject<IterableSubject, Iterable<?>> {
    *
    * @throws ClassCastException if any pair of elements is not mutually Comparable
    */
-  @SuppressWarnings({"unchecked"})
-  public final void isOrdered(final Comparator<?> comparator) {
-    checkNotNull(comparator);
-    pairwiseCheck(
-        new PairwiseChecker() {
-          @Override
-          public void check(Object prev, Object next) {
-            if (((Comparator<Object>) comparator).compare(prev, next) > 0) {
-              fail("is ordered", prev, next);
-            }
-          }
-        });
+  public final void isOrdered(Comparator<?> comparator) {
+    pairwiseCheck("is ordered", comparator, false);
   }
 
   /** @deprecated Use {@link #isOrdered(Comparator)} instead. */
@@ -532,22 +634,918 @@ public class IterableSubject extends Subject<IterableSubject, Iterable<?>> {
     isOrdered(comparator);
   }
 
-  private interface PairwiseChecker {
-    void check(Object prev, Object next);
-  }
-
-  private void pairwiseCheck(PairwiseChecker checker) {
+  /**
+   * Fails for each pair of adjacent elements which is out of order according to the comparator,
+   * i.e. for which it returns a positive result, or also zero if {@code strict}.
+   */
+  private void pairwiseCheck(String verb, Comparator<?> comparator, boolean strict) {
+    checkNotNull(comparator);
     Iterator<?> iterator = actual().iterator();
     if (iterator.hasNext()) {
       Object prev = iterator.next();
       while (iterator.hasNext()) {
         Object next = iterator.next();
-        checker.check(prev, next);
+        if (isOutOfOrder(comparator, strict, prev, next)) {
+          fail(verb, prev, next);
+        }
         prev = next;
       }
     }
   }
 
+  /** Returns the subject if it's a list with fast random access, or else a copy of it. */
+  private List<?> actualAsRandomAccessList() {
+    return actual() instanceof List<?> && actual() instanceof RandomAccess
+        ? (List<?>) actual()
+        : Lists.newArrayList(actual());
+  }
+
+  @SuppressWarnings("unchecked") // the comparator throws if the elements aren't of its type
+  private static boolean isOutOfOrder(
+      Comparator<?> comparator, boolean strict, @Nullable Object prev, @Nullable Object next) {
+    int comparison = ((Comparator<Object>) comparator).compare(prev, next);
+    return strict ? comparison >= 0 : comparison > 0;
+  }
+
+  /**
+   * Returns an object with the ordering assertions of this subject, except that they compare the
+   * pairs of adjacent elements in parallel, using tasks run on the given executor. This can make
+   * such assertions much faster on a machine with several cores when there are very many elements.
+   * The comparator must be safe to call from several threads at once. For example:
+   * <pre>   {@code
+   *   assertThat(sortedOutput).inParallel(executor).isOrdered(BY_TIMESTAMP);}</pre>
+   *
+   * <p>The elements are split into contiguous chunks, one per task, and each task checks the pairs
+   * which start in its chunk (including the pair which straddles the boundary with the next
+   * chunk). A list which supports fast random access (see {@link RandomAccess}) is read in place;
+   * any other iterable is copied into a list first. Unlike the sequential assertions, which fail
+   * once for every pair of elements which is out of order, these fail only for the first such
+   * pair, with the same message. If the comparator throws, and there is no pair out of order
+   * before the pair for which it threw, that exception is rethrown, so the outcome doesn't depend
+   * on how the tasks are run.
+   *
+   * <p>The returned object also has {@link Parallel#containsNoDuplicates}, which instead splits the
+   * elements into partitions by hash, and looks for duplicates in each partition in a separate
+   * task. It fails with the same message as the sequential assertion.
+   */
+  public final Parallel inParallel(Executor executor) {
+    return new Parallel(checkNotNull(executor));
+  }
+
+  /**
+   * The ordering and duplicate assertions of an {@link IterableSubject}, which check the elements
+   * in parallel. See {@link IterableSubject#inParallel}.
+   */
+  public final class Parallel {
+    private final Executor executor;
+
+    private Parallel(Executor executor) {
+      this.executor = executor;
+    }
+
+    /**
+     * Fails if the iterable is not strictly ordered, according to the natural ordering of its
+     * elements.
+     *
+     * @throws ClassCastException if any pair of elements is not mutually Comparable
+     * @throws NullPointerException if any element is null
+     */
+    public void isStrictlyOrdered() {
+      isStrictlyOrdered(Ordering.natural());
+    }
+
+    /**
+     * Fails if the iterable is not strictly ordered, according to the given comparator.
+     *
+     * @throws ClassCastException if any pair of elements is not mutually Comparable
+     */
+    public void isStrictlyOrdered(Comparator<?> comparator) {
+      parallelPairwiseCheck("is strictly ordered", comparator, true);
+    }
+
+    /**
+     * Fails if the iterable is not ordered, according to the natural ordering of its elements.
+     *
+     * @throws ClassCastException if any pair of elements is not mutually Comparable
+     * @throws NullPointerException if any element is null
+     */
+    public void isOrdered() {
+      isOrdered(Ordering.natural());
+    }
+
+    /**
+     * Fails if the iterable is not ordered, according to the given comparator.
+     *
+     * @throws ClassCastException if any pair of elements is not mutually Comparable
+     */
+    public void isOrdered(Comparator<?> comparator) {
+      parallelPairwiseCheck("is ordered", comparator, false);
+    }
+
+    /**
+     * Attests that the subject does not contain duplicate elements. The elements' {@link
+     * Object#hashCode} and {@link Object#equals} methods must be safe to call from several threads
+     * at once.
+     */
+    public void containsNoDuplicates() {
+      boolean hasDuplicates;
+      if (primitiveValues != null) {
+        hasDuplicates = Duplicates.exist(primitiveValues, executor, MAX_PARALLEL_TASKS);
+      } else {
+        List<?> elements = actualAsRandomAccessList();
+        Duplicates.IntegralValues integralValues = Duplicates.ofIntegral(elements);
+        hasDuplicates =
+            integralValues != null
+                ? Duplicates.exist(integralValues, executor, MAX_PARALLEL_TASKS)
+                : Duplicates.exist(elements, executor, MAX_PARALLEL_TASKS);
+      }
+      if (hasDuplicates) {
+        failWithDuplicates();
+      }
+    }
+
+    private void parallelPairwiseCheck(
+        String verb, final Comparator<?> comparator, final boolean strict) {
+      checkNotNull(comparator);
+      final List<?> elements = actualAsRandomAccessList();
+      int pairCount = elements.size() - 1;
+      if (pairCount <= 0) {
+        return;
+      }
+      // Each task records the index of the first pair it finds out of order, or the exception
+      // thrown when comparing some earlier pair, and then stops.
+      int taskCount = Math.min(pairCount, MAX_PARALLEL_TASKS);
+      final int[] firstOutOfOrder = new int[taskCount];
+      final RuntimeException[] thrown = new RuntimeException[taskCount];
+      List<Runnable> tasks = new ArrayList<Runnable>(taskCount);
+      for (int task = 0; task < taskCount; task++) {
+        final int taskIndex = task;
+        final int fromIndex = (int) ((long) pairCount * task / taskCount);
+        final int toIndex = (int) ((long) pairCount * (task + 1) / taskCount);
+        firstOutOfOrder[task] = -1;
+        tasks.add(
+            new Runnable() {
+              @Override
+              public void run() {
+                try {
+                  for (int index = fromIndex; index < toIndex; index++) {
+                    if (isOutOfOrder(
+                        comparator, strict, elements.get(index), elements.get(index + 1))) {
+                      firstOutOfOrder[taskIndex] = index;
+                      return;
+                    }
+                  }
+                } catch (RuntimeException e) {
+                  thrown[taskIndex] = e;
+                }
+              }
+            });
+      }
+      Platform.runAll(executor, tasks);
+      for (int task = 0; task < taskCount; task++) {
+        if (thrown[task] != null) {
+          throw thrown[task];
+        }
+        if (firstOutOfOrder[task] >= 0) {
+          int index = firstOutOfOrder[task];
+          fail(verb, elements.get(index), elements.get(index + 1));
+          return;
+        }
+      }
+    }
+  }
+
+  /**
+   * Returns an object with assertions that each element of the subject has some property, which
+   * check every element and then, if any failed, fail once, reporting the first few elements that
+   * failed along with their indexes. For example: <pre>   {@code
+   *   assertThat(readings)
+   *       .eachElement()
+   *       .satisfies(
+   *           new ElementCheck<Double>() {
+   *             public void check(TestVerb verb, Double reading) {
+   *               verb.that(reading).isAtLeast(0.0);
+   *             }
+   *           });}</pre>
+   *
+   * <p>By default, at most {@value #DEFAULT_MAX_REPORTED_FAILURES} failed elements are reported,
+   * and the elements are checked one at a time, in order. See {@link EachElement#reportingAtMost}
+   * and {@link EachElement#inParallel}.
+   */
+  public final EachElement eachElement() {
+    return new EachElement(null, DEFAULT_MAX_REPORTED_FAILURES);
+  }
+
+  /** The default maximum number of failed elements which {@link #eachElement} reports. */
+  static final int DEFAULT_MAX_REPORTED_FAILURES = 10;
+
+  /**
+   * A check of a single element of an iterable, for {@link EachElement#satisfies}. The element
+   * fails the check if this throws an {@link AssertionError}, which it normally does by making
+   * assertions with the given verb.
+   */
+  public interface ElementCheck<T> {
+    /** Checks the given element, making assertions about it with the given verb. */
+    void check(TestVerb verb, T element);
+  }
+
+  /**
+   * Assertions that each element of an {@link IterableSubject} has some property. See {@link
+   * IterableSubject#eachElement}.
+   *
+   * <p>The methods which take a check or a predicate may throw {@link ClassCastException} if it is
+   * given an element of the wrong type. If the check or predicate throws any exception other than
+   * an {@link AssertionError}, that is rethrown; if several elements cause such an exception, the
+   * one thrown for the first of them (in iteration order) is rethrown.
+   */
+  public final class EachElement {
+    @Nullable private final Executor executor;
+    private final int maxReportedFailures;
+
+    private EachElement(@Nullable Executor executor, int maxReportedFailures) {
+      this.executor = executor;
+      this.maxReportedFailures = maxReportedFailures;
+    }
+
+    /**
+     * Returns assertions which are the same as these, except that the elements are checked in
+     * parallel, using tasks run on the given executor. Each task checks a contiguous range of
+     * elements. The check or predicate must be safe to call from several threads at once. The
+     * outcome, including any failure message, is the same as when checking the elements in order.
+     * An iterable which is not a {@link RandomAccess} list is copied into one first.
+     */
+    public EachElement inParallel(Executor executor) {
+      return new EachElement(checkNotNull(executor), maxReportedFailures);
+    }
+
+    /**
+     * Returns assertions which are the same as these, except that a failure reports at most the
+     * given number of the elements which failed (the first ones, in iteration order), though it
+     * still counts all of them.
+     */
+    public EachElement reportingAtMost(int maxReportedFailures) {
+      checkArgument(
+          maxReportedFailures > 0, "maxReportedFailures(%s) must be > 0", maxReportedFailures);
+      return new EachElement(executor, maxReportedFailures);
+    }
+
+    /** Fails unless the given predicate returns true for each element. */
+    public <T> void matches(final Predicate<? super T> predicate) {
+      checkNotNull(predicate);
+      checkEach(
+          "matching <" + predicate + ">",
+          new ElementChecker() {
+            @Override
+            @SuppressWarnings("unchecked") // the predicate throws if the element has another type
+            public String check(Object element) {
+              return predicate.apply((T) element)
+                  ? null
+                  : "<" + BoundedRendering.render(element) + ">";
+            }
+          });
+    }
+
+    /** Fails unless each element passes the given check. */
+    public <T> void satisfies(final ElementCheck<T> check) {
+      checkNotNull(check);
+      checkEach(
+          "satisfying the check",
+          new ElementChecker() {
+            @Override
+            @SuppressWarnings("unchecked") // the check throws if the element has another type
+            public String check(Object element) {
+              try {
+                check.check(Truth.assert_(), (T) element);
+                return null;
+              } catch (AssertionError e) {
+                return e.getMessage();
+              }
+            }
+          });
+    }
+
+    private void checkEach(String description, final ElementChecker checker) {
+      ElementFailures failures;
+      if (executor == null) {
+        failures = new ElementFailures(maxReportedFailures);
+        int index = 0;
+        for (Object element : actual()) {
+          failures.check(checker, index++, element);
+        }
+      } else {
+        failures = checkEachInParallel(checker);
+      }
+      if (failures.count == 0) {
+        return;
+      }
+      StringBuilder details = new StringBuilder();
+      details.append(failures.count).append(failures.count == 1 ? " element" : " elements");
+      details.append(" failed");
+      if (failures.count > failures.reported.size()) {
+        details.append(", the first ").append(failures.reported.size()).append(" of which were");
+      }
+      details.append(':');
+      for (String failure : failures.reported) {
+        details.append("\n  ").append(failure);
+      }
+      failWithRawMessage(
+          "Not true that %s has each element %s. %s", actualAsString(), description, details);
+    }
+
+    /**
+     * Checks contiguous ranges of the elements in parallel, then merges the failures for each range
+     * in order, so the result is the same as checking them all in order.
+     */
+    private ElementFailures checkEachInParallel(final ElementChecker checker) {
+      final List<?> elements =
+          actual() instanceof List<?> && actual() instanceof RandomAccess
+              ? (List<?>) actual()
+              : Lists.newArrayList(actual());
+      int taskCount = Math.max(1, Math.min(elements.size(), MAX_PARALLEL_TASKS));
+      final List<ElementFailures> failuresByTask = new ArrayList<ElementFailures>(taskCount);
+      List<Runnable> tasks = new ArrayList<Runnable>(taskCount);
+      for (int task = 0; task < taskCount; task++) {
+        final ElementFailures failures = new ElementFailures(maxReportedFailures);
+        failuresByTask.add(failures);
+        final int fromIndex = (int) ((long) elements.size() * task / taskCount);
+        final int toIndex = (int) ((long) elements.size() * (task + 1) / taskCount);
+        tasks.add(
+            new Runnable() {
+              @Override
+              public void run() {
+                try {
+                  for (int index = fromIndex; index < toIndex; index++) {
+                    failures.check(checker, index, elements.get(index));
+                  }
+                } catch (RuntimeException e) {
+                  failures.thrown = e;
+                }
+              }
+            });
+      }
+      Platform.runAll(executor, tasks);
+      ElementFailures merged = new ElementFailures(maxReportedFailures);
+      for (ElementFailures failures : failuresByTask) {
+        if (failures.thrown != null) {
+          throw failures.thrown;
+        }
+        merged.count += failures.count;
+        for (String failure : failures.reported) {
+          if (merged.reported.size() < maxReportedFailures) {
+            merged.reported.add(failure);
+          }
+        }
+      }
+      return merged;
+    }
+  }
+
+  /** Checks a single element for {@link EachElement}. */
+  private interface ElementChecker {
+    /** Returns null if the element passes, or else a description of how it failed. */
+    @Nullable
+    String check(@Nullable Object element);
+  }
+
+  /** The failures found by {@link EachElement} among some elements. */
+  private static final class ElementFailures {
+    private final int maxReported;
+    private final List<String> reported = Lists.newArrayList();
+    private int count;
+    @Nullable private RuntimeException thrown;
+
+    ElementFailures(int maxReported) {
+      this.maxReported = maxReported;
+    }
+
+    void check(ElementChecker checker, int index, @Nullable Object element) {
+      String failure = checker.check(element);
+      if (failure != null) {
+        count++;
+        if (reported.size() < maxReported) {
+          reported.add("at index " + index + ": " + failure);
+        }
+      }
+    }
+  }
+
+  /**
+   * Returns an object with the same assertions as this subject, except that each of them iterates
+   * over the actual {@link Iterable} at most once, stops as soon as its outcome is known, and only
+   * keeps the elements it needs. Use this for one-shot iterables, and for lazily generated ones
+   * (e.g. over database cursors) which are expensive to iterate or too big to copy. For example:
+   * <pre>   {@code
+   *   assertThat(cursorIterable).streaming().hasSize(3);}</pre>
+   *
+   * <p>Since the rest of the actual elements are never seen, failure messages only show the first
+   * elements seen (up to the limit described in {@link BoundedRendering}), followed by {@code ...}
+   * if there are more, and describe what was found up to the point at which the assertion stopped.
+   */
+  public final Streaming streaming() {
+    return new Streaming();
+  }
+
+  /**
+   * The assertions of an {@link IterableSubject}, each of which makes a single pass over the actual
+   * elements. See {@link IterableSubject#streaming}.
+   */
+  public final class Streaming {
+
+    private Streaming() {}
+
+    /** Fails if the subject is not empty. */
+    public void isEmpty() {
+      Pass pass = new Pass();
+      if (pass.hasNext()) {
+        pass.next();
+        pass.fail("is empty");
+      }
+    }
+
+    /** Fails if the subject is empty. */
+    public void isNotEmpty() {
+      Pass pass = new Pass();
+      if (!pass.hasNext()) {
+        pass.fail("is not empty");
+      }
+    }
+
+    /**
+     * Fails if the subject does not have the given size. This stops after seeing one more element
+     * than expected.
+     */
+    public void hasSize(int expectedSize) {
+      checkArgument(expectedSize >= 0, "expectedSize(%s) must be >= 0", expectedSize);
+      Pass pass = new Pass();
+      while (pass.seen() <= expectedSize && pass.hasNext()) {
+        pass.next();
+      }
+      if (pass.seen() > expectedSize) {
+        pass.fail("has a size of <%s>. It is <at least %s>", expectedSize, pass.seen());
+      } else if (pass.seen() < expectedSize) {
+        pass.fail("has a size of <%s>. It is <%s>", expectedSize, pass.seen());
+      }
+    }
+
+    /** Attests (with a side-effect failure) that the subject contains the supplied item. */
+    public void contains(@Nullable Object element) {
+      Pass pass = new Pass();
+      while (pass.hasNext()) {
+        if (Objects.equal(pass.next(), element)) {
+          return;
+        }
+      }
+      pass.failWithoutVerb("should have contained <%s>", element);
+    }
+
+    /** Attests (with a side-effect failure) that the subject does not contain the supplied item. */
+    public void doesNotContain(@Nullable Object element) {
+      Pass pass = new Pass();
+      while (pass.hasNext()) {
+        if (Objects.equal(pass.next(), element)) {
+          pass.failWithoutVerb("should not have contained <%s>", element);
+          return;
+        }
+      }
+    }
+
+    /**
+     * Attests that the subject does not contain duplicate elements. This stops at the first element
+     * which equals an earlier one.
+     *
+     * <p>As in {@link IterableSubject#containsNoDuplicates}, elements are found in a hash set, and
+     * those not known to hash reliably are also compared with the earlier elements (up to {@link
+     * SubjectUtils#MAX_HASH_VERIFICATION_COMPARISONS} comparisons in all), in case equal elements
+     * have different hash codes. Elements whose {@link Object#hashCode} throws are compared with
+     * each other.
+     */
+    public void containsNoDuplicates() {
+      Pass pass = new Pass();
+      Set<Object> distinct = Sets.newHashSet();
+      List<Object> unreliable = Lists.newArrayList();
+      List<Object> unhashableElements = Lists.newArrayList();
+      int comparisonsLeft = SubjectUtils.MAX_HASH_VERIFICATION_COMPARISONS;
+      while (pass.hasNext()) {
+        Object element = pass.next();
+        boolean duplicate;
+        try {
+          duplicate = !distinct.add(element);
+        } catch (RuntimeException unhashable) {
+          duplicate = unhashableElements.contains(element);
+          unhashableElements.add(element);
+        }
+        if (!duplicate && comparisonsLeft > 0) {
+          boolean reliable = SubjectUtils.hasReliableHashCode(element);
+          Collection<Object> earlier = reliable ? unreliable : distinct;
+          if (earlier.size() <= comparisonsLeft) {
+            comparisonsLeft -= earlier.size();
+            duplicate = containsOther(earlier, element);
+          } else {
+            comparisonsLeft = 0;
+          }
+          if (!reliable) {
+            unreliable.add(element);
+          }
+        }
+        if (duplicate) {
+          pass.failWithoutVerb("has a duplicate: <%s>", element);
+          return;
+        }
+      }
+    }
+
+    /** Returns whether any of the given elements, other than the given one itself, equals it. */
+    private boolean containsOther(Collection<Object> elements, Object element) {
+      for (Object other : elements) {
+        if (other != element && (Objects.equal(other, element) || Objects.equal(element, other))) {
+          return true;
+        }
+      }
+      return false;
+    }
+
+    /** Attests that the subject contains at least one of the provided objects or fails. */
+    public void containsAnyOf(
+        @Nullable Object first, @Nullable Object second, @Nullable Object... rest) {
+      containsAny("contains any of", accumulate(first, second, rest));
+    }
+
+    /**
+     * Attests that the subject contains at least one of the objects contained in the provided
+     * collection or fails.
+     */
+    public void containsAnyIn(Iterable<?> expected) {
+      containsAny("contains any element in", expected);
+    }
+
+    private void containsAny(String failVerb, Iterable<?> expected) {
+      RemainingElements expectedElements = new RemainingElements(expected);
+      Pass pass = new Pass();
+      while (pass.hasNext()) {
+        if (expectedElements.contains(pass.next())) {
+          return;
+        }
+      }
+      pass.fail("%s <%s>", failVerb, expected);
+    }
+
+    /**
+     * Attests that the subject contains none of the excluded objects or fails. This stops at the
+     * first element which is excluded.
+     */
+    public void containsNoneOf(
+        @Nullable Object firstExcluded,
+        @Nullable Object secondExcluded,
+        @Nullable Object... restOfExcluded) {
+      containsNone("contains none of", accumulate(firstExcluded, secondExcluded, restOfExcluded));
+    }
+
+    /**
+     * Attests that the subject contains none of the elements contained in the excluded iterable or
+     * fails. This stops at the first element which is excluded.
+     */
+    public void containsNoneIn(Iterable<?> excluded) {
+      containsNone("contains no elements in", excluded);
+    }
+
+    private void containsNone(String failVerb, Iterable<?> excluded) {
+      RemainingElements excludedElements = new RemainingElements(excluded);
+      Pass pass = new Pass();
+      while (pass.hasNext()) {
+        Object element = pass.next();
+        if (excludedElements.contains(element)) {
+          pass.fail("%s <%s>. It contains <%s>", failVerb, excluded, element);
+          return;
+        }
+      }
+    }
+
+    /**
+     * Attests that the subject contains at least all of the expected elements or fails, as {@link
+     * IterableSubject#containsAllOf} does. This stops once it has seen all of the expected elements
+     * in order, so if they are present but out of order it reads all of the actual elements.
+     */
+    @CanIgnoreReturnValue
+    public Ordered containsAllOf(
+        @Nullable Object firstExpected,
+        @Nullable Object secondExpected,
+        @Nullable Object... restOfExpected) {
+      return containsAll(
+          "contains all of", accumulate(firstExpected, secondExpected, restOfExpected));
+    }
+
+    /**
+     * Attests that the subject contains at least all of the expected elements or fails, as {@link
+     * IterableSubject#containsAllIn} does. This stops once it has seen all of the expected elements
+     * in order, so if they are present but out of order it reads all of the actual elements.
+     */
+    @CanIgnoreReturnValue
+    public Ordered containsAllIn(Iterable<?> expected) {
+      return containsAll("contains all elements in", expected);
+    }
+
+    private Ordered containsAll(String failVerb, Iterable<?> expectedIterable) {
+      List<?> expected = iterableToList(expectedIterable);
+      RemainingElements remaining = new RemainingElements(expected);
+      // The number of expected elements matched, in order, to the actual elements seen so far.
+      int inOrder = 0;
+      Pass pass = new Pass();
+      while (inOrder < expected.size() && pass.hasNext()) {
+        Object element = pass.next();
+        remaining.remove(element);
+        if (Objects.equal(element, expected.get(inOrder))) {
+          inOrder++;
+        }
+      }
+      if (!remaining.isEmpty()) {
+        pass.fail(
+            "%s <%s>. It is missing <%s>",
+            failVerb, expected, countDuplicates(missing(expected, remaining)));
+      }
+      return inOrder == expected.size()
+          ? IN_ORDER
+          : pass.notInOrder("contains all elements in order", expected);
+    }
+
+    /**
+     * Attests that the subject contains exactly the provided objects or fails, as {@link
+     * IterableSubject#containsExactly} does. This stops at the first unexpected element.
+     */
+    @CanIgnoreReturnValue
+    public Ordered containsExactly(@Nullable Object... varargs) {
+      List<Object> expected =
+          (varargs == null) ? Lists.newArrayList((Object) null) : asList(varargs);
+      return containsExactlyElementsIn(
+          expected, varargs != null && varargs.length == 1 && varargs[0] instanceof Iterable);
+    }
+
+    /**
+     * Attests that the subject contains exactly the provided objects or fails, as {@link
+     * IterableSubject#containsExactlyElementsIn} does. This stops at the first unexpected element.
+     */
+    @CanIgnoreReturnValue
+    public Ordered containsExactlyElementsIn(Iterable<?> expected) {
+      return containsExactlyElementsIn(expected, false);
+    }
+
+    private Ordered containsExactlyElementsIn(
+        Iterable<?> expectedIterable, boolean addElementsInWarning) {
+      String failSuffix =
+          addElementsInWarning
+              ? ". Passing an iterable to the varargs method containsExactly(Object...) is "
+                  + "often not the correct thing to do. Did you mean to call "
+                  + "containsExactlyElementsIn(Iterable) instead?"
+              : "";
+      List<?> expected = iterableToList(expectedIterable);
+      RemainingElements remaining = new RemainingElements(expected);
+      boolean inOrder = true;
+      Pass pass = new Pass();
+      while (pass.hasNext()) {
+        Object element = pass.next();
+        if (!remaining.remove(element)) {
+          if (expected.isEmpty()) {
+            pass.fail("is empty");
+          } else {
+            pass.fail(
+                "contains exactly <%s>. It has unexpected item <%s>%s",
+                expected, element, failSuffix);
+          }
+          return pass.notInOrder("contains exactly these elements in order", expected);
+        }
+        inOrder &= Objects.equal(element, expected.get(pass.seen() - 1));
+      }
+      if (!remaining.isEmpty()) {
+        pass.fail(
+            "contains exactly <%s>. It is missing <%s>%s",
+            expected, countDuplicates(missing(expected, remaining)), failSuffix);
+      }
+      return inOrder
+          ? IN_ORDER
+          : pass.notInOrder("contains exactly these elements in order", expected);
+    }
+
+    /**
+     * Fails if the iterable is not strictly ordered, according to the natural ordering of its
+     * elements. This stops at the first pair of elements which are out of order.
+     *
+     * @throws ClassCastException if any pair of elements is not mutually Comparable
+     * @throws NullPointerException if any element is null
+     */
+    public void isStrictlyOrdered() {
+      isStrictlyOrdered(Ordering.natural());
+    }
+
+    /**
+     * Fails if the iterable is not strictly ordered, according to the given comparator. This stops
+     * at the first pair of elements which are out of order.
+     *
+     * @throws ClassCastException if any pair of elements is not mutually Comparable
+     */
+    public void isStrictlyOrdered(Comparator<?> comparator) {
+      pairwiseCheck("is strictly ordered", comparator, true);
+    }
+
+    /**
+     * Fails if the iterable is not ordered, according to the natural ordering of its elements. This
+     * stops at the first pair of elements which are out of order.
+     *
+     * @throws ClassCastException if any pair of elements is not mutually Comparable
+     * @throws NullPointerException if any element is null
+     */
+    public void isOrdered() {
+      isOrdered(Ordering.natural());
+    }
+
+    /**
+     * Fails if the iterable is not ordered, according to the given comparator. This stops at the
+     * first pair of elements which are out of order.
+     *
+     * @throws ClassCastException if any pair of elements is not mutually Comparable
+     */
+    public void isOrdered(Comparator<?> comparator) {
+      pairwiseCheck("is ordered", comparator, false);
+    }
+
+    private void pairwiseCheck(String verb, Comparator<?> comparator, boolean strict) {
+      checkNotNull(comparator);
+      Pass pass = new Pass();
+      if (!pass.hasNext()) {
+        return;
+      }
+      Object prev = pass.next();
+      while (pass.hasNext()) {
+        Object next = pass.next();
+        if (isOutOfOrder(comparator, strict, prev, next)) {
+          pass.fail("%s <%s> <%s>", verb, prev, next);
+          return;
+        }
+        prev = next;
+      }
+    }
+
+    /** Returns the expected elements still remaining after the actual ones were removed. */
+    private List<Object> missing(List<?> expected, RemainingElements remaining) {
+      List<Object> missing = Lists.newArrayList();
+      for (Object element : expected) {
+        if (remaining.remove(element)) {
+          missing.add(element);
+        }
+      }
+      return missing;
+    }
+  }
+
+  /**
+   * A multiset of elements from which equal elements can be removed one at a time, for the
+   * assertions of {@link Streaming}.
+   *
+   * <p>As in {@link MultisetDiff}, the elements are counted in a hash multiset, except for those
+   * whose {@link Object#hashCode} throws, which are kept in a list. Since equal elements may have
+   * different hash codes if either isn't known to hash reliably, an element which isn't found is
+   * also compared with the elements it might have been split up from (up to {@link
+   * SubjectUtils#MAX_HASH_VERIFICATION_COMPARISONS} comparisons in all); past that, the hash codes
+   * are trusted.
+   */
+  private static final class RemainingElements {
+    private final Multiset<Object> hashed = HashMultiset.create();
+    /** The distinct elements which were hashed but aren't known to hash reliably. */
+    private final List<Object> unreliable = Lists.newArrayList();
+    private final List<Object> unhashable = Lists.newArrayList();
+    private int comparisonsLeft = SubjectUtils.MAX_HASH_VERIFICATION_COMPARISONS;
+
+    RemainingElements(Iterable<?> elements) {
+      for (Object element : elements) {
+        try {
+          if (hashed.add(element, 1) == 0 && !SubjectUtils.hasReliableHashCode(element)) {
+            unreliable.add(element);
+          }
+        } catch (RuntimeException unhashableElement) {
+          unhashable.add(element);
+        }
+      }
+    }
+
+    boolean isEmpty() {
+      return hashed.isEmpty() && unhashable.isEmpty();
+    }
+
+    /** Returns whether an element equal to the given one remains. */
+    boolean contains(@Nullable Object element) {
+      return find(element, false);
+    }
+
+    /** Removes one element equal to the given one, returning whether there was one. */
+    boolean remove(@Nullable Object element) {
+      return find(element, true);
+    }
+
+    private boolean find(@Nullable Object element, boolean remove) {
+      try {
+        if (remove ? hashed.remove(element) : hashed.contains(element)) {
+          return true;
+        }
+      } catch (RuntimeException unhashableElement) {
+        // It can still equal one of the other elements, which are compared below.
+      }
+      for (Iterator<Object> others = unhashable.iterator(); others.hasNext(); ) {
+        if (Objects.equal(others.next(), element)) {
+          if (remove) {
+            others.remove();
+          }
+          return true;
+        }
+      }
+      Collection<Object> candidates =
+          SubjectUtils.hasReliableHashCode(element) ? unreliable : hashed.elementSet();
+      if (candidates.size() > comparisonsLeft) {
+        comparisonsLeft = 0;
+        return false;
+      }
+      comparisonsLeft -= candidates.size();
+      for (Object other : candidates) {
+        // The unreliable elements may include some which have all been removed already.
+        if ((Objects.equal(other, element) || Objects.equal(element, other))
+            && hashed.contains(other)) {
+          if (remove) {
+            hashed.remove(other);
+          }
+          return true;
+        }
+      }
+      return false;
+    }
+  }
+
+  /**
+   * A single pass over the actual elements, which keeps the first few of them to describe the
+   * subject in failure messages.
+   */
+  private final class Pass {
+    private final Iterator<?> iterator = actual().iterator();
+    private final List<Object> prefix = Lists.newArrayList();
+    private final int maxPrefixSize = BoundedRendering.maxElements();
+    private int seen;
+
+    boolean hasNext() {
+      return iterator.hasNext();
+    }
+
+    Object next() {
+      Object element = iterator.next();
+      if (seen < maxPrefixSize) {
+        prefix.add(element);
+      }
+      seen++;
+      return element;
+    }
+
+    /** Returns the number of elements seen so far. */
+    int seen() {
+      return seen;
+    }
+
+    /**
+     * Fails with a message of the form "Not true that [subject] [proposition]", where the
+     * proposition is formed from the given template and parameters.
+     */
+    void fail(String proposition, Object... parameters) {
+      failWithRawMessage("Not true that %s " + proposition, prepend(describe(), parameters));
+    }
+
+    /**
+     * Fails with a message of the form "[subject] [proposition]", where the proposition is formed
+     * from the given template and parameters.
+     */
+    void failWithoutVerb(String proposition, Object... parameters) {
+      failWithRawMessage("%s " + proposition, prepend(describe(), parameters));
+    }
+
+    Ordered notInOrder(final String check, final Iterable<?> required) {
+      final String description = describe();
+      return new Ordered() {
+        @Override
+        public void inOrder() {
+          failWithRawMessage("Not true that %s %s <%s>", description, check, required);
+        }
+      };
+    }
+
+    /** Describes the subject as the elements seen so far, followed by "..." if there are more. */
+    private String describe() {
+      String formatted = BoundedRendering.renderPrefix(prefix, seen > prefix.size() || hasNext());
+      return internalCustomName() == null
+          ? "<" + formatted + ">"
+          : internalCustomName() + " (<" + formatted + ">)";
+    }
+
+    private Object[] prepend(Object first, Object[] rest) {
+      Object[] all = new Object[rest.length + 1];
+      all[0] = first;
+      System.arraycopy(rest, 0, all, 1, rest.length);
+      return all;
+    }
+  }
+
   /**
    * Starts a method chain for a test proposition in which the actual elements (i.e. the elements of
    * the {@link Iterable} under test) are compared to expected elements using the given {@link
@@ -582,9 +1580,32 @@ public class IterableSubject extends Subject<IterableSubject, Iterable<?>> {
   public final class UsingCorrespondence<A, E> {
 
     private final Correspondence<A, E> correspondence;
+    @Nullable private final Executor executor;
 
     private UsingCorrespondence(Correspondence<A, E> correspondence) {
+      this(correspondence, null);
+    }
+
+    private UsingCorrespondence(
+        Correspondence<A, E> correspondence, @Nullable Executor executor) {
       this.correspondence = checkNotNull(correspondence);
+      this.executor = executor;
+    }
+
+    /**
+     * Returns a proposition which is the same as this one, except that the any-order checks of
+     * {@link #containsExactlyElementsIn} and {@link #containsAllIn} (and the methods which delegate
+     * to them) compare the actual and expected elements in parallel, using tasks run on the given
+     * executor. This can make such assertions much faster on a machine with several cores when
+     * there are many elements and the correspondence is expensive. The correspondence must be
+     * safe to call from several threads at once.
+     *
+     * <p>The outcome, including any failure message, is the same as that of the sequential
+     * proposition. If the correspondence throws, the exception thrown for the first actual element
+     * (in iteration order) which caused one is rethrown.
+     */
+    public UsingCorrespondence<A, E> inParallel(Executor executor) {
+      return new UsingCorrespondence<A, E>(correspondence, checkNotNull(executor));
     }
 
     /**
@@ -592,8 +1613,9 @@ public class IterableSubject extends Subject<IterableSubject, Iterable<?>> {
      * element.
      */
     public void contains(@Nullable E expected) {
+      Predicate<A> correspondsToExpected = correspondingTo(expected);
       for (A actual : getCastActual()) {
-        if (correspondence.compare(actual, expected)) {
+        if (correspondsToExpected.apply(actual)) {
           return;
         }
       }
@@ -602,9 +1624,10 @@ public class IterableSubject extends Subject<IterableSubject, Iterable<?>> {
 
     /** Attests that none of the actual elements correspond to the given element. */
     public void doesNotContain(@Nullable E excluded) {
+      Predicate<A> correspondsToExcluded = correspondingTo(excluded);
       List<A> matchingElements = new ArrayList<A>();
       for (A actual : getCastActual()) {
-        if (correspondence.compare(actual, excluded)) {
+        if (correspondsToExcluded.apply(actual)) {
           matchingElements.add(actual);
         }
       }
@@ -616,6 +1639,31 @@ public class IterableSubject extends Subject<IterableSubject, Iterable<?>> {
       }
     }
 
+    /**
+     * Returns a predicate which tests whether an actual element corresponds to the given expected
+     * element. For a keyed correspondence, the expected element's key is computed once, up front,
+     * rather than once per actual element.
+     */
+    private Predicate<A> correspondingTo(@Nullable final E expected) {
+      if (correspondence instanceof KeyedCorrespondence) {
+        final KeyedCorrespondence<A, E> keyed = (KeyedCorrespondence<A, E>) correspondence;
+        final Object expectedKey = keyed.expectedKey(expected);
+        return new Predicate<A>() {
+          @Override
+          public boolean apply(@Nullable A actual) {
+            return Objects.equal(keyed.actualKey(actual), expectedKey)
+                && keyed.compareWithEqualKeys(actual, expected);
+          }
+        };
+      }
+      return new Predicate<A>() {
+        @Override
+        public boolean apply(@Nullable A actual) {
+          return correspondence.compare(actual, expected);
+        }
+      };
+    }
+
     /**
      * Attests that subject contains exactly elements that correspond to the expected elements, i.e.
      * that there is a 1:1 mapping between the actual elements and the expected elements where each
@@ -643,16 +1691,39 @@ public class IterableSubject extends Subject<IterableSubject, Iterable<?>> {
     public Ordered containsExactlyElementsIn(Iterable<? extends E> expected) {
       List<A> actualList = iterableToList(getCastActual());
       List<? extends E> expectedList = iterableToList(expected);
+      // Both passes below may compare the same pairs, so they share the results.
+      MemoizedComparisons<A, E> comparisons =
+          new MemoizedComparisons<A, E>(correspondence, actualList, expectedList);
       // Check if the elements correspond in order. This allows the common case of a passing test
       // using inOrder() to complete in linear time.
-      if (correspondInOrderExactly(actualList.iterator(), expectedList.iterator())) {
+      if (correspondInOrderExactly(actualList.size(), expectedList.size(), comparisons)) {
         return IN_ORDER;
       }
       // We know they don't correspond in order, so we're going to have to do an any-order test.
+      if (correspondence instanceof TolerantNumericEquality) {
+        // Numbers within a tolerance of each other can be matched without comparing every pair.
+        @SuppressWarnings("unchecked") // the correspondence casts the elements to Number anyway
+        ToleranceMatching matching =
+            ToleranceMatching.between(
+                (List<? extends Number>) actualList,
+                (List<? extends Number>) expectedList,
+                ((TolerantNumericEquality) correspondence).tolerance());
+        failIfHasMissingOrExtra(
+            expectedList,
+            matching.actualWithoutCandidates(actualList),
+            matching.expectedWithoutCandidates(expectedList));
+        failIfOneToOneMappingHasMissingOrExtra(
+            expectedList,
+            matching.unmatchedActual(actualList),
+            matching.unmatchedExpected(expectedList));
+        return new NotInOrder(
+            "contains, in order, exactly one element that " + correspondence + " each element of",
+            expected);
+      }
       // Find a many:many mapping between the indexes of the elements which correspond, and check
       // it for completeness.
       ImmutableSetMultimap<Integer, Integer> candidateMapping =
-          findCandidateMapping(actualList, expectedList);
+          findCandidateMapping(actualList, expectedList, comparisons);
       failIfCandidateMappingHasMissingOrExtra(actualList, expectedList, candidateMapping);
       // We know that every expected element maps to at least one actual element, and vice versa.
       // Find a maximal 1:1 mapping, and check it for completeness.
@@ -667,48 +1738,121 @@ public class IterableSubject extends Subject<IterableSubject, Iterable<?>> {
     }
 
     /**
-     * Returns whether the actual and expected iterators have the same number of elements and, when
-     * iterated pairwise, every pair of actual and expected values satisfies the correspondence.
+     * Returns whether the actual and expected lists have the same number of elements and every pair
+     * of actual and expected values at the same index satisfies the correspondence.
      */
     private boolean correspondInOrderExactly(
-        Iterator<? extends A> actual, Iterator<? extends E> expected) {
+        int actualSize, int expectedSize, MemoizedComparisons<A, E> comparisons) {
 
-        if (!expected.hasNext()) {
-          // If the expected iterator is empty, and the actual iterator is not empty, fail
-          if (actual.hasNext()) {
+        if (expectedSize == 0) {
+          // If the expected list is empty, and the actual list is not empty, fail
+          if (actualSize != 0) {
             fail("is empty");
           }
           // If the previous branch doesn't throw, then the subject was empty, so return true
           return true;
         }
 
-      while (actual.hasNext() && expected.hasNext()) {
-        A actualElement = actual.next();
-        E expectedElement = expected.next();
-        if (!correspondence.compare(actualElement, expectedElement)) {
+      for (int index = 0; index < actualSize && index < expectedSize; index++) {
+        if (!comparisons.compare(index, index)) {
           return false;
         }
       }
-      return !(actual.hasNext() || expected.hasNext());
+      return actualSize == expectedSize;
     }
 
     /**
      * Given a list of actual elements and a list of expected elements, finds a many:many mapping
      * between actual and expected elements where a pair of elements maps if it satisfies the
      * correspondence. Returns this mapping as a multimap where the keys are indexes into the actual
-     * list and the values are indexes into the expected list.
+     * list and the values are indexes into the expected list. This compares every pair at most
+     * once, so it stops the given comparisons from remembering any more results.
      */
     private ImmutableSetMultimap<Integer, Integer> findCandidateMapping(
-        List<? extends A> actual, List<? extends E> expected) {
+        final List<? extends A> actual,
+        final List<? extends E> expected,
+        final MemoizedComparisons<A, E> comparisons) {
+      comparisons.stopRecording();
+      // If only elements with equal keys can correspond, only compare those.
+      final ListMultimap<Object, Integer> expectedIndexesByKey;
+      if (correspondence instanceof KeyedCorrespondence) {
+        KeyedCorrespondence<A, E> keyed = (KeyedCorrespondence<A, E>) correspondence;
+        expectedIndexesByKey = ArrayListMultimap.create();
+        for (int expectedIndex = 0; expectedIndex < expected.size(); expectedIndex++) {
+          expectedIndexesByKey.put(keyed.expectedKey(expected.get(expectedIndex)), expectedIndex);
+        }
+      } else {
+        expectedIndexesByKey = null;
+      }
+
+      final List<List<Integer>> candidates =
+          new ArrayList<List<Integer>>(Collections.<List<Integer>>nCopies(actual.size(), null));
+      if (executor == null) {
+        for (int actualIndex = 0; actualIndex < actual.size(); actualIndex++) {
+          candidates.set(
+              actualIndex,
+              findCandidates(actual, actualIndex, expected, expectedIndexesByKey, comparisons));
+        }
+      } else {
+        // Each task finds the candidates for a contiguous range of actual indexes, and writes them
+        // to its own range of the list, so the result doesn't depend on how the tasks are run.
+        int taskCount = Math.min(actual.size(), MAX_PARALLEL_TASKS);
+        List<Runnable> tasks = new ArrayList<Runnable>(taskCount);
+        for (int task = 0; task < taskCount; task++) {
+          final int fromIndex = (int) ((long) actual.size() * task / taskCount);
+          final int toIndex = (int) ((long) actual.size() * (task + 1) / taskCount);
+          tasks.add(
+              new Runnable() {
+                @Override
+                public void run() {
+                  for (int actualIndex = fromIndex; actualIndex < toIndex; actualIndex++) {
+                    candidates.set(
+                        actualIndex,
+                        findCandidates(
+                            actual, actualIndex, expected, expectedIndexesByKey, comparisons));
+                  }
+                }
+              });
+        }
+        Platform.runAll(executor, tasks);
+      }
+
       ImmutableSetMultimap.Builder<Integer, Integer> mapping = ImmutableSetMultimap.builder();
       for (int actualIndex = 0; actualIndex < actual.size(); actualIndex++) {
+        mapping.putAll(actualIndex, candidates.get(actualIndex));
+      }
+      return mapping.build();
+    }
+
+    /**
+     * Returns the indexes, in increasing order, of the expected elements which correspond to the
+     * actual element at the given index. If the correspondence is keyed, the expected indexes
+     * grouped by key must be given, so that only the expected elements with the same key need be
+     * compared.
+     */
+    private List<Integer> findCandidates(
+        List<? extends A> actual,
+        int actualIndex,
+        List<? extends E> expected,
+        @Nullable ListMultimap<Object, Integer> expectedIndexesByKey,
+        MemoizedComparisons<A, E> comparisons) {
+      List<Integer> candidates = Lists.newArrayList();
+      if (expectedIndexesByKey != null) {
+        KeyedCorrespondence<A, E> keyed = (KeyedCorrespondence<A, E>) correspondence;
+        Object actualKey = keyed.actualKey(actual.get(actualIndex));
+        for (int expectedIndex : expectedIndexesByKey.get(actualKey)) {
+          if (comparisons.compareWithEqualKeys(actualIndex, expectedIndex)) {
+            candidates.add(expectedIndex);
+          }
+        }
+      } else {
         for (int expectedIndex = 0; expectedIndex < expected.size(); expectedIndex++) {
-          if (correspondence.compare(actual.get(actualIndex), expected.get(expectedIndex))) {
-            mapping.put(actualIndex, expectedIndex);
+          if (comparisons.compare(actualIndex, expectedIndex)) {
+            candidates.add(expectedIndex);
           }
         }
       }
-      return mapping.build();
+      return candidates;
     }
 
     /**
@@ -721,8 +1865,19 @@ public class IterableSubject extends Subject<IterableSubject, Iterable<?>> {
         List<? extends A> actual,
         List<? extends E> expected,
         ImmutableMultimap<Integer, Integer> mapping) {
-      List<? extends A> extra = findNotIndexed(actual, mapping.keySet());
-      List<? extends E> missing = findNotIndexed(expected, mapping.inverse().keySet());
+      failIfHasMissingOrExtra(
+          expected,
+          findNotIndexed(actual, mapping.keySet()),
+          findNotIndexed(expected, mapping.inverse().keySet()));
+    }
+
+    /**
+     * Given a list of expected elements, the actual elements which correspond to none of them, and
+     * those of them which correspond to none of the actual elements, fails if there are any of
+     * the latter two.
+     */
+    private void failIfHasMissingOrExtra(
+        List<? extends E> expected, List<? extends A> extra, List<? extends E> missing) {
       Optional<String> missingOrExtraMessage = describeMissingOrExtra(extra, missing);
       if (missingOrExtraMessage.isPresent()) {
           failWithRawMessage(
@@ -811,9 +1966,11 @@ public class IterableSubject extends Subject<IterableSubject, Iterable<?>> {
        *  - And the 1:1 mapping which includes the largest possible number of elements corresponds
        * to the maximum cardinality matching.
        *
-       * So we'll apply a standard algorithm for doing maximum cardinality bipartite matching.
+       * So we'll apply a standard algorithm for doing maximum cardinality bipartite matching. The
+       * vertices are dense indexes into the lists, so we use the version specialized for those,
+       * which can also solve the independent parts of the graph on our executor, if we have one.
        */
-      return GraphMatching.maximumCardinalityBipartiteMatching(edges);
+      return GraphMatching.maximumCardinalityBipartiteMatchingOfIndexes(edges, executor);
     }
 
     /**
@@ -826,8 +1983,18 @@ public class IterableSubject extends Subject<IterableSubject, Iterable<?>> {
         List<? extends A> actual,
         List<? extends E> expected,
         BiMap<Integer, Integer> mapping) {
-      List<? extends A> extra = findNotIndexed(actual, mapping.keySet());
-      List<? extends E> missing = findNotIndexed(expected, mapping.values());
+      failIfOneToOneMappingHasMissingOrExtra(
+          expected,
+          findNotIndexed(actual, mapping.keySet()),
+          findNotIndexed(expected, mapping.values()));
+    }
+
+    /**
+     * Given a list of expected elements, and the actual and expected elements which are not in a
+     * maximal 1:1 mapping between them, fails if there are any of the latter.
+     */
+    private void failIfOneToOneMappingHasMissingOrExtra(
+        List<? extends E> expected, List<? extends A> extra, List<? extends E> missing) {
       Optional<String> missingOrExtraMessage = describeMissingOrExtra(extra, missing);
       if (missingOrExtraMessage.isPresent()) {
         failWithRawMessage(
@@ -872,16 +2039,19 @@ public class IterableSubject extends Subject<IterableSubject, Iterable<?>> {
     public Ordered containsAllIn(Iterable<? extends E> expected) {
       List<A> actualList = iterableToList(getCastActual());
       List<? extends E> expectedList = iterableToList(expected);
+      // Both passes below may compare the same pairs, so they share the results.
+      MemoizedComparisons<A, E> comparisons =
+          new MemoizedComparisons<A, E>(correspondence, actualList, expectedList);
       // Check if the expected elements correspond in order to any subset of the actual elements.
       // This allows the common case of a passing test using inOrder() to complete in linear time.
-      if (correspondInOrderAllIn(actualList.iterator(), expectedList.iterator())) {
+      if (correspondInOrderAllIn(actualList.size(), expectedList.size(), comparisons)) {
         return IN_ORDER;
       }
       // We know they don't correspond in order, so we're going to have to do an any-order test.
       // Find a many:many mapping between the indexes of the elements which correspond, and check
       // it for completeness.
       ImmutableSetMultimap<Integer, Integer> candidateMapping =
-          findCandidateMapping(actualList, expectedList);
+          findCandidateMapping(actualList, expectedList, comparisons);
       failIfCandidateMappingHasMissing(expectedList, candidateMapping);
       // We know that every expected element maps to at least one actual element, and vice versa.
       // Find a maximal 1:1 mapping, and check it for completeness.
@@ -896,41 +2066,32 @@ public class IterableSubject extends Subject<IterableSubject, Iterable<?>> {
     }
 
     /**
-     * Returns whether all the elements of the expected iterator and any subset of the elements of
-     * the actual iterator can be paired up in order, such that every pair of actual and expected
-     * elements satisfies the correspondence.
+     * Returns whether all the elements of the expected list and any subset of the elements of the
+     * actual list can be paired up in order, such that every pair of actual and expected elements
+     * satisfies the correspondence.
      */
     private boolean correspondInOrderAllIn(
-        Iterator<? extends A> actual, Iterator<? extends E> expected) {
+        int actualSize, int expectedSize, MemoizedComparisons<A, E> comparisons) {
       // We take a greedy approach here, iterating through the expected elements and pairing each
       // with the first applicable actual element. This is fine for the in-order test, since there's
       // no way that paring an expected element with a later actual element permits a solution which
       // couldn't be achieved by pairing it with the first. (For the any-order test, we may want to
       // pair an expected element with a later actual element so that we can pair the earlier actual
       // element with a later expected element, but that doesn't apply here.)
-      while (expected.hasNext()) {
-        E expectedElement = expected.next();
-        if (!findCorresponding(actual, expectedElement)) {
+      int actualIndex = 0;
+      for (int expectedIndex = 0; expectedIndex < expectedSize; expectedIndex++) {
+        // Advance through the actual elements looking for one which corresponds.
+        while (actualIndex < actualSize && !comparisons.compare(actualIndex, expectedIndex)) {
+          actualIndex++;
+        }
+        if (actualIndex == actualSize) {
           return false;
         }
+        actualIndex++;
       }
       return true;
     }
 
-    /**
-     * Advances the actual iterator looking for an element which corresponds to the expected
-     * element. Returns whether or not it finds one.
-     */
-    private boolean findCorresponding(Iterator<? extends A> actual, E expectedElement) {
-      while (actual.hasNext()) {
-        A actualElement = actual.next();
-        if (correspondence.compare(actualElement, expectedElement)) {
-          return true;
-        }
-      }
-      return false;
-    }
-
     /**
      * Given a list of expected elements and a many:many mapping between actual and expected
      * elements specified as a multimap of indexes into an actual list to indexes into the expected
@@ -991,10 +2152,26 @@ public class IterableSubject extends Subject<IterableSubject, Iterable<?>> {
 
     private void containsAny(String failVerb, Iterable<? extends E> expected) {
       Collection<A> actual = iterableToCollection(getCastActual());
-      for (E expectedItem : expected) {
+      if (correspondence instanceof KeyedCorrespondence) {
+        // Only elements with equal keys can correspond, so only compare those.
+        KeyedCorrespondence<A, E> keyed = (KeyedCorrespondence<A, E>) correspondence;
+        ListMultimap<Object, E> expectedByKey = ArrayListMultimap.create();
+        for (E expectedItem : expected) {
+          expectedByKey.put(keyed.expectedKey(expectedItem), expectedItem);
+        }
         for (A actualItem : actual) {
-          if (correspondence.compare(actualItem, expectedItem)) {
-            return;
+          for (E expectedItem : expectedByKey.get(keyed.actualKey(actualItem))) {
+            if (keyed.compareWithEqualKeys(actualItem, expectedItem)) {
+              return;
+            }
+          }
+        }
+      } else {
+        for (E expectedItem : expected) {
+          for (A actualItem : actual) {
+            if (correspondence.compare(actualItem, expectedItem)) {
+              return;
+            }
           }
         }
       }
@@ -1024,10 +2201,26 @@ public class IterableSubject extends Subject<IterableSubject, Iterable<?>> {
     private void containsNone(String excludedPrefix, Iterable<? extends E> excluded) {
       Collection<A> actual = iterableToCollection(getCastActual());
       Collection<E> present = new ArrayList<E>();
-      for (E excludedItem : Sets.newLinkedHashSet(excluded)) {
+      if (correspondence instanceof KeyedCorrespondence) {
+        // Only elements with equal keys can correspond, so only compare those.
+        KeyedCorrespondence<A, E> keyed = (KeyedCorrespondence<A, E>) correspondence;
+        ListMultimap<Object, A> actualByKey = ArrayListMultimap.create();
         for (A actualItem : actual) {
-          if (correspondence.compare(actualItem, excludedItem)) {
-            present.add(excludedItem);
+          actualByKey.put(keyed.actualKey(actualItem), actualItem);
+        }
+        for (E excludedItem : Sets.newLinkedHashSet(excluded)) {
+          for (A actualItem : actualByKey.get(keyed.expectedKey(excludedItem))) {
+            if (keyed.compareWithEqualKeys(actualItem, excludedItem)) {
+              present.add(excludedItem);
+            }
+          }
+        }
+      } else {
+        for (E excludedItem : Sets.newLinkedHashSet(excluded)) {
+          for (A actualItem : actual) {
+            if (correspondence.compare(actualItem, excludedItem)) {
+              present.add(excludedItem);
+            }
           }
         }
       }
@@ -0,0 +1,157 @@
+/*
+ * Copyright (c) 2017 Google, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.common.truth;
+
+import static com.google.common.truth.BoundedRendering.render;
+
+import com.google.common.base.Objects;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.SortedMap;
+import javax.annotation.Nullable;
+
+/**
+ * The difference between a map of actual entries and a map of expected ones, found by looking up
+ * each key of each map in the other: one pass over each, in {@code O(n + m)} time. It holds the
+ * expected entries whose keys are missing, the actual entries whose keys are extra, and the keys
+ * which both maps contain but map to different values.
+ *
+ * <p>Keys are compared with {@link Object#equals}, as {@code containsExactly} compares entries. A
+ * map which may look keys up some other way (by a comparator, by identity) or may throw when asked
+ * for a null key or a key of another type is first copied into a {@link HashMap}.
+ */
+final class MapDiff {
+  private static final Correspondence<Object, Object> EQUALITY =
+      new Correspondence<Object, Object>() {
+        @Override
+        public boolean compare(@Nullable Object actual, @Nullable Object expected) {
+          return Objects.equal(actual, expected);
+        }
+
+        @Override
+        public String toString() {
+          return "is equal to";
+        }
+      };
+
+  private final List<Entry<?, ?>> missing = Lists.newArrayList();
+  private final List<Entry<?, ?>> extra = Lists.newArrayList();
+  private final List<Object> keysWithWrongValues = Lists.newArrayList();
+  private final List<Object> expectedValues = Lists.newArrayList();
+  private final List<Object> actualValues = Lists.newArrayList();
+
+  private MapDiff() {}
+
+  static MapDiff between(Map<?, ?> actual, Map<?, ?> expected) {
+    return between(actual, expected, EQUALITY);
+  }
+
+  /**
+   * Returns the difference between the given maps, counting a value of a key which both contain as
+   * wrong if the given correspondence says it doesn't correspond to the expected value of the key.
+   * The correspondence is consulted once per such key.
+   */
+  static <A, E> MapDiff between(
+      Map<?, ? extends A> actual,
+      Map<?, ? extends E> expected,
+      Correspondence<? super A, ? super E> values) {
+    MapDiff diff = new MapDiff();
+    Map<?, ? extends A> actualLookup = lookup(actual);
+    for (Entry<?, ? extends E> entry : expected.entrySet()) {
+      Object key = entry.getKey();
+      A actualValue = actualLookup.get(key);
+      if (actualValue == null && !actualLookup.containsKey(key)) {
+        diff.missing.add(entry);
+      } else if (!values.compare(actualValue, entry.getValue())) {
+        diff.keysWithWrongValues.add(key);
+        diff.expectedValues.add(entry.getValue());
+        diff.actualValues.add(actualValue);
+      }
+    }
+    // Each expected key was either missing or found, so the actual map has extra keys if and only
+    // if it has more keys than were found.
+    if (actual.size() > expected.size() - diff.missing.size()) {
+      Map<?, ?> expectedLookup = lookup(expected);
+      for (Entry<?, ?> entry : actual.entrySet()) {
+        if (!expectedLookup.containsKey(entry.getKey())) {
+          diff.extra.add(entry);
+        }
+      }
+    }
+    return diff;
+  }
+
+  /** Returns a map which looks up keys with {@link Object#equals}, accepting any key. */
+  private static <V> Map<?, V> lookup(Map<?, V> map) {
+    if (map.getClass() == HashMap.class
+        || map.getClass() == LinkedHashMap.class
+        || (map instanceof ImmutableMap<?, ?> && !(map instanceof SortedMap<?, ?>))) {
+      return map;
+    }
+    return Maps.newHashMap(map);
+  }
+
+  /** Returns whether the actual and expected maps are equal. */
+  boolean isEmpty() {
+    return missing.isEmpty() && extra.isEmpty() && keysWithWrongValues.isEmpty();
+  }
+
+  /**
+   * Describes the differences, for a failure message: the missing entries, the extra entries, and
+   * the keys mapped to wrong values, with the values they are expected to map to and do map to.
+   */
+  String describe() {
+    List<String> parts = Lists.newArrayList();
+    if (!missing.isEmpty()) {
+      parts.add("is missing <" + render(missing) + ">");
+    }
+    if (!extra.isEmpty()) {
+      parts.add("has unexpected items <" + render(extra) + ">");
+    }
+    if (!keysWithWrongValues.isEmpty()) {
+      parts.add(
+          "has wrong values for keys <"
+              + render(keysWithWrongValues)
+              + ">: <"
+              + render(actualValues)
+              + "> instead of <"
+              + render(expectedValues)
+              + ">");
+    }
+    return SubjectUtils.describe(parts);
+  }
+
+  /**
+   * Returns whether the given maps, which must have equal key sets, iterate over their keys in the
+   * same order. This walks the two maps together once, looking nothing up.
+   */
+  static boolean keysInSameOrder(Map<?, ?> actual, Map<?, ?> expected) {
+    Iterator<?> actualKeys = actual.keySet().iterator();
+    for (Object expectedKey : expected.keySet()) {
+      if (!actualKeys.hasNext() || !Objects.equal(actualKeys.next(), expectedKey)) {
+        return false;
+      }
+    }
+    return !actualKeys.hasNext();
+  }
+}
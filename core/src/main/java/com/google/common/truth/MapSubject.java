@@ -17,9 +17,11 @@ package com.google.common.truth;
 
 import static com.google.common.base.Preconditions.checkArgument;
 import static com.google.common.base.Preconditions.checkNotNull;
+import static com.google.common.truth.SequenceDiff.orderDifferences;
 
 import com.google.common.base.Objects;
 import com.google.common.collect.LinkedHashMultiset;
+import com.google.common.collect.Lists;
 import com.google.common.collect.MapDifference;
 import com.google.common.collect.Maps;
 import com.google.common.collect.Multiset;
@@ -184,10 +186,41 @@ public class MapSubject extends Subject<MapSubject, Map<?, ?>> {
     return expectedMap;
   }
 
-  /** Fails if the map does not contain exactly the given set of entries in the given map. */
+  /**
+   * Fails if the map does not contain exactly the given set of entries in the given map.
+   *
+   * <p>The maps are compared by looking up each key of each in the other, and a failure message
+   * lists the missing entries, the unexpected entries, and the keys mapped to the wrong values.
+   */
   @CanIgnoreReturnValue
-  public Ordered containsExactlyEntriesIn(Map<?, ?> expectedMap) {
-    return check().that(actual().entrySet()).containsExactlyElementsIn(expectedMap.entrySet());
+  public Ordered containsExactlyEntriesIn(final Map<?, ?> expectedMap) {
+    MapDiff diff = MapDiff.between(actual(), expectedMap);
+    if (!diff.isEmpty()) {
+      failWithRawMessage(
+          "Not true that %s contains exactly <%s>. %s",
+          actualAsString(), expectedMap, diff.describe());
+      return new Ordered() {
+        @Override
+        public void inOrder() {
+          fail("contains exactly these entries in order", expectedMap);
+        }
+      };
+    }
+    return new Ordered() {
+      @Override
+      public void inOrder() {
+        if (!MapDiff.keysInSameOrder(actual(), expectedMap)) {
+          failWithRawMessage(
+              "Not true that %s contains exactly <%s> in order. The keys are not in order%s",
+              actualAsString(),
+              expectedMap,
+              orderDifferences(
+                  "",
+                  Lists.newArrayList(expectedMap.keySet()),
+                  Lists.newArrayList(actual().keySet())));
+        }
+      }
+    };
   }
 
   /**
@@ -306,13 +339,43 @@ public class MapSubject extends Subject<MapSubject, Map<?, ?>> {
     /**
      * Fails if the map does not contain exactly the keys in the given map, mapping to values that
      * correspond to the values of the given map.
+     *
+     * <p>Entries are aligned by looking up each key of each map in the other, so the correspondence
+     * is only consulted once for each key which both maps contain.
      */
     @CanIgnoreReturnValue
-    public <K, V extends E> Ordered containsExactlyEntriesIn(Map<K, V> expectedMap) {
-      return check()
-          .that(actual().entrySet())
-          .comparingElementsUsing(new EntryCorrespondence<K, V>())
-          .containsExactlyElementsIn(expectedMap.entrySet());
+    public <K, V extends E> Ordered containsExactlyEntriesIn(final Map<K, V> expectedMap) {
+      MapDiff diff = MapDiff.between(getCastSubject(), expectedMap, correspondence);
+      if (!diff.isEmpty()) {
+        failWithRawMessage(
+            "Not true that %s contains exactly one entry that %s each entry of <%s>. %s",
+            actualAsString(), entryCorrespondence(), expectedMap, diff.describe());
+        return new Ordered() {
+          @Override
+          public void inOrder() {
+            failWithRawMessage(
+                "Not true that %s contains, in order, exactly one entry that %s each entry of <%s>",
+                actualAsString(), entryCorrespondence(), expectedMap);
+          }
+        };
+      }
+      return new Ordered() {
+        @Override
+        public void inOrder() {
+          if (!MapDiff.keysInSameOrder(actual(), expectedMap)) {
+            failWithRawMessage(
+                "Not true that %s contains, in order, exactly one entry that %s each entry of "
+                    + "<%s>. The keys are not in order%s",
+                actualAsString(),
+                entryCorrespondence(),
+                expectedMap,
+                orderDifferences(
+                    "",
+                    Lists.newArrayList(expectedMap.keySet()),
+                    Lists.newArrayList(actual().keySet())));
+          }
+        }
+      };
     }
 
     @SuppressWarnings("unchecked") // throwing ClassCastException is the correct behaviour
@@ -320,21 +383,9 @@ public class MapSubject extends Subject<MapSubject, Map<?, ?>> {
       return (Map<?, A>) actual();
     }
 
-    private final class EntryCorrespondence<K, V extends E>
-        extends Correspondence<Map.Entry<Object, A>, Map.Entry<K, V>> {
-
-      @Override
-      public boolean compare(Entry<Object, A> actual, Entry<K, V> expected) {
-        return actual.getKey().equals(expected.getKey())
-            && correspondence.compare(actual.getValue(), expected.getValue());
-      }
-
-      @Override
-      public String toString() {
-        return StringUtil.format(
-            "has a key that is equal to and a value that %s the key and value of",
-            correspondence);
-      }
+    private String entryCorrespondence() {
+      return StringUtil.format(
+          "has a key that is equal to and a value that %s the key and value of", correspondence);
     }
   }
 }
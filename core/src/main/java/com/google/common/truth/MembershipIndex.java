@@ -0,0 +1,123 @@
+/*
+ * Copyright (c) 2017 Google, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.common.truth;
+
+import com.google.common.base.Objects;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Sets;
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+import javax.annotation.Nullable;
+
+/**
+ * Answers whether the elements of an iterable contain given items, giving the same answers as
+ * {@link com.google.common.collect.Iterables#contains} but, when asked repeatedly, much faster.
+ *
+ * <p>The first lookup in a list just scans it. If there is a second lookup, or if the elements are
+ * not a collection (and so might only be iterable once), this builds an index of the elements: a
+ * hash set of all of them, plus a list of those whose {@link Object#hashCode} throws. An item is
+ * looked up in the hash set, and looked for by scanning the list. An item whose hash code throws is
+ * looked for by scanning all the elements.
+ *
+ * <p>Some types have hash codes which are inconsistent with equals (e.g., MessageSet from old
+ * versions of protobuf), so if an item which isn't known to hash reliably (see {@link
+ * SubjectUtils#hasReliableHashCode}) isn't in the hash set, this confirms that by scanning the
+ * elements, as long as the lookups have so far made no more than {@link
+ * SubjectUtils#MAX_HASH_VERIFICATION_COMPARISONS} such comparisons; past that, it trusts the hash
+ * codes. Since a type with a reliable hash code is never equal to an instance of any other type,
+ * other items need no such scan.
+ *
+ * <p>Collections which are not lists may define membership differently (e.g. a {@code TreeSet}
+ * uses its comparator), and usually have a fast {@link Collection#contains} anyway, so this always
+ * delegates to that for them.
+ *
+ * <p>The index reflects the elements as they were when it was built, so an instance should only be
+ * kept while they can't change, e.g. for the lookups of a single assertion.
+ */
+final class MembershipIndex {
+  private final Iterable<?> elements;
+  private int lookups;
+  private int comparisonsLeft = SubjectUtils.MAX_HASH_VERIFICATION_COMPARISONS;
+  @Nullable private Set<Object> hashed;
+  @Nullable private List<Object> unhashable;
+
+  MembershipIndex(Iterable<?> elements) {
+    this.elements = elements;
+  }
+
+  /** Returns whether the elements contain the given item. */
+  boolean contains(@Nullable Object item) {
+    if (elements instanceof Collection<?> && !(elements instanceof List<?>)) {
+      return ((Collection<?>) elements).contains(item);
+    }
+    if (lookups++ == 0 && elements instanceof List<?>) {
+      return ((List<?>) elements).contains(item);
+    }
+    if (hashed == null) {
+      buildIndex();
+    }
+    boolean found;
+    try {
+      found = hashed.contains(item);
+    } catch (RuntimeException unhashableItem) {
+      return scan(item, hashed) || scan(item, unhashable);
+    }
+    if (found || SubjectUtils.hasReliableHashCode(item)) {
+      return found;
+    }
+    if (scan(item, unhashable)) {
+      return true;
+    }
+    if (hashed.size() <= comparisonsLeft) {
+      comparisonsLeft -= hashed.size();
+      return scan(item, hashed);
+    }
+    comparisonsLeft = 0;
+    return false;
+  }
+
+  /** Returns whether the elements contain any of the given items. */
+  boolean containsAny(Iterable<?> items) {
+    for (Object item : items) {
+      if (contains(item)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  private static boolean scan(@Nullable Object item, Collection<Object> elements) {
+    for (Object element : elements) {
+      if (Objects.equal(item, element)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  private void buildIndex() {
+    hashed = Sets.newHashSet();
+    unhashable = Lists.newArrayList();
+    for (Object element : elements) {
+      try {
+        hashed.add(element);
+      } catch (RuntimeException unhashableElement) {
+        unhashable.add(element);
+      }
+    }
+  }
+}
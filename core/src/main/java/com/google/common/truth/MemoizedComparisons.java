@@ -0,0 +1,126 @@
+/*
+ * Copyright (c) 2017 Google, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.common.truth;
+
+import com.google.common.collect.Maps;
+import com.google.common.truth.Correspondence.KeyedCorrespondence;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import javax.annotation.Nullable;
+
+/**
+ * Compares actual elements with expected elements under a correspondence, by their indexes in the
+ * lists given to one assertion, remembering the results so that the assertion calls the
+ * correspondence at most once for each pair even if it looks at that pair in more than one pass.
+ *
+ * <p>The passes which look at pairs first (e.g., the in-order check of {@code containsExactly})
+ * compare each actual element with at most one expected element, so the first result for each
+ * actual index is kept in primitive arrays, and only any further results are kept in a map. Once
+ * the assertion starts comparing every pair, which it does only once, it should call {@link
+ * #stopRecording}: results are no longer remembered after that, so the arrays may then be read
+ * from several threads at once.
+ */
+final class MemoizedComparisons<A, E> {
+  private static final int NONE = -1;
+
+  private final Correspondence<? super A, ? super E> correspondence;
+  private final List<? extends A> actual;
+  private final List<? extends E> expected;
+  /** For each actual index, the expected index of its first remembered result, or {@link #NONE}. */
+  private final int[] firstExpectedIndexes;
+  private final boolean[] firstResults;
+  /** Any further results, keyed by {@link #pairKey}. */
+  @Nullable private Map<Long, Boolean> moreResults;
+  private boolean recording = true;
+
+  MemoizedComparisons(
+      Correspondence<? super A, ? super E> correspondence,
+      List<? extends A> actual,
+      List<? extends E> expected) {
+    this.correspondence = correspondence;
+    this.actual = actual;
+    this.expected = expected;
+    this.firstExpectedIndexes = new int[actual.size()];
+    this.firstResults = new boolean[actual.size()];
+    Arrays.fill(firstExpectedIndexes, NONE);
+  }
+
+  /** Returns whether the actual and expected elements at the given indexes correspond. */
+  boolean compare(int actualIndex, int expectedIndex) {
+    Boolean result = lookUp(actualIndex, expectedIndex);
+    if (result != null) {
+      return result;
+    }
+    return record(
+        actualIndex,
+        expectedIndex,
+        correspondence.compare(actual.get(actualIndex), expected.get(expectedIndex)));
+  }
+
+  /**
+   * Returns whether the actual and expected elements at the given indexes correspond, given that
+   * the correspondence is a {@link KeyedCorrespondence} and their keys are known to be equal.
+   */
+  @SuppressWarnings("unchecked") // a keyed correspondence compares the same types
+  boolean compareWithEqualKeys(int actualIndex, int expectedIndex) {
+    Boolean result = lookUp(actualIndex, expectedIndex);
+    if (result != null) {
+      return result;
+    }
+    KeyedCorrespondence<A, E> keyed = (KeyedCorrespondence<A, E>) correspondence;
+    return record(
+        actualIndex,
+        expectedIndex,
+        keyed.compareWithEqualKeys(actual.get(actualIndex), expected.get(expectedIndex)));
+  }
+
+  /**
+   * Stops remembering new results. Results remembered so far are still used, and after this, it is
+   * safe to compare from several threads at once.
+   */
+  void stopRecording() {
+    recording = false;
+  }
+
+  @Nullable
+  private Boolean lookUp(int actualIndex, int expectedIndex) {
+    if (firstExpectedIndexes[actualIndex] == expectedIndex) {
+      return firstResults[actualIndex];
+    }
+    return moreResults == null ? null : moreResults.get(pairKey(actualIndex, expectedIndex));
+  }
+
+  private boolean record(int actualIndex, int expectedIndex, boolean result) {
+    if (!recording) {
+      return result;
+    }
+    if (firstExpectedIndexes[actualIndex] == NONE) {
+      firstExpectedIndexes[actualIndex] = expectedIndex;
+      firstResults[actualIndex] = result;
+    } else {
+      if (moreResults == null) {
+        moreResults = Maps.newHashMap();
+      }
+      moreResults.put(pairKey(actualIndex, expectedIndex), result);
+    }
+    return result;
+  }
+
+  private static long pairKey(int actualIndex, int expectedIndex) {
+    return ((long) actualIndex << 32) | expectedIndex;
+  }
+}
@@ -0,0 +1,153 @@
+/*
+ * Copyright (c) 2017 Google, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.common.truth;
+
+import com.google.common.collect.Iterables;
+import com.google.common.collect.LinkedListMultimap;
+import com.google.common.collect.ListMultimap;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Multimap;
+import com.google.common.collect.Sets;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Set;
+import javax.annotation.Nullable;
+
+/**
+ * The difference between a multimap of actual entries and a multimap of expected ones, found in one
+ * pass over the keys of the expected multimap, looking each up in the actual one. The values of a
+ * key which both contain are walked together first, and only counted (by hashing) if they differ,
+ * so that equal multimaps are compared without copying or hashing any values. A second pass, over
+ * the actual multimap, is only made if it has extra entries.
+ *
+ * <p>As in {@code containsExactly}, the first N copies of each value of a key are not extra, where
+ * N is the number of copies expected, and the first N copies of each expected value are not
+ * missing, where N is the number of copies there are.
+ */
+final class MultimapDiff {
+  private final ListMultimap<Object, Object> missing = LinkedListMultimap.create();
+  private final ListMultimap<Object, Object> extra = LinkedListMultimap.create();
+  /** The keys of the expected multimap whose values differ in content or order from the actual. */
+  private final Set<Object> keysWithDifferentValues = Sets.newHashSet();
+
+  private MultimapDiff() {}
+
+  static MultimapDiff between(Multimap<?, ?> actual, Multimap<?, ?> expected) {
+    MultimapDiff diff = new MultimapDiff();
+    Map<?, ? extends Collection<?>> actualValues = actual.asMap();
+    // The extra values of the keys which both multimaps contain, in order to report all extra
+    // entries in the order of the actual multimap.
+    Map<Object, List<Object>> extraValues = Maps.newHashMap();
+    Map<Object, ElementCounts> cachedCounts = null;
+    int foundKeys = 0;
+    for (Entry<?, ? extends Collection<?>> entry : expected.asMap().entrySet()) {
+      Object key = entry.getKey();
+      Collection<?> expectedForKey = entry.getValue();
+      Collection<?> actualForKey = actualValues.get(key);
+      if (actualForKey == null) {
+        diff.missing.putAll(key, expectedForKey);
+        diff.keysWithDifferentValues.add(key);
+        continue;
+      }
+      foundKeys++;
+      if (Iterables.elementsEqual(actualForKey, expectedForKey)) {
+        continue;
+      }
+      diff.keysWithDifferentValues.add(key);
+      if (cachedCounts == null && PreparedExpected.isCacheable(expected)) {
+        cachedCounts = PreparedExpected.valueCounts(expected);
+      }
+      ElementCounts counts =
+          cachedCounts != null ? cachedCounts.get(key) : ElementCounts.of(expectedForKey);
+      List<Object> extraForKey = diff.countValues(key, actualForKey, expectedForKey, counts);
+      if (!extraForKey.isEmpty()) {
+        extraValues.put(key, extraForKey);
+      }
+    }
+    if (actualValues.size() > foundKeys || !extraValues.isEmpty()) {
+      for (Entry<?, ? extends Collection<?>> entry : actualValues.entrySet()) {
+        Object key = entry.getKey();
+        List<Object> extraForKey = extraValues.get(key);
+        if (extraForKey != null) {
+          diff.extra.putAll(key, extraForKey);
+        } else if (!expected.containsKey(key)) {
+          diff.extra.putAll(key, entry.getValue());
+        }
+      }
+    }
+    return diff;
+  }
+
+  /**
+   * Records the missing values of the given key, and returns its extra values, given the counts of
+   * its expected values.
+   */
+  private List<Object> countValues(
+      Object key, Collection<?> actualForKey, Collection<?> expectedForKey, ElementCounts counts) {
+    List<Object> extraForKey = Lists.newArrayList();
+    // How many copies of each expected value are present, up to the number expected.
+    int[] present = new int[counts.distinctCount()];
+    for (Object value : actualForKey) {
+      int index = counts.indexOf(value);
+      if (index >= 0 && present[index] < counts.count(index)) {
+        present[index]++;
+      } else {
+        extraForKey.add(value);
+      }
+    }
+    for (Object value : expectedForKey) {
+      int index = counts.indexOf(value);
+      if (present[index] > 0) {
+        present[index]--;
+      } else {
+        missing.put(key, value);
+      }
+    }
+    return extraForKey;
+  }
+
+  /** Returns the expected entries which are missing, grouped by key in the expected order. */
+  ListMultimap<?, ?> missing() {
+    return missing;
+  }
+
+  /** Returns the actual entries which are extra, grouped by key in the actual order. */
+  ListMultimap<?, ?> extra() {
+    return extra;
+  }
+
+  /** Returns whether the actual multimap contains exactly the expected entries. */
+  boolean isEmpty() {
+    return missing.isEmpty() && extra.isEmpty();
+  }
+
+  /**
+   * Returns whether the given key of the expected multimap maps to values which differ from the
+   * actual ones in content or in order. Keys which only the actual multimap contains aren't
+   * recorded.
+   */
+  boolean valuesDiffer(@Nullable Object expectedKey) {
+    return keysWithDifferentValues.contains(expectedKey);
+  }
+
+  /** Returns whether any key of the expected multimap maps to values which differ. */
+  boolean anyValuesDiffer() {
+    return !keysWithDifferentValues.isEmpty();
+  }
+}
@@ -17,11 +17,12 @@ package com.google.common.truth;
 
 import static com.google.common.base.Preconditions.checkArgument;
 import static com.google.common.base.Preconditions.checkNotNull;
+import static com.google.common.truth.BoundedRendering.render;
+import static com.google.common.truth.SequenceDiff.orderDifferences;
 
 import com.google.common.base.Joiner;
 import com.google.common.base.Objects;
-import com.google.common.collect.LinkedHashMultiset;
-import com.google.common.collect.LinkedListMultimap;
+import com.google.common.collect.Iterables;
 import com.google.common.collect.ListMultimap;
 import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
@@ -180,8 +181,9 @@ public class MultimapSubject extends Subject<MultimapSubject, Multimap<?, ?>> {
   }
 
   private Ordered containsExactly(String failVerb, Multimap<?, ?> expectedMultimap) {
-    ListMultimap<?, ?> missing = difference(expectedMultimap, actual());
-    ListMultimap<?, ?> extra = difference(actual(), expectedMultimap);
+    MultimapDiff diff = MultimapDiff.between(actual(), expectedMultimap);
+    ListMultimap<?, ?> missing = diff.missing();
+    ListMultimap<?, ?> extra = diff.extra();
 
     // TODO(kak): Possible enhancement: Include "[1 copy]" if the element does appear in
     // the subject but not enough times. Similarly for unexpected extra items.
@@ -203,7 +205,7 @@ public class MultimapSubject extends Subject<MultimapSubject, Multimap<?, ?>> {
           failVerb, expectedMultimap, "has unexpected items", countDuplicatesMultimap(extra));
     }
 
-    return new MultimapInOrder(expectedMultimap);
+    return new MultimapInOrder(expectedMultimap, diff);
   }
 
   private class IterableValuesForKey extends IterableSubject {
@@ -220,51 +222,74 @@ public class MultimapSubject extends Subject<MultimapSubject, Multimap<?, ?>> {
 
     @Override
     protected String actualCustomStringRepresentation() {
-      return "Values for key <" + key + "> (<" + actual() + ">) in " + stringRepresentation;
+      return "Values for key <" + render(key) + "> (<" + render(actual()) + ">) in "
+          + stringRepresentation;
     }
   }
 
   private class MultimapInOrder implements Ordered {
     private final Multimap<?, ?> expectedMultimap;
+    private final MultimapDiff diff;
 
-    MultimapInOrder(Multimap<?, ?> expectedMultimap) {
+    MultimapInOrder(Multimap<?, ?> expectedMultimap, MultimapDiff diff) {
       this.expectedMultimap = expectedMultimap;
+      this.diff = diff;
     }
 
     @Override
     public void inOrder() {
-      boolean keysInOrder =
-          Lists.newArrayList(actual().keySet())
-              .equals(Lists.newArrayList(expectedMultimap.keySet()));
+      // Walk the two key sets together, and only copy them if they differ.
+      boolean keysInOrder = Iterables.elementsEqual(actual().keySet(), expectedMultimap.keySet());
 
       LinkedHashSet<Object> keysWithValuesOutOfOrder = Sets.newLinkedHashSet();
-      LinkedHashSet<Object> allKeys = Sets.newLinkedHashSet();
-      allKeys.addAll(actual().keySet());
-      allKeys.addAll(expectedMultimap.keySet());
-      for (Object key : allKeys) {
-        List<?> actualVals = Lists.newArrayList(get(actual(), key));
-        List<?> expectedVals = Lists.newArrayList(get(expectedMultimap, key));
-        if (!actualVals.equals(expectedVals)) {
-          keysWithValuesOutOfOrder.add(key);
+      // How the values differ in order for the first key whose values do.
+      String valueDifferences = "";
+      if (diff.anyValuesDiffer() || !diff.extra().isEmpty()) {
+        for (Object key : actual().keySet()) {
+          if (diff.valuesDiffer(key) || !expectedMultimap.containsKey(key)) {
+            keysWithValuesOutOfOrder.add(key);
+          }
+        }
+        for (Object key : expectedMultimap.keySet()) {
+          if (diff.valuesDiffer(key)) {
+            keysWithValuesOutOfOrder.add(key);
+          }
+        }
+        if (!keysWithValuesOutOfOrder.isEmpty()) {
+          Object key = keysWithValuesOutOfOrder.iterator().next();
+          valueDifferences =
+              orderDifferences(
+                  "key <" + key + ">: ",
+                  Lists.newArrayList(get(expectedMultimap, key)),
+                  Lists.newArrayList(get(actual(), key)));
         }
       }
 
       if (!keysInOrder) {
+        String keyDifferences =
+            orderDifferences(
+                "",
+                Lists.newArrayList(expectedMultimap.keySet()),
+                Lists.newArrayList(actual().keySet()));
         if (!keysWithValuesOutOfOrder.isEmpty()) {
           failWithRawMessage(
-              "Not true that %s contains exactly <%s> in order. The keys are not in order, "
-                  + "and the values for keys <%s> are not in order either",
-              actualAsString(), expectedMultimap, keysWithValuesOutOfOrder);
+              "Not true that %s contains exactly <%s> in order. The keys are not in order%s, "
+                  + "and the values for keys <%s> are not in order either%s",
+              actualAsString(),
+              expectedMultimap,
+              keyDifferences,
+              keysWithValuesOutOfOrder,
+              valueDifferences);
         } else {
           failWithRawMessage(
-              "Not true that %s contains exactly <%s> in order. The keys are not in order",
-              actualAsString(), expectedMultimap);
+              "Not true that %s contains exactly <%s> in order. The keys are not in order%s",
+              actualAsString(), expectedMultimap, keyDifferences);
         }
       } else if (!keysWithValuesOutOfOrder.isEmpty()) {
         failWithRawMessage(
             "Not true that %s contains exactly <%s> in order. "
-                + "The values for keys <%s> are not in order",
-            actualAsString(), expectedMultimap, keysWithValuesOutOfOrder);
+                + "The values for keys <%s> are not in order%s",
+            actualAsString(), expectedMultimap, keysWithValuesOutOfOrder, valueDifferences);
       }
     }
   }
@@ -277,28 +302,6 @@ public class MultimapSubject extends Subject<MultimapSubject, Multimap<?, ?>> {
     }
   }
 
-  private static ListMultimap<?, ?> difference(Multimap<?, ?> minuend, Multimap<?, ?> subtrahend) {
-    ListMultimap<Object, Object> difference = LinkedListMultimap.create();
-    for (Object key : minuend.keySet()) {
-      List<?> valDifference =
-          difference(
-              Lists.newArrayList(get(minuend, key)), Lists.newArrayList(get(subtrahend, key)));
-      difference.putAll(key, valDifference);
-    }
-    return difference;
-  }
-
-  private static List<?> difference(List<?> minuend, List<?> subtrahend) {
-    LinkedHashMultiset<Object> remaining = LinkedHashMultiset.<Object>create(subtrahend);
-    List<Object> difference = Lists.newArrayList();
-    for (Object elem : minuend) {
-      if (!remaining.remove(elem)) {
-        difference.add(elem);
-      }
-    }
-    return difference;
-  }
-
   private static <K, V> String countDuplicatesMultimap(Multimap<K, V> multimap) {
     List<String> entries = new ArrayList<String>();
     for (K key : multimap.keySet()) {
@@ -0,0 +1,172 @@
+/*
+ * Copyright (c) 2017 Google, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.common.truth;
+
+import com.google.common.base.Objects;
+import com.google.common.collect.Lists;
+import java.util.ArrayList;
+import java.util.List;
+import javax.annotation.Nullable;
+
+/**
+ * The difference between a list of actual elements and a list of expected elements, when each is
+ * treated as a multiset: the expected elements which are missing from the actual elements, and the
+ * actual elements which are extra, respecting multiplicity.
+ *
+ * <p>The result is exactly that of the naive algorithm, which removes each actual element in turn
+ * from a list of the expected elements: the missing elements are the expected elements which were
+ * never removed, and the extra elements are the actual elements for which no equal element was left
+ * to remove, each in their original order. The naive algorithm takes {@code O(n m)} time, though,
+ * so this counts the expected elements in a hash table instead, taking {@code O(n + m)} time.
+ *
+ * <p>Hashing is only as good as the elements' {@link Object#hashCode} implementations, and some
+ * types (e.g., {@code MessageSet} from old versions of protobuf) have implementations which are
+ * inconsistent with {@link Object#equals}. So this falls back to the naive algorithm if any element
+ * throws when hashed, or if any extra element is equal to any missing element (which means that
+ * equal elements had different hash codes). Only elements of types which aren't known to hash
+ * reliably need to be checked for the latter, so that check is usually free. Otherwise it is made
+ * only if it takes no more than {@link SubjectUtils#MAX_HASH_VERIFICATION_COMPARISONS} comparisons,
+ * as in {@link SubjectUtils#countDuplicates}, so that reporting a large difference doesn't take
+ * quadratic time; past that, the hash codes are trusted.
+ */
+final class MultisetDiff {
+  private final List<Object> missing;
+  private final List<Object> extra;
+
+  private MultisetDiff(List<Object> missing, List<Object> extra) {
+    this.missing = missing;
+    this.extra = extra;
+  }
+
+  /**
+   * Computes the difference between the given actual and expected elements. The counts of the
+   * expected elements are prepared by {@link PreparedExpected}, so they may come from its cache.
+   */
+  static MultisetDiff between(List<?> actual, Iterable<?> expected) {
+    MultisetDiff hashed = hashingDiff(actual, expected);
+    if (hashed != null && !hasEqualMissingAndExtraElements(hashed.missing, hashed.extra)) {
+      return hashed;
+    }
+    return naiveDiff(actual, expected);
+  }
+
+  /** The expected elements which are missing from the actual elements, in their original order. */
+  List<Object> missing() {
+    return missing;
+  }
+
+  /** The actual elements which are not in the expected elements, in their original order. */
+  List<Object> extra() {
+    return extra;
+  }
+
+  /** Returns whether the actual and expected elements are equal as multisets. */
+  boolean isEmpty() {
+    return missing.isEmpty() && extra.isEmpty();
+  }
+
+  /**
+   * Computes the difference by hashing, or returns null if any element could not be hashed (i.e.
+   * its {@link Object#hashCode} threw).
+   */
+  @Nullable
+  private static MultisetDiff hashingDiff(List<?> actual, Iterable<?> expected) {
+    List<Object> missing = new ArrayList<Object>();
+    List<Object> extra = new ArrayList<Object>();
+    try {
+      // The naive algorithm removes the first equal expected element for each actual element, so
+      // the first N copies of each actual element (where N is the number of copies expected) are
+      // not extra, and the copies of each expected element after the first M (where M is the
+      // number of copies that were removed) are missing.
+      ElementCounts expectedCounts = PreparedExpected.counts(expected);
+      int[] removed = new int[expectedCounts.distinctCount()];
+      for (Object item : actual) {
+        int index = expectedCounts.indexOf(item);
+        if (index >= 0 && removed[index] < expectedCounts.count(index)) {
+          removed[index]++;
+        } else {
+          extra.add(item);
+        }
+      }
+      for (Object item : expected) {
+        int index = expectedCounts.indexOf(item);
+        if (removed[index] > 0) {
+          removed[index]--;
+        } else {
+          missing.add(item);
+        }
+      }
+    } catch (RuntimeException unhashable) {
+      return null;
+    }
+    return new MultisetDiff(missing, extra);
+  }
+
+  /**
+   * Returns whether any of the given extra elements is equal to any of the given missing elements.
+   * For efficiency, this only checks pairs in which at least one of the elements is not known to
+   * hash reliably, since no other pair can have been split up by an inconsistent hash code, and it
+   * trusts the hash codes (returning false) if there are too many such pairs to check.
+   */
+  private static boolean hasEqualMissingAndExtraElements(List<?> missing, List<?> extra) {
+    if (missing.isEmpty() || extra.isEmpty()) {
+      return false;
+    }
+    List<Object> unreliableMissing = withUnreliableHashCodes(missing);
+    List<Object> unreliableExtra = withUnreliableHashCodes(extra);
+    long comparisons =
+        (long) extra.size() * unreliableMissing.size()
+            + (long) unreliableExtra.size() * missing.size();
+    if (comparisons > SubjectUtils.MAX_HASH_VERIFICATION_COMPARISONS) {
+      return false;
+    }
+    return containsEqualPair(extra, unreliableMissing)
+        || containsEqualPair(unreliableExtra, missing);
+  }
+
+  private static boolean containsEqualPair(List<?> extra, List<?> missing) {
+    for (Object extraItem : extra) {
+      for (Object missingItem : missing) {
+        if (Objects.equal(extraItem, missingItem)) {
+          return true;
+        }
+      }
+    }
+    return false;
+  }
+
+  private static List<Object> withUnreliableHashCodes(List<?> items) {
+    List<Object> unreliable = new ArrayList<Object>();
+    for (Object item : items) {
+      if (!SubjectUtils.hasReliableHashCode(item)) {
+        unreliable.add(item);
+      }
+    }
+    return unreliable;
+  }
+
+  /** Computes the difference using the naive {@code O(n m)} algorithm described above. */
+  private static MultisetDiff naiveDiff(List<?> actual, Iterable<?> expected) {
+    List<Object> missing = Lists.newArrayList(expected);
+    List<Object> extra = new ArrayList<Object>();
+    for (Object item : actual) {
+      if (!missing.remove(item)) {
+        extra.add(item);
+      }
+    }
+    return new MultisetDiff(missing, extra);
+  }
+}
@@ -16,8 +16,12 @@
 package com.google.common.truth;
 
 import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
 
+import com.google.common.collect.Maps;
 import com.google.common.collect.Multiset;
+import com.google.errorprone.annotations.CanIgnoreReturnValue;
+import java.util.Map;
 import javax.annotation.Nullable;
 
 /**
@@ -45,4 +49,52 @@ public final class MultisetSubject extends IterableSubject {
       failWithBadResults("has a count for <" + element + "> of", expectedCount, "is", actualCount);
     }
   }
+
+  /**
+   * Fails if each of the given elements does not have the given count. An element may be given a
+   * count of zero, to check that the multiset doesn't contain it.
+   */
+  public final void hasCounts(Map<?, Integer> expectedCounts) {
+    Multiset<?> actual = (Multiset<?>) actual();
+    Map<Object, Integer> actualCounts = Maps.newLinkedHashMap();
+    for (Map.Entry<?, Integer> entry : expectedCounts.entrySet()) {
+      int expectedCount = entry.getValue();
+      checkArgument(
+          expectedCount >= 0,
+          "expectedCount(%s) for <%s> must be >= 0",
+          expectedCount,
+          entry.getKey());
+      int actualCount = actual.count(entry.getKey());
+      if (actualCount != expectedCount) {
+        actualCounts.put(entry.getKey(), actualCount);
+      }
+    }
+    if (!actualCounts.isEmpty()) {
+      failWithBadResults("has counts", expectedCounts, "has counts", actualCounts);
+    }
+  }
+
+  /**
+   * Fails if the multiset does not contain at least as many copies of each element as the given
+   * multiset does. This compares the counts of the distinct elements, so it takes time in
+   * proportion to the number of distinct elements, rather than to the number of copies.
+   */
+  public final void hasCountsAtLeast(Multiset<?> expected) {
+    containsAllCounts("has at least the counts of", checkNotNull(expected));
+  }
+
+  /**
+   * Fails if the multiset does not contain exactly as many copies of each element as the given
+   * multiset does. This compares the counts of the distinct elements, so it takes time in
+   * proportion to the number of distinct elements, rather than to the number of copies. ({@link
+   * #containsExactlyElementsIn} and {@link #containsAllIn} also compare counts when given a
+   * multiset.)
+   *
+   * <p>To also test that the elements are iterated over in the same order, make a call to {@code
+   * inOrder()} on the object returned by this method.
+   */
+  @CanIgnoreReturnValue
+  public final Ordered containsExactlyCountsIn(Multiset<?> expected) {
+    return containsExactlyCounts(checkNotNull(expected), "");
+  }
 }
@@ -16,11 +16,21 @@
 package com.google.common.truth;
 
 import com.google.common.annotations.GwtIncompatible;
+import com.google.common.base.Throwables;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.util.concurrent.Uninterruptibles;
 import java.lang.reflect.Array;
+import java.util.ArrayList;
 import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.FutureTask;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
+import javax.annotation.Nullable;
 import org.junit.ComparisonFailure;
 
 /**
@@ -140,4 +150,49 @@ public final class Platform {
   static Object getFromArray(Object array, int i) {
     return Array.get(array, i);
   }
+
+  /**
+   * Returns the value of the given system property as an int, or the given default if it is not
+   * set or is not a valid int.
+   */
+  static int intSystemProperty(String name, int defaultValue) {
+    return Integer.getInteger(name, defaultValue);
+  }
+
+  /**
+   * Returns a new thread-safe cache map which holds at most the given number of entries, holds its
+   * keys weakly, and compares them by identity, or null if the platform can't cache (as under GWT).
+   */
+  @Nullable
+  static <V> Map<Object, V> newWeakIdentityCache(int maximumSize) {
+    return CacheBuilder.newBuilder().weakKeys().maximumSize(maximumSize).<Object, V>build().asMap();
+  }
+
+  /**
+   * Runs the given tasks on the given executor, and waits for all of them to finish. If any of them
+   * throws, this rethrows the exception thrown by the first such task in the list, so the outcome
+   * doesn't depend on the order in which the executor happens to run them.
+   */
+  static void runAll(Executor executor, List<? extends Runnable> tasks) {
+    List<FutureTask<Void>> futures = new ArrayList<FutureTask<Void>>(tasks.size());
+    for (Runnable task : tasks) {
+      FutureTask<Void> future = new FutureTask<Void>(task, null);
+      futures.add(future);
+      executor.execute(future);
+    }
+    Throwable firstFailure = null;
+    for (FutureTask<Void> future : futures) {
+      try {
+        Uninterruptibles.getUninterruptibly(future);
+      } catch (ExecutionException e) {
+        if (firstFailure == null) {
+          firstFailure = e.getCause();
+        }
+      }
+    }
+    if (firstFailure != null) {
+      Throwables.throwIfUnchecked(firstFailure);
+      throw new RuntimeException(firstFailure);
+    }
+  }
 }
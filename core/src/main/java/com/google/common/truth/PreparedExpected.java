@@ -0,0 +1,134 @@
+/*
+ * Copyright (c) 2017 Google, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.common.truth;
+
+import com.google.common.collect.ImmutableCollection;
+import com.google.common.collect.ImmutableMultimap;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Multimap;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Map;
+import javax.annotation.Nullable;
+
+/**
+ * Prepares the lookup structures which assertions build from their expected values, optionally
+ * caching them.
+ *
+ * <p>Test suites often pass the same large, immutable expected fixture to many assertions, each of
+ * which would otherwise rebuild the same structures from scratch. If the system property {@value
+ * #CACHE_SIZE_PROPERTY} is set to a positive number, the structures prepared for that many expected
+ * values are kept in a cache, keyed by the identity of the expected values and holding them weakly,
+ * so that an expected value and its structures can still be garbage collected. Only values of
+ * Guava's immutable collection types are cached, since the structures would be wrong if the values
+ * changed. (That also assumes that their elements don't change in ways which affect their {@link
+ * Object#hashCode}, which isn't allowed in hash-based collections anyway.) The cache is not
+ * available under GWT.
+ */
+final class PreparedExpected {
+  static final String CACHE_SIZE_PROPERTY = "truth.preparedExpectedCacheSize";
+
+  /** The instance used by the static methods, replaced whenever the cache size property changes. */
+  private static volatile PreparedExpected instance = new PreparedExpected(0);
+
+  private final int cacheSize;
+  @Nullable private final Map<Object, Object> cache;
+
+  /**
+   * Creates an instance which caches the given number of structures, or none if not positive or if
+   * the platform can't cache.
+   */
+  PreparedExpected(int cacheSize) {
+    this.cacheSize = cacheSize;
+    this.cache = cacheSize > 0 ? Platform.<Object>newWeakIdentityCache(cacheSize) : null;
+  }
+
+  private static PreparedExpected instance() {
+    int cacheSize = Platform.intSystemProperty(CACHE_SIZE_PROPERTY, 0);
+    PreparedExpected current = instance;
+    if (current.cacheSize != cacheSize) {
+      current = new PreparedExpected(cacheSize);
+      instance = current;
+    }
+    return current;
+  }
+
+  /**
+   * Returns the counts of the given expected elements, from the cache if possible.
+   *
+   * @throws RuntimeException if any element's {@link Object#hashCode} does
+   */
+  static ElementCounts counts(Iterable<?> expected) {
+    return instance().countsOf(expected);
+  }
+
+  /**
+   * Returns the counts of the values for each key of the given expected multimap, from the cache if
+   * possible.
+   *
+   * @throws RuntimeException if any key's or value's {@link Object#hashCode} does
+   */
+  static Map<Object, ElementCounts> valueCounts(Multimap<?, ?> expected) {
+    return instance().valueCountsOf(expected);
+  }
+
+  /** Returns whether the structures prepared for the given expected value would be cached. */
+  static boolean isCacheable(Object expected) {
+    return instance().caches(expected);
+  }
+
+  boolean caches(Object expected) {
+    return cache != null
+        && (expected instanceof ImmutableCollection<?>
+            || expected instanceof ImmutableMultimap<?, ?>);
+  }
+
+  ElementCounts countsOf(Iterable<?> expected) {
+    if (!caches(expected)) {
+      return ElementCounts.of(expected);
+    }
+    Object cached = cache.get(expected);
+    if (cached instanceof ElementCounts) {
+      return (ElementCounts) cached;
+    }
+    ElementCounts counts = ElementCounts.of(expected);
+    cache.put(expected, counts);
+    return counts;
+  }
+
+  @SuppressWarnings("unchecked") // only this class puts maps in the cache
+  Map<Object, ElementCounts> valueCountsOf(Multimap<?, ?> expected) {
+    if (!caches(expected)) {
+      return countValues(expected);
+    }
+    Object cached = cache.get(expected);
+    if (cached instanceof Map<?, ?>) {
+      return (Map<Object, ElementCounts>) cached;
+    }
+    Map<Object, ElementCounts> counts = countValues(expected);
+    cache.put(expected, counts);
+    return counts;
+  }
+
+  private static Map<Object, ElementCounts> countValues(Multimap<?, ?> multimap) {
+    // Not an ImmutableMap, since multimaps may have null keys.
+    Map<Object, ElementCounts> counts = Maps.newHashMap();
+    for (Map.Entry<?, ? extends Collection<?>> entry : multimap.asMap().entrySet()) {
+      counts.put(entry.getKey(), ElementCounts.of(entry.getValue()));
+    }
+    return Collections.unmodifiableMap(counts);
+  }
+}
@@ -76,6 +76,6 @@ public final class PrimitiveIntArraySubject
   }
 
   public IterableSubject asList() {
-    return new IterableSubject(failureStrategy, listRepresentation());
+    return new IterableSubject(failureStrategy, listRepresentation(), Duplicates.of(actual()));
   }
 }
@@ -0,0 +1,343 @@
+/*
+ * Copyright (c) 2017 Google, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.common.truth;
+
+import static com.google.common.truth.BoundedRendering.renderPrefix;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.primitives.Ints;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import javax.annotation.Nullable;
+
+/**
+ * A shortest edit script between an expected and an actual sequence, for describing how the actual
+ * order differs from the expected one.
+ *
+ * <p>This is Myers' difference algorithm, in its linear-space form: it finds the middle of a
+ * shortest edit script by searching from both ends at once, and then recurses on each half. It
+ * takes {@code O((n + m) D)} time and {@code O(n + m)} space, where {@code D} is the number of
+ * elements inserted or deleted. Elements are first mapped to small integers, so that the search
+ * compares integers rather than calling {@link Object#equals}. To keep a failure on two very
+ * different sequences cheap, this gives up if {@code D} exceeds {@value #MAX_EDIT_DISTANCE}.
+ *
+ * <p>The script is a list of hunks, each a run of expected elements deleted and a run of actual
+ * elements inserted in their place. A deleted run equal to an inserted run elsewhere is described
+ * as having moved.
+ */
+final class SequenceDiff {
+  static final int MAX_EDIT_DISTANCE = 10000;
+
+  /** The most differences that {@link #describe} lists. */
+  static final int MAX_DESCRIBED_DIFFERENCES = 10;
+
+  /** The most elements of a run that {@link #describe} shows. */
+  private static final int MAX_DESCRIBED_ELEMENTS = 10;
+
+  private final List<?> expected;
+  private final List<?> actual;
+  private final int[] expectedIds;
+  private final int[] actualIds;
+  /** The hunks, in order, each as {expectedStart, expectedEnd, actualStart, actualEnd}. */
+  private final List<int[]> hunks = Lists.newArrayList();
+
+  private int budget = MAX_EDIT_DISTANCE;
+
+  private SequenceDiff(List<?> expected, List<?> actual) {
+    this.expected = expected;
+    this.actual = actual;
+    Map<Object, Integer> ids = Maps.newHashMap();
+    this.expectedIds = ids(expected, ids);
+    this.actualIds = ids(actual, ids);
+  }
+
+  /**
+   * Returns the differences between the given sequences, or null if they differ in more than
+   * {@value #MAX_EDIT_DISTANCE} elements.
+   */
+  @Nullable
+  static SequenceDiff between(List<?> expected, List<?> actual) {
+    SequenceDiff diff = new SequenceDiff(expected, actual);
+    return diff.diff(0, expected.size(), 0, actual.size()) ? diff : null;
+  }
+
+  /**
+   * Describes, in parentheses after the given prefix, how the actual order differs from the
+   * expected one, or returns the empty string if they differ too much to describe cheaply.
+   */
+  static String orderDifferences(String prefix, List<?> expected, List<?> actual) {
+    SequenceDiff diff = between(expected, actual);
+    return diff == null || diff.isEmpty() ? "" : " (" + prefix + diff.describe() + ")";
+  }
+
+  private static int[] ids(List<?> elements, Map<Object, Integer> ids) {
+    int[] result = new int[elements.size()];
+    int index = 0;
+    for (Object element : elements) {
+      Integer id = ids.get(element);
+      if (id == null) {
+        id = ids.size();
+        ids.put(element, id);
+      }
+      result[index++] = id;
+    }
+    return result;
+  }
+
+  /** Returns whether the sequences are equal. */
+  boolean isEmpty() {
+    return hunks.isEmpty();
+  }
+
+  /**
+   * Returns the hunks, in order, each as {expectedStart, expectedEnd, actualStart, actualEnd}: the
+   * expected elements in the first range are replaced by the actual elements in the second.
+   */
+  List<int[]> hunks() {
+    return Collections.unmodifiableList(hunks);
+  }
+
+  /**
+   * Adds the hunks for the given ranges of the sequences. Returns false if that would take more
+   * than the remaining budget of insertions and deletions.
+   */
+  private boolean diff(int expectedStart, int expectedEnd, int actualStart, int actualEnd) {
+    while (expectedStart < expectedEnd
+        && actualStart < actualEnd
+        && expectedIds[expectedStart] == actualIds[actualStart]) {
+      expectedStart++;
+      actualStart++;
+    }
+    while (expectedStart < expectedEnd
+        && actualStart < actualEnd
+        && expectedIds[expectedEnd - 1] == actualIds[actualEnd - 1]) {
+      expectedEnd--;
+      actualEnd--;
+    }
+    if (expectedStart == expectedEnd || actualStart == actualEnd) {
+      budget -= (expectedEnd - expectedStart) + (actualEnd - actualStart);
+      if (budget < 0) {
+        return false;
+      }
+      addHunk(expectedStart, expectedEnd, actualStart, actualEnd);
+      return true;
+    }
+    int[] middle = middle(expectedStart, expectedEnd, actualStart, actualEnd);
+    if (middle == null) {
+      // Either the script is too long, or the ranges have nothing in common.
+      budget -= (expectedEnd - expectedStart) + (actualEnd - actualStart);
+      if (budget < 0) {
+        return false;
+      }
+      addHunk(expectedStart, expectedEnd, actualStart, actualEnd);
+      return true;
+    }
+    return diff(expectedStart, middle[0], actualStart, middle[1])
+        && diff(middle[0], expectedEnd, middle[1], actualEnd);
+  }
+
+  /**
+   * Returns a point {expectedIndex, actualIndex} through which a shortest edit script for the given
+   * (non-empty) ranges passes, or null if the script would take more than the remaining budget of
+   * insertions and deletions, or if there is no such point because the ranges have nothing in
+   * common.
+   */
+  @Nullable
+  private int[] middle(int expectedStart, int expectedEnd, int actualStart, int actualEnd) {
+    int n = expectedEnd - expectedStart;
+    int m = actualEnd - actualStart;
+    int maxD = Math.min((n + m + 1) / 2, budget / 2 + 1);
+    int offset = maxD;
+    // forward[offset + k] and backward[offset + k] are the furthest x reached on diagonal k (where
+    // k = x - y) from the start and from the end respectively.
+    int[] forward = new int[2 * maxD + 2];
+    int[] backward = new int[2 * maxD + 2];
+    Arrays.fill(forward, -1);
+    Arrays.fill(backward, -1);
+    forward[offset + 1] = 0;
+    backward[offset + 1] = 0;
+    int delta = n - m;
+    // If the difference in lengths is odd, the searches meet while searching forward.
+    boolean meetForward = delta % 2 != 0;
+    // Diagonals whose paths have run off the edges of the ranges need not be searched again.
+    int forwardStartTrim = 0;
+    int forwardEndTrim = 0;
+    int backwardStartTrim = 0;
+    int backwardEndTrim = 0;
+    for (int d = 0; d < maxD; d++) {
+      for (int k = -d + forwardStartTrim; k <= d - forwardEndTrim; k += 2) {
+        int x =
+            k == -d || (k != d && forward[offset + k - 1] < forward[offset + k + 1])
+                ? forward[offset + k + 1]
+                : forward[offset + k - 1] + 1;
+        int y = x - k;
+        while (x < n
+            && y < m
+            && expectedIds[expectedStart + x] == actualIds[actualStart + y]) {
+          x++;
+          y++;
+        }
+        forward[offset + k] = x;
+        if (x > n) {
+          forwardEndTrim += 2;
+        } else if (y > m) {
+          forwardStartTrim += 2;
+        } else if (meetForward) {
+          int backwardIndex = offset + delta - k;
+          if (backwardIndex >= 0
+              && backwardIndex < backward.length
+              && backward[backwardIndex] != -1
+              && x >= n - backward[backwardIndex]) {
+            return new int[] {expectedStart + x, actualStart + y};
+          }
+        }
+      }
+      for (int k = -d + backwardStartTrim; k <= d - backwardEndTrim; k += 2) {
+        int x =
+            k == -d || (k != d && backward[offset + k - 1] < backward[offset + k + 1])
+                ? backward[offset + k + 1]
+                : backward[offset + k - 1] + 1;
+        int y = x - k;
+        while (x < n
+            && y < m
+            && expectedIds[expectedEnd - x - 1] == actualIds[actualEnd - y - 1]) {
+          x++;
+          y++;
+        }
+        backward[offset + k] = x;
+        if (x > n) {
+          backwardEndTrim += 2;
+        } else if (y > m) {
+          backwardStartTrim += 2;
+        } else if (!meetForward) {
+          int forwardIndex = offset + delta - k;
+          if (forwardIndex >= 0
+              && forwardIndex < forward.length
+              && forward[forwardIndex] != -1
+              && forward[forwardIndex] >= n - x) {
+            int forwardX = forward[forwardIndex];
+            int forwardY = offset + forwardX - forwardIndex;
+            return new int[] {expectedStart + forwardX, actualStart + forwardY};
+          }
+        }
+      }
+    }
+    return null;
+  }
+
+  private void addHunk(int expectedStart, int expectedEnd, int actualStart, int actualEnd) {
+    if (expectedStart == expectedEnd && actualStart == actualEnd) {
+      return;
+    }
+    if (!hunks.isEmpty()) {
+      int[] last = hunks.get(hunks.size() - 1);
+      if (last[1] == expectedStart && last[3] == actualStart) {
+        last[1] = expectedEnd;
+        last[3] = actualEnd;
+        return;
+      }
+    }
+    hunks.add(new int[] {expectedStart, expectedEnd, actualStart, actualEnd});
+  }
+
+  /**
+   * Describes the differences, for a failure message: the runs of elements which moved, which are
+   * missing and which are unexpected, in order of their positions, listing at most {@value
+   * #MAX_DESCRIBED_DIFFERENCES} differences.
+   */
+  String describe() {
+    // The hunk from which each run of deleted elements moved to each hunk, if any.
+    int[] movedFrom = new int[hunks.size()];
+    int[] movedTo = new int[hunks.size()];
+    Arrays.fill(movedFrom, -1);
+    Arrays.fill(movedTo, -1);
+    Map<List<Integer>, List<Integer>> hunksByDeletedRun = Maps.newHashMap();
+    for (int hunk = 0; hunk < hunks.size(); hunk++) {
+      List<Integer> deleted = deletedIds(hunk);
+      if (!deleted.isEmpty()) {
+        List<Integer> sameRun = hunksByDeletedRun.get(deleted);
+        if (sameRun == null) {
+          sameRun = Lists.newLinkedList();
+          hunksByDeletedRun.put(deleted, sameRun);
+        }
+        sameRun.add(hunk);
+      }
+    }
+    for (int hunk = 0; hunk < hunks.size(); hunk++) {
+      List<Integer> sameRun = hunksByDeletedRun.get(insertedIds(hunk));
+      if (sameRun != null && !sameRun.isEmpty() && sameRun.get(0) != hunk) {
+        int from = sameRun.remove(0);
+        movedTo[from] = hunk;
+        movedFrom[hunk] = from;
+      }
+    }
+
+    List<String> differences = Lists.newArrayList();
+    int count = 0;
+    for (int hunk = 0; hunk < hunks.size(); hunk++) {
+      int[] bounds = hunks.get(hunk);
+      if (bounds[0] < bounds[1]) {
+        count++;
+        if (differences.size() < MAX_DESCRIBED_DIFFERENCES) {
+          List<?> deleted = expected.subList(bounds[0], bounds[1]);
+          differences.add(
+              movedTo[hunk] >= 0
+                  ? StringUtil.format(
+                      "<%s> moved from expected index %s to actual index %s",
+                      renderRun(deleted), bounds[0], hunks.get(movedTo[hunk])[2])
+                  : StringUtil.format(
+                      "<%s> missing at expected index %s", renderRun(deleted), bounds[0]));
+        }
+      }
+      if (bounds[2] < bounds[3] && movedFrom[hunk] < 0) {
+        count++;
+        if (differences.size() < MAX_DESCRIBED_DIFFERENCES) {
+          differences.add(
+              StringUtil.format(
+                  "<%s> unexpected at actual index %s",
+                  renderRun(actual.subList(bounds[2], bounds[3])), bounds[2]));
+        }
+      }
+    }
+    StringBuilder description = new StringBuilder();
+    for (String difference : differences) {
+      description.append(description.length() == 0 ? "" : "; ").append(difference);
+    }
+    if (count > differences.size()) {
+      description.append("; and ").append(count - differences.size()).append(" more");
+    }
+    return description.toString();
+  }
+
+  private List<Integer> deletedIds(int hunk) {
+    int[] bounds = hunks.get(hunk);
+    return Ints.asList(expectedIds).subList(bounds[0], bounds[1]);
+  }
+
+  private List<Integer> insertedIds(int hunk) {
+    int[] bounds = hunks.get(hunk);
+    return Ints.asList(actualIds).subList(bounds[2], bounds[3]);
+  }
+
+  private static String renderRun(List<?> run) {
+    return run.size() > MAX_DESCRIBED_ELEMENTS
+        ? renderPrefix(run.subList(0, MAX_DESCRIBED_ELEMENTS), true)
+        : renderPrefix(run, false);
+  }
+}
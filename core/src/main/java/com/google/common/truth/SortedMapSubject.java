@@ -21,8 +21,10 @@ import com.google.common.base.Objects;
 import com.google.common.collect.ForwardingSortedMap;
 import com.google.common.collect.Iterables;
 import com.google.common.collect.Maps;
+import com.google.errorprone.annotations.CanIgnoreReturnValue;
 import java.util.Iterator;
 import java.util.LinkedHashSet;
+import java.util.Map;
 import java.util.Map.Entry;
 import java.util.NavigableMap;
 import java.util.NavigableSet;
@@ -51,6 +53,37 @@ public final class SortedMapSubject extends MapSubject {
     return this;
   }
 
+  /**
+   * Fails if the map does not contain exactly the given set of entries in the given map.
+   *
+   * <p>If the given map is also sorted, by an equal comparator, the two maps are compared by
+   * walking them together, and a failure message also says in which range of keys they differ.
+   */
+  @Override
+  @CanIgnoreReturnValue
+  public Ordered containsExactlyEntriesIn(final Map<?, ?> expectedMap) {
+    if (expectedMap instanceof SortedMap<?, ?>) {
+      SortedMerge merge =
+          SortedMerge.ofEntries(actualAsNavigableMap(), (SortedMap<?, ?>) expectedMap);
+      if (merge != null) {
+        if (merge.isEmpty()) {
+          // Equal maps sorted the same way iterate in the same order.
+          return IterableSubject.IN_ORDER;
+        }
+        failWithRawMessage(
+            "Not true that %s contains exactly <%s>. %s",
+            actualAsString(), expectedMap, merge.describe("key"));
+        return new Ordered() {
+          @Override
+          public void inOrder() {
+            fail("contains exactly these entries in order", expectedMap);
+          }
+        };
+      }
+    }
+    return super.containsExactlyEntriesIn(expectedMap);
+  }
+
   /** Fails if the map's first key is not equal to the given key. */
   public void hasFirstKey(@Nullable Object key) {
     if (actualAsNavigableMap().isEmpty()) {
@@ -0,0 +1,192 @@
+/*
+ * Copyright (c) 2017 Google, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.common.truth;
+
+import static com.google.common.truth.BoundedRendering.render;
+
+import com.google.common.base.Objects;
+import com.google.common.collect.Iterators;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Ordering;
+import com.google.common.collect.PeekingIterator;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.SortedSet;
+import javax.annotation.Nullable;
+
+/**
+ * The difference between a sorted set (or map) of actual elements (or entries) and a sorted set
+ * (or map) of expected ones which is sorted by an equal comparator, found by a merge join: walking
+ * both in order once, in {@code O(n + m)} time and without hashing anything. It holds the expected
+ * elements which are missing, the actual elements which are extra, and the first and last elements
+ * (or keys) at which the two differ.
+ *
+ * <p>A merge join finds the elements which the comparator considers equal, but {@code
+ * containsExactly} compares elements with {@link Object#equals}. So this gives up, returning null,
+ * if the comparators differ or if it finds a pair of elements (or keys) which compare equal but
+ * aren't, in which case the caller should use {@link MultisetDiff} instead.
+ */
+final class SortedMerge {
+  private final List<Object> missing = Lists.newArrayList();
+  private final List<Object> extra = Lists.newArrayList();
+  private int differences;
+  @Nullable private Object firstDifference;
+  @Nullable private Object lastDifference;
+
+  private SortedMerge() {}
+
+  /**
+   * Merges the given sets, or returns null if their comparators differ or are inconsistent with
+   * {@link Object#equals} for their elements.
+   */
+  @Nullable
+  static SortedMerge ofElements(SortedSet<?> actual, SortedSet<?> expected) {
+    Comparator<Object> comparator = commonComparator(actual.comparator(), expected.comparator());
+    if (comparator == null) {
+      return null;
+    }
+    SortedMerge merge = new SortedMerge();
+    PeekingIterator<?> actualIter = Iterators.peekingIterator(actual.iterator());
+    PeekingIterator<?> expectedIter = Iterators.peekingIterator(expected.iterator());
+    while (actualIter.hasNext() && expectedIter.hasNext()) {
+      int comparison = comparator.compare(actualIter.peek(), expectedIter.peek());
+      if (comparison < 0) {
+        merge.addExtra(actualIter.peek(), actualIter.next());
+      } else if (comparison > 0) {
+        merge.addMissing(expectedIter.peek(), expectedIter.next());
+      } else if (!Objects.equal(actualIter.next(), expectedIter.next())) {
+        return null;
+      }
+    }
+    while (actualIter.hasNext()) {
+      merge.addExtra(actualIter.peek(), actualIter.next());
+    }
+    while (expectedIter.hasNext()) {
+      merge.addMissing(expectedIter.peek(), expectedIter.next());
+    }
+    return merge;
+  }
+
+  /**
+   * Merges the entries of the given maps, or returns null if their comparators differ or are
+   * inconsistent with {@link Object#equals} for their keys. An entry whose key is in both maps but
+   * whose value differs is both missing and extra.
+   */
+  @Nullable
+  static SortedMerge ofEntries(SortedMap<?, ?> actual, SortedMap<?, ?> expected) {
+    Comparator<Object> comparator = commonComparator(actual.comparator(), expected.comparator());
+    if (comparator == null) {
+      return null;
+    }
+    SortedMerge merge = new SortedMerge();
+    PeekingIterator<? extends Map.Entry<?, ?>> actualIter =
+        Iterators.peekingIterator(actual.entrySet().iterator());
+    PeekingIterator<? extends Map.Entry<?, ?>> expectedIter =
+        Iterators.peekingIterator(expected.entrySet().iterator());
+    while (actualIter.hasNext() && expectedIter.hasNext()) {
+      Object actualKey = actualIter.peek().getKey();
+      Object expectedKey = expectedIter.peek().getKey();
+      int comparison = comparator.compare(actualKey, expectedKey);
+      if (comparison < 0) {
+        merge.addExtra(actualKey, actualIter.next());
+      } else if (comparison > 0) {
+        merge.addMissing(expectedKey, expectedIter.next());
+      } else if (!Objects.equal(actualKey, expectedKey)) {
+        return null;
+      } else {
+        Map.Entry<?, ?> actualEntry = actualIter.next();
+        Map.Entry<?, ?> expectedEntry = expectedIter.next();
+        if (!Objects.equal(actualEntry.getValue(), expectedEntry.getValue())) {
+          merge.missing.add(expectedEntry);
+          merge.addExtra(actualKey, actualEntry);
+        }
+      }
+    }
+    while (actualIter.hasNext()) {
+      merge.addExtra(actualIter.peek().getKey(), actualIter.next());
+    }
+    while (expectedIter.hasNext()) {
+      merge.addMissing(expectedIter.peek().getKey(), expectedIter.next());
+    }
+    return merge;
+  }
+
+  /**
+   * Returns the comparator by which both collections are sorted, or null if they aren't sorted by
+   * equal comparators. (A null comparator means the natural ordering.)
+   */
+  @Nullable
+  @SuppressWarnings("unchecked") // both collections are already sorted by the comparator
+  private static Comparator<Object> commonComparator(
+      @Nullable Comparator<?> actual, @Nullable Comparator<?> expected) {
+    Comparator<?> actualOrNatural = actual == null ? Ordering.natural() : actual;
+    Comparator<?> expectedOrNatural = expected == null ? Ordering.natural() : expected;
+    return actualOrNatural.equals(expectedOrNatural)
+        ? (Comparator<Object>) actualOrNatural
+        : null;
+  }
+
+  private void addMissing(@Nullable Object position, @Nullable Object element) {
+    missing.add(element);
+    addDifference(position);
+  }
+
+  private void addExtra(@Nullable Object position, @Nullable Object element) {
+    extra.add(element);
+    addDifference(position);
+  }
+
+  private void addDifference(@Nullable Object position) {
+    if (differences++ == 0) {
+      firstDifference = position;
+    }
+    lastDifference = position;
+  }
+
+  /** Returns whether the actual and expected collections are equal. */
+  boolean isEmpty() {
+    return differences == 0;
+  }
+
+  /**
+   * Describes the differences, for a failure message: the missing and extra elements (or entries),
+   * then the range in which they lie, naming the ends of the range with the given noun (e.g.,
+   * {@code "element"} or {@code "key"}).
+   */
+  String describe(String noun) {
+    StringBuilder description = new StringBuilder("It ");
+    if (!missing.isEmpty()) {
+      description.append("is missing <").append(render(missing)).append('>');
+      if (!extra.isEmpty()) {
+        description.append(" and ");
+      }
+    }
+    if (!extra.isEmpty()) {
+      description.append("has unexpected items <").append(render(extra)).append('>');
+    }
+    if (differences == 1) {
+      description.append(". It differs only at ").append(noun);
+      description.append(" <").append(render(firstDifference)).append('>');
+    } else {
+      description.append(". It differs between ").append(noun).append("s <");
+      description.append(render(firstDifference)).append("> and <");
+      description.append(render(lastDifference)).append('>');
+    }
+    return description.toString();
+  }
+}
@@ -16,6 +16,8 @@
 package com.google.common.truth;
 
 import static com.google.common.base.Preconditions.checkNotNull;
+import static com.google.common.truth.BoundedRendering.render;
+import static com.google.common.truth.BoundedRendering.renderAll;
 import static com.google.common.truth.StringUtil.format;
 import static com.google.common.truth.SubjectUtils.accumulate;
 
@@ -277,10 +279,11 @@ public class Subject<S extends Subject<S, T>, T> {
    * 
    * <p>Subjects should override this with care.
    * 
-   * <p>By default, this returns {@code String.ValueOf(getActualValue())}. 
+   * <p>By default, this returns {@code String.ValueOf(getActualValue())}, elided if it would be
+   * huge (see {@link BoundedRendering}).
    */
   protected String actualCustomStringRepresentation() {
-    return String.valueOf(actual());
+    return render(actual());
   }
   
 
@@ -319,13 +322,13 @@ public class Subject<S extends Subject<S, T>, T> {
     // If the subject and parts aren't null, and they have equal toString()'s but different
     // classes, we need to disambiguate them.
     boolean neitherNull = (other != null) && (subject != null);
-    boolean sameToStrings = actualCustomStringRepresentation().equals(String.valueOf(other));
+    boolean sameToStrings = actualCustomStringRepresentation().equals(render(other));
     boolean needsClassDisambiguation =
         neitherNull && sameToStrings && !subject.getClass().equals(other.getClass());
     if (needsClassDisambiguation) {
       message.append("(").append(subject.getClass().getName()).append(") ");
     }
-    message.append(verb).append(" <").append(displayOther).append(">");
+    message.append(verb).append(" <").append(render(displayOther)).append(">");
     if (needsClassDisambiguation) {
       message.append(" (").append(other.getClass().getName()).append(")");
     }
@@ -351,7 +354,7 @@ public class Subject<S extends Subject<S, T>, T> {
       StringBuilder message = new StringBuilder("Not true that ");
       message.append(actualAsString()).append(" ").append(verb);
       for (Object part : messageParts) {
-        message.append(" <").append(part).append(">");
+        message.append(" <").append(render(part)).append(">");
       }
       failureStrategy.fail(message.toString());
     }
@@ -372,9 +375,9 @@ public class Subject<S extends Subject<S, T>, T> {
             "Not true that %s %s <%s>. It %s <%s>",
             actualAsString(),
             verb,
-            expected,
+            render(expected),
             failVerb,
-            (actual == null) ? "null reference" : actual);
+            (actual == null) ? "null reference" : render(actual));
     failureStrategy.fail(message);
   }
 
@@ -390,7 +393,7 @@ public class Subject<S extends Subject<S, T>, T> {
     String message =
         format(
             "Not true that <%s> %s <%s>",
-            (actual == null) ? "null reference" : actual, verb, expected);
+            (actual == null) ? "null reference" : render(actual), verb, render(expected));
     failureStrategy.fail(message);
   }
 
@@ -418,11 +421,12 @@ public class Subject<S extends Subject<S, T>, T> {
    *     guarantees to process {@code %s} tokens. It is not guaranteed to be compatible with {@code
    *     String.format()}. Any other formatting desired (such as floats or scientific notation)
    *     should be performed before the method call and the formatted value passed in as a string.
-   * @param parameters the object parameters which will be applied to the message template.
+   * @param parameters the object parameters which will be applied to the message template. Huge
+   *     parameters are elided as described in {@link BoundedRendering}.
    */
   // TODO(cgruber) final
   protected void failWithRawMessage(String message, Object... parameters) {
-    failureStrategy.fail(format(message, parameters));
+    failureStrategy.fail(format(message, renderAll(parameters)));
   }
 
   /**
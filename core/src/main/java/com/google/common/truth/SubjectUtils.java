@@ -15,10 +15,16 @@
  */
 package com.google.common.truth;
 
+import com.google.common.base.Objects;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Multiset;
+import java.math.BigInteger;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.List;
+import java.util.Map;
+import javax.annotation.Nullable;
 
 /**
  * Utility methods used in {@code Subject<T>} implementors.
@@ -53,21 +59,169 @@ final class SubjectUtils {
     return count;
   }
 
+  /**
+   * The maximum number of {@link Object#equals} calls which {@link #countDuplicates} (and the other
+   * code which groups elements by hashing them) will make to check that elements which aren't known
+   * to hash reliably really are distinct. Past it, the hash codes are trusted.
+   */
+  static final int MAX_HASH_VERIFICATION_COMPARISONS = 1 << 16;
+
+  /**
+   * Returns the distinct items, in order of first occurrence, each with a count of its copies if it
+   * occurs more than once, e.g. {@code [foo, bar [3 copies]]}.
+   */
   static <T> List<Object> countDuplicates(Collection<T> items) {
-    // We use a List to de-dupe instead of a Set in case the elements don't have a proper
-    // .hashCode() method (e.g., MessageSet from old versions of protobuf).
-    List<T> itemSet = new ArrayList<T>();
-    for (T item : items) {
-      if (!itemSet.contains(item)) {
-        itemSet.add(item);
+    List<DuplicateGroup> groups = groupByHashCode(items);
+    if (groups == null) {
+      groups = groupByEquals(items);
+    }
+    List<Object> params = new ArrayList<Object>(groups.size());
+    for (DuplicateGroup group : groups) {
+      params.add((group.count > 1) ? group.item + " [" + group.count + " copies]" : group.item);
+    }
+    return params;
+  }
+
+  /**
+   * Returns the distinct elements of the given multiset, each with a count of its copies if it
+   * occurs more than once, as {@link #countDuplicates} does, but from their counts.
+   */
+  static List<Object> countCopies(Multiset<?> items) {
+    List<Object> params = new ArrayList<Object>(items.entrySet().size());
+    for (Multiset.Entry<?> entry : items.entrySet()) {
+      params.add(
+          (entry.getCount() > 1)
+              ? entry.getElement() + " [" + entry.getCount() + " copies]"
+              : entry.getElement());
+    }
+    return params;
+  }
+
+  /**
+   * Joins the given clauses about the actual value into a sentence for a failure message, e.g. "It
+   * is missing <[a]>, has unexpected items <[b]> and ...".
+   */
+  static String describe(List<String> clauses) {
+    StringBuilder description = new StringBuilder("It ");
+    for (int i = 0; i < clauses.size(); i++) {
+      if (i > 0) {
+        description.append(i == clauses.size() - 1 ? " and " : ", ");
       }
+      description.append(clauses.get(i));
     }
-    Object[] params = new Object[itemSet.size()];
-    int n = 0;
-    for (T item : itemSet) {
-      int count = countOf(item, items);
-      params[n++] = (count > 1) ? item + " [" + count + " copies]" : item;
+    return description.toString();
+  }
+
+  /** An item, and the number of times it (or an equal item) occurs. */
+  private static final class DuplicateGroup {
+    final Object item;
+    int count = 1;
+
+    DuplicateGroup(Object item) {
+      this.item = item;
     }
-    return Arrays.asList(params);
+  }
+
+  /**
+   * Groups equal items using a hash map, in linear time. Items whose {@link Object#hashCode}
+   * throws are grouped with {@link Object#equals} alone, in quadratic time.
+   *
+   * <p>Some types have hash codes which are inconsistent with equals (e.g., MessageSet from old
+   * versions of protobuf), so this returns null if it can find two groups whose items are equal,
+   * in which case the caller should fall back to {@link #groupByEquals}. It only checks pairs in
+   * which at least one of the items is not known to hash reliably, and it gives up checking (and
+   * trusts the hash codes) after a bounded number of comparisons.
+   */
+  @Nullable
+  private static List<DuplicateGroup> groupByHashCode(Iterable<?> items) {
+    List<DuplicateGroup> groups = new ArrayList<DuplicateGroup>();
+    List<DuplicateGroup> unhashableGroups = new ArrayList<DuplicateGroup>();
+    List<DuplicateGroup> unreliableGroups = new ArrayList<DuplicateGroup>();
+    Map<Object, DuplicateGroup> groupsByItem = Maps.newHashMap();
+    for (Object item : items) {
+      DuplicateGroup group;
+      List<DuplicateGroup> candidates;
+      try {
+        group = groupsByItem.get(item);
+        candidates = null;
+      } catch (RuntimeException unhashable) {
+        group = findGroup(item, unhashableGroups);
+        candidates = unhashableGroups;
+      }
+      if (group != null) {
+        group.count++;
+        continue;
+      }
+      group = new DuplicateGroup(item);
+      groups.add(group);
+      if (candidates != null) {
+        candidates.add(group);
+      } else {
+        groupsByItem.put(item, group);
+        if (!hasReliableHashCode(item)) {
+          unreliableGroups.add(group);
+        }
+      }
+    }
+
+    if ((long) unreliableGroups.size() * groups.size() <= MAX_HASH_VERIFICATION_COMPARISONS) {
+      for (DuplicateGroup unreliable : unreliableGroups) {
+        for (DuplicateGroup other : groups) {
+          if (other != unreliable
+              && (Objects.equal(unreliable.item, other.item)
+                  || Objects.equal(other.item, unreliable.item))) {
+            return null;
+          }
+        }
+      }
+    }
+    return groups;
+  }
+
+  /**
+   * Groups equal items using {@link Object#equals} alone, in quadratic time, without relying on
+   * {@link Object#hashCode} at all.
+   */
+  private static List<DuplicateGroup> groupByEquals(Iterable<?> items) {
+    List<DuplicateGroup> groups = new ArrayList<DuplicateGroup>();
+    for (Object item : items) {
+      DuplicateGroup group = findGroup(item, groups);
+      if (group == null) {
+        groups.add(new DuplicateGroup(item));
+      } else {
+        group.count++;
+      }
+    }
+    return groups;
+  }
+
+  @Nullable
+  private static DuplicateGroup findGroup(@Nullable Object item, List<DuplicateGroup> groups) {
+    for (DuplicateGroup group : groups) {
+      if (Objects.equal(item, group.item)) {
+        return group;
+      }
+    }
+    return null;
+  }
+
+  /**
+   * Returns whether the given item is known to have a {@link Object#hashCode} implementation which
+   * is consistent with its {@link Object#equals} implementation, which is true for null and for a
+   * handful of common JDK value types.
+   */
+  static boolean hasReliableHashCode(@Nullable Object item) {
+    return item == null
+        || item instanceof String
+        || item instanceof Integer
+        || item instanceof Long
+        || item instanceof Short
+        || item instanceof Byte
+        || item instanceof Character
+        || item instanceof Boolean
+        || item instanceof Double
+        || item instanceof Float
+        || item instanceof BigInteger
+        || item instanceof Enum;
   }
 }
@@ -0,0 +1,141 @@
+/*
+ * Copyright (c) 2017 Google, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.common.truth;
+
+import static com.google.common.truth.BoundedRendering.render;
+
+import com.google.common.base.Objects;
+import com.google.common.collect.ArrayTable;
+import com.google.common.collect.HashBasedTable;
+import com.google.common.collect.ImmutableTable;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Table;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+
+/**
+ * The difference between a table of actual cells and a table of expected ones, found by walking the
+ * rows of the expected table once, looking each row and then each of its cells up in the actual
+ * table, and the rows of the actual table at most once, so in time linear in the number of cells.
+ * It holds the missing cells, the extra cells, and the cells which both tables contain but with
+ * different values, each grouped by row.
+ *
+ * <p>Row and column keys are compared with {@link Object#equals}, as {@link Table#equals} compares
+ * cells. The rows of a table which may look keys up some other way (e.g., a {@code TreeBasedTable})
+ * are first copied into hash maps, which, unlike a {@link HashBasedTable}, accept null values (as
+ * an {@link ArrayTable} may hold).
+ */
+final class TableDiff {
+  private final Map<Object, Map<Object, Object>> missing = Maps.newLinkedHashMap();
+  private final Map<Object, Map<Object, Object>> extra = Maps.newLinkedHashMap();
+  private final Map<Object, Map<Object, Object>> wrongValues = Maps.newLinkedHashMap();
+  private final Map<Object, Map<Object, Object>> expectedValues = Maps.newLinkedHashMap();
+
+  private TableDiff() {}
+
+  static TableDiff between(Table<?, ?, ?> actual, Table<?, ?, ?> expected) {
+    TableDiff diff = new TableDiff();
+    Map<?, ? extends Map<?, ?>> actualRows = lookup(actual);
+    int foundCells = 0;
+    for (Entry<?, ? extends Map<?, ?>> expectedRow : expected.rowMap().entrySet()) {
+      Object rowKey = expectedRow.getKey();
+      Map<?, ?> actualRow = actualRows.get(rowKey);
+      for (Entry<?, ?> cell : expectedRow.getValue().entrySet()) {
+        Object actualValue = actualRow == null ? null : actualRow.get(cell.getKey());
+        if (actualValue == null && (actualRow == null || !actualRow.containsKey(cell.getKey()))) {
+          put(diff.missing, rowKey, cell.getKey(), cell.getValue());
+          continue;
+        }
+        foundCells++;
+        if (!Objects.equal(actualValue, cell.getValue())) {
+          put(diff.wrongValues, rowKey, cell.getKey(), actualValue);
+          put(diff.expectedValues, rowKey, cell.getKey(), cell.getValue());
+        }
+      }
+    }
+    // Each found cell is one of the actual cells, so the rest are extra.
+    if (actual.size() > foundCells) {
+      Map<?, ? extends Map<?, ?>> expectedRows = lookup(expected);
+      for (Entry<?, ? extends Map<?, ?>> actualRow : actual.rowMap().entrySet()) {
+        Object rowKey = actualRow.getKey();
+        Map<?, ?> expectedRow = expectedRows.get(rowKey);
+        for (Entry<?, ?> cell : actualRow.getValue().entrySet()) {
+          if (expectedRow == null || !expectedRow.containsKey(cell.getKey())) {
+            put(diff.extra, rowKey, cell.getKey(), cell.getValue());
+          }
+        }
+      }
+    }
+    return diff;
+  }
+
+  /**
+   * Returns the rows of the given table, in a map of maps which looks up keys with {@link
+   * Object#equals}, accepting any key.
+   */
+  private static Map<?, ? extends Map<?, ?>> lookup(Table<?, ?, ?> table) {
+    if (table instanceof HashBasedTable<?, ?, ?>
+        || table instanceof ImmutableTable<?, ?, ?>
+        || table instanceof ArrayTable<?, ?, ?>) {
+      return table.rowMap();
+    }
+    Map<Object, Map<Object, Object>> rows = Maps.newHashMap();
+    for (Entry<?, ? extends Map<?, ?>> row : table.rowMap().entrySet()) {
+      rows.put(row.getKey(), Maps.<Object, Object>newHashMap(row.getValue()));
+    }
+    return rows;
+  }
+
+  private static void put(
+      Map<Object, Map<Object, Object>> cells, Object rowKey, Object columnKey, Object value) {
+    Map<Object, Object> row = cells.get(rowKey);
+    if (row == null) {
+      row = Maps.newLinkedHashMap();
+      cells.put(rowKey, row);
+    }
+    row.put(columnKey, value);
+  }
+
+  /** Returns whether the actual and expected tables are equal. */
+  boolean isEmpty() {
+    return missing.isEmpty() && extra.isEmpty() && wrongValues.isEmpty();
+  }
+
+  /**
+   * Describes the differences, for a failure message: the missing cells, the extra cells, and the
+   * cells with wrong values, with the values they are expected to have, each grouped by row.
+   */
+  String describe() {
+    List<String> parts = Lists.newArrayList();
+    if (!missing.isEmpty()) {
+      parts.add("is missing cells <" + render(missing) + ">");
+    }
+    if (!extra.isEmpty()) {
+      parts.add("has unexpected cells <" + render(extra) + ">");
+    }
+    if (!wrongValues.isEmpty()) {
+      parts.add(
+          "has wrong values <"
+              + render(wrongValues)
+              + "> instead of <"
+              + render(expectedValues)
+              + ">");
+    }
+    return SubjectUtils.describe(parts);
+  }
+}
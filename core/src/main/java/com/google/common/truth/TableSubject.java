@@ -16,6 +16,7 @@
 package com.google.common.truth;
 
 import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
 
 import com.google.common.collect.Table;
 import com.google.common.collect.Table.Cell;
@@ -101,6 +102,21 @@ public final class TableSubject extends Subject<TableSubject, Table<?, ?, ?>> {
     }
   }
 
+  /**
+   * Fails if the table does not contain exactly the cells of the given table. A failure message
+   * lists the missing cells, the unexpected cells, and the cells with the wrong values, grouped by
+   * row.
+   */
+  public void containsExactlyCellsIn(Table<?, ?, ?> expectedTable) {
+    checkNotNull(expectedTable, "expectedTable");
+    TableDiff diff = TableDiff.between(actual(), expectedTable);
+    if (!diff.isEmpty()) {
+      failWithRawMessage(
+          "Not true that %s contains exactly the cells of <%s>. %s",
+          actualAsString(), expectedTable, diff.describe());
+    }
+  }
+
   /** Fails if the table does not contain the given value. */
   public void containsValue(@Nullable Object value) {
     if (!actual().containsValue(value)) {
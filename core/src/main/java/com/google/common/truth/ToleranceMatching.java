@@ -0,0 +1,199 @@
+/*
+ * Copyright (c) 2017 Google, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.common.truth;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import com.google.common.collect.Lists;
+import com.google.common.primitives.Doubles;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * A maximum 1:1 matching between actual and expected numbers, where numbers can be matched if they
+ * correspond under {@link Correspondence#tolerance}, i.e. if their double values are finite and
+ * within the tolerance of each other.
+ *
+ * <p>The numbers which a given number corresponds to form a contiguous range of the numbers in
+ * sorted order, and the ranges for greater numbers never start or end before those for lesser
+ * ones. So, rather than comparing every actual number with every expected number and running a
+ * general bipartite matching algorithm on the result, this sorts both sides and sweeps through
+ * them together, in {@code O(n log n)} time. That finds which numbers correspond to none on the
+ * other side, and also a maximum matching: matching the least unmatched actual and expected
+ * numbers whenever they correspond, and otherwise skipping the lesser of them, is optimal for
+ * such ranges.
+ */
+final class ToleranceMatching {
+  private final boolean[] actualHasCandidate;
+  private final boolean[] expectedHasCandidate;
+  private final boolean[] actualMatched;
+  private final boolean[] expectedMatched;
+
+  private ToleranceMatching(int actualCount, int expectedCount) {
+    actualHasCandidate = new boolean[actualCount];
+    expectedHasCandidate = new boolean[expectedCount];
+    actualMatched = new boolean[actualCount];
+    expectedMatched = new boolean[expectedCount];
+  }
+
+  /**
+   * Matches the given numbers. As with the correspondence, this throws {@link
+   * NullPointerException} if any number is null, unless there are no numbers on the other side to
+   * compare it with.
+   */
+  static ToleranceMatching between(
+      List<? extends Number> actual, List<? extends Number> expected, double tolerance) {
+    ToleranceMatching matching = new ToleranceMatching(actual.size(), expected.size());
+    if (actual.isEmpty() || expected.isEmpty()) {
+      return matching;
+    }
+    double[] actualValues = doubleValues(actual);
+    double[] expectedValues = doubleValues(expected);
+    int[] actualOrder = finiteIndexesInOrder(actualValues);
+    int[] expectedOrder = finiteIndexesInOrder(expectedValues);
+    findCandidates(
+        actualValues,
+        actualOrder,
+        expectedValues,
+        expectedOrder,
+        tolerance,
+        matching.actualHasCandidate);
+    findCandidates(
+        expectedValues,
+        expectedOrder,
+        actualValues,
+        actualOrder,
+        tolerance,
+        matching.expectedHasCandidate);
+
+    int actualPosition = 0;
+    int expectedPosition = 0;
+    while (actualPosition < actualOrder.length && expectedPosition < expectedOrder.length) {
+      int actualIndex = actualOrder[actualPosition];
+      int expectedIndex = expectedOrder[expectedPosition];
+      double actualValue = actualValues[actualIndex];
+      double expectedValue = expectedValues[expectedIndex];
+      if (MathUtil.equalWithinTolerance(actualValue, expectedValue, tolerance)) {
+        matching.actualMatched[actualIndex] = true;
+        matching.expectedMatched[expectedIndex] = true;
+        actualPosition++;
+        expectedPosition++;
+      } else if (Double.compare(actualValue, expectedValue) < 0) {
+        actualPosition++;
+      } else {
+        expectedPosition++;
+      }
+    }
+    return matching;
+  }
+
+  /** Returns the actual elements which correspond to no expected element, in their order. */
+  <T> List<T> actualWithoutCandidates(List<T> actual) {
+    return unflagged(actual, actualHasCandidate);
+  }
+
+  /** Returns the expected elements which correspond to no actual element, in their order. */
+  <T> List<T> expectedWithoutCandidates(List<T> expected) {
+    return unflagged(expected, expectedHasCandidate);
+  }
+
+  /** Returns the actual elements which are not in the matching, in their order. */
+  <T> List<T> unmatchedActual(List<T> actual) {
+    return unflagged(actual, actualMatched);
+  }
+
+  /** Returns the expected elements which are not in the matching, in their order. */
+  <T> List<T> unmatchedExpected(List<T> expected) {
+    return unflagged(expected, expectedMatched);
+  }
+
+  private static double[] doubleValues(List<? extends Number> numbers) {
+    double[] values = new double[numbers.size()];
+    int index = 0;
+    for (Number number : numbers) {
+      values[index++] = checkNotNull(number).doubleValue();
+    }
+    return values;
+  }
+
+  /**
+   * Returns the indexes of the finite values, in increasing order of value. (Non-finite values
+   * never correspond to anything.)
+   */
+  private static int[] finiteIndexesInOrder(final double[] values) {
+    List<Integer> indexes = Lists.newArrayListWithCapacity(values.length);
+    for (int index = 0; index < values.length; index++) {
+      if (Doubles.isFinite(values[index])) {
+        indexes.add(index);
+      }
+    }
+    Integer[] sorted = indexes.toArray(new Integer[indexes.size()]);
+    Arrays.sort(
+        sorted,
+        new Comparator<Integer>() {
+          @Override
+          public int compare(Integer left, Integer right) {
+            return Double.compare(values[left], values[right]);
+          }
+        });
+    int[] order = new int[sorted.length];
+    for (int position = 0; position < sorted.length; position++) {
+      order[position] = sorted[position];
+    }
+    return order;
+  }
+
+  /**
+   * Flags each of the given values which corresponds to any of the other values. If any does, the
+   * nearest other value on one side or the other does, so this only needs to check those.
+   */
+  private static void findCandidates(
+      double[] values,
+      int[] order,
+      double[] otherValues,
+      int[] otherOrder,
+      double tolerance,
+      boolean[] hasCandidate) {
+    // The position in otherOrder of the least other value not less than the current value.
+    int otherPosition = 0;
+    for (int index : order) {
+      double value = values[index];
+      while (otherPosition < otherOrder.length
+          && Double.compare(otherValues[otherOrder[otherPosition]], value) < 0) {
+        otherPosition++;
+      }
+      hasCandidate[index] =
+          (otherPosition < otherOrder.length
+                  && MathUtil.equalWithinTolerance(
+                      value, otherValues[otherOrder[otherPosition]], tolerance))
+              || (otherPosition > 0
+                  && MathUtil.equalWithinTolerance(
+                      value, otherValues[otherOrder[otherPosition - 1]], tolerance));
+    }
+  }
+
+  private static <T> List<T> unflagged(List<T> elements, boolean[] flags) {
+    List<T> unflagged = Lists.newArrayList();
+    int index = 0;
+    for (T element : elements) {
+      if (!flags[index++]) {
+        unflagged.add(element);
+      }
+    }
+    return unflagged;
+  }
+}
@@ -18,7 +18,11 @@ package com.google.common.truth;
 import static com.google.common.truth.StringUtil.format;
 
 import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.Executor;
+import javax.annotation.Nullable;
 import jsinterop.annotations.JsPackage;
 import jsinterop.annotations.JsType;
 
@@ -131,6 +135,27 @@ public final class Platform {
     }
   }
 
+  /** Returns the given default, since system properties are not available under GWT. */
+  static int intSystemProperty(String name, int defaultValue) {
+    return defaultValue;
+  }
+
+  /** Returns null, meaning that nothing is cached, since GWT has no weak references. */
+  @Nullable
+  static <V> Map<Object, V> newWeakIdentityCache(int maximumSize) {
+    return null;
+  }
+
+  /**
+   * Runs the given tasks, one after another. GWT has no threads, so the executor is ignored and the
+   * first exception thrown by a task propagates immediately.
+   */
+  static void runAll(Executor executor, List<? extends Runnable> tasks) {
+    for (Runnable task : tasks) {
+      task.run();
+    }
+  }
+
   // TODO(user): Move this logic to a common location.
   private static NativeRegExp compile(String pattern) {
     return new NativeRegExp(pattern);
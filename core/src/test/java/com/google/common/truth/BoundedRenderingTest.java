@@ -0,0 +1,132 @@
+/*
+ * Copyright (c) 2017 Google, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.common.truth;
+
+import static com.google.common.truth.BoundedRendering.render;
+import static com.google.common.truth.Truth.assertThat;
+import static java.util.Arrays.asList;
+import static org.junit.Assert.fail;
+
+import com.google.common.collect.FluentIterable;
+import com.google.common.collect.ImmutableListMultimap;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableMultiset;
+import com.google.common.collect.ImmutableTable;
+import com.google.common.collect.Iterables;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** Tests for {@link BoundedRendering}. */
+@RunWith(JUnit4.class)
+public final class BoundedRenderingTest {
+
+  @Test
+  public void render_withinLimitsIsUnchanged() {
+    assertThat(render(null, 3, 100)).isEqualTo("null");
+    assertThat(render(asList(1, 2, 3), 3, 100)).isEqualTo("[1, 2, 3]");
+    assertThat(render(ImmutableMap.of(1, asList(2)), 3, 100)).isEqualTo("{1=[2]}");
+    assertThat(render(ImmutableMultiset.of("a", "a", "a", "a"), 3, 100)).isEqualTo("[a x 4]");
+  }
+
+  @Test
+  public void render_elidesLongCollection() {
+    assertThat(render(asList(1, 2, 3, 4, 5), 3, 100)).isEqualTo("[1, 2, 3, ... 2 more]");
+  }
+
+  @Test
+  public void render_elidesLongMap() {
+    assertThat(render(ImmutableMap.of(1, "a", 2, "b", 3, "c"), 2, 100))
+        .isEqualTo("{1=a, 2=b, ... 1 more}");
+  }
+
+  @Test
+  public void render_elidesNestedCollections() {
+    // The total number of elements is over the limit, though no one collection's is, so the
+    // elements are all still shown.
+    List<List<Integer>> nested = asList(asList(1, 2, 3), asList(4, 5, 6));
+    assertThat(render(nested, 3, 100)).isEqualTo("[[1, 2, 3], [4, 5, 6]]");
+    assertThat(render(asList(nested, nested), 2, 100))
+        .isEqualTo("[[[1, 2, ... 1 more], [4, 5, ... 1 more]], [[1, 2, ... 1 more], "
+            + "[4, 5, ... 1 more]]]");
+  }
+
+  @Test
+  public void render_elidesMultisetMultimapAndTableInTheirOwnFormats() {
+    assertThat(render(ImmutableMultiset.of("a", "a", "b", "c"), 2, 100))
+        .isEqualTo("[a x 2, b, ... 1 more]");
+    assertThat(render(ImmutableListMultimap.of(1, "a", 1, "b", 2, "c"), 1, 100))
+        .isEqualTo("{1=[a, ... 1 more], ... 1 more}");
+    assertThat(render(ImmutableTable.of("r", "c", 1), 1, 100)).isEqualTo("{r={c=1}}");
+    assertThat(
+            render(
+                ImmutableTable.builder().put("r", "c", 1).put("r", "d", 2).build(), 1, 100))
+        .isEqualTo("{r={c=1, ... 1 more}}");
+  }
+
+  @Test
+  public void render_readsOnlyPrefixOfIterable() {
+    FluentIterable<Integer> endless = FluentIterable.from(Iterables.cycle(1, 2, 3));
+    assertThat(render(endless, 4, 100)).isEqualTo("[1, 2, 3, 1, ...]");
+    assertThat(render(asList(endless, endless), 2, 100)).isEqualTo("[[1, 2, ...], [1, 2, ...]]");
+    assertThat(render(endless.limit(2), 4, 100)).isEqualTo("[1, 2]");
+    assertThat(render(asList(endless.limit(2), endless.limit(2)), 3, 100))
+        .isEqualTo("[[1, 2], [1, 2]]");
+  }
+
+  @Test
+  public void render_selfReference() {
+    List<Object> list = new ArrayList<Object>();
+    list.add(1);
+    list.add(list);
+    list.add(2);
+    assertThat(render(list, 5, 100)).isEqualTo("[1, (this Collection), 2]");
+    assertThat(render(list, 1, 100)).isEqualTo("[1, ... 2 more]");
+  }
+
+  @Test
+  public void render_cutsOffAtCharacterLimit() {
+    assertThat(render("abcdefghij", 3, 4)).isEqualTo("abcd...");
+    assertThat(render(asList("abcdefghij", "klm"), 1, 4)).isEqualTo("[abc...");
+    assertThat(render(ImmutableMap.of("abcdefghij", "klm"), 1, 4)).isEqualTo("{abc...");
+  }
+
+  @Test
+  public void render_stopsIteratingAtCharacterLimit() {
+    List<Integer> huge = new ArrayList<Integer>();
+    for (int i = 0; i < 100000; i++) {
+      huge.add(i);
+    }
+    assertThat(render(asList(huge, huge), 100000, 10)).isEqualTo("[[0, 1, 2,...");
+  }
+
+  @Test
+  public void failureMessage_elidesHugeSubjectAndExpected() {
+    List<Integer> huge = new ArrayList<Integer>();
+    for (int i = 0; i < BoundedRendering.DEFAULT_MAX_ELEMENTS + 5; i++) {
+      huge.add(i);
+    }
+    try {
+      assertThat(huge).containsExactlyElementsIn(asList(-1));
+      fail("Should have thrown.");
+    } catch (AssertionError e) {
+      assertThat(e.getMessage()).startsWith("Not true that <[0, 1, 2, ");
+      assertThat(e.getMessage()).contains(", 9999, ... 5 more]> contains exactly <[-1]>.");
+    }
+  }
+}
@@ -19,7 +19,11 @@ import static com.google.common.truth.Correspondence.tolerance;
 import static com.google.common.truth.Truth.assertThat;
 import static org.junit.Assert.fail;
 
+import com.google.common.base.Ascii;
+import com.google.common.base.Function;
 import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Lists;
+import java.util.List;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.junit.runners.JUnit4;
@@ -155,4 +159,141 @@ public final class CorrespondenceTest {
                   + "is a finite number within 0.05 of <3.0>");
     }
   }
+
+  // Tests of the keyed factory method.
+
+  private static final Correspondence<String, String> EQUAL_IGNORING_CASE_KEYED_BY_LENGTH =
+      Correspondence.keyed(
+          StringLength.INSTANCE,
+          StringLength.INSTANCE,
+          new Correspondence<String, String>() {
+            @Override
+            public boolean compare(String actual, String expected) {
+              return actual.equalsIgnoreCase(expected);
+            }
+
+            @Override
+            public String toString() {
+              return "is equal ignoring case to";
+            }
+          });
+
+  private enum StringLength implements Function<String, Integer> {
+    INSTANCE;
+
+    @Override
+    public Integer apply(String input) {
+      return input.length();
+    }
+  }
+
+  @Test
+  public void testKeyed_compare() {
+    assertThat(EQUAL_IGNORING_CASE_KEYED_BY_LENGTH.compare("abc", "ABC")).isTrue();
+    assertThat(EQUAL_IGNORING_CASE_KEYED_BY_LENGTH.compare("abc", "ABD")).isFalse();
+    assertThat(EQUAL_IGNORING_CASE_KEYED_BY_LENGTH.compare("abc", "ABCD")).isFalse();
+  }
+
+  @Test
+  public void testKeyed_toString() {
+    assertThat(EQUAL_IGNORING_CASE_KEYED_BY_LENGTH.toString())
+        .isEqualTo("is equal ignoring case to");
+  }
+
+  @Test
+  public void testKeyed_viaIterableSubjectContainsExactly_failure() {
+    try {
+      assertThat(ImmutableList.of("abc", "de", "f"))
+          .comparingElementsUsing(EQUAL_IGNORING_CASE_KEYED_BY_LENGTH)
+          .containsExactly("F", "ABC", "xy");
+      fail("Expected AssertionError to be thrown but wasn't");
+    } catch (AssertionError expected) {
+      assertThat(expected)
+          .hasMessage(
+              "Not true that <[abc, de, f]> contains exactly one element that is equal ignoring "
+                  + "case to each element of <[F, ABC, xy]>. It is missing an element that is "
+                  + "equal ignoring case to <xy> and has unexpected elements <[de]>");
+    }
+  }
+
+  // Tests of the transforming factory method.
+
+  /** Lower-cases strings, counting how many it has lower-cased. */
+  private static final class CountingLowerCase implements Function<String, String> {
+    int count;
+
+    @Override
+    public String apply(String input) {
+      count++;
+      return Ascii.toLowerCase(input);
+    }
+  }
+
+  private static final Correspondence<String, String> EQUAL_IGNORING_CASE =
+      Correspondence.transforming(
+          new CountingLowerCase(), new CountingLowerCase(), "is equal ignoring case to");
+
+  @Test
+  public void testTransforming_compare() {
+    assertThat(EQUAL_IGNORING_CASE.compare("abc", "ABC")).isTrue();
+    assertThat(EQUAL_IGNORING_CASE.compare("abc", "ABD")).isFalse();
+  }
+
+  @Test
+  public void testTransforming_toString() {
+    assertThat(EQUAL_IGNORING_CASE.toString()).isEqualTo("is equal ignoring case to");
+  }
+
+  @Test
+  public void testTransforming_viaIterableSubjectContainsExactly_transformsEachElementOnce() {
+    List<String> actual = Lists.newArrayList();
+    List<String> expected = Lists.newArrayList();
+    for (int i = 0; i < 1000; i++) {
+      actual.add("ABC" + i);
+      expected.add("abc" + (999 - i));
+    }
+    CountingLowerCase actualTransform = new CountingLowerCase();
+    CountingLowerCase expectedTransform = new CountingLowerCase();
+    Correspondence<String, String> correspondence =
+        Correspondence.transforming(
+            actualTransform, expectedTransform, "is equal ignoring case to");
+    assertThat(actual).comparingElementsUsing(correspondence).containsExactlyElementsIn(expected);
+    // Once per element, plus once for each of the first elements in the initial check for the
+    // elements being in order.
+    assertThat(actualTransform.count).isAtMost(1001);
+    assertThat(expectedTransform.count).isAtMost(1001);
+  }
+
+  @Test
+  public void testTransforming_viaIterableSubjectContains_transformsExpectedOnce() {
+    List<String> actual = Lists.newArrayList();
+    for (int i = 0; i < 1000; i++) {
+      actual.add("ABC" + i);
+    }
+    CountingLowerCase actualTransform = new CountingLowerCase();
+    CountingLowerCase expectedTransform = new CountingLowerCase();
+    Correspondence<String, String> correspondence =
+        Correspondence.transforming(
+            actualTransform, expectedTransform, "is equal ignoring case to");
+    assertThat(actual).comparingElementsUsing(correspondence).contains("abc999");
+    assertThat(actual).comparingElementsUsing(correspondence).doesNotContain("xyz");
+    assertThat(expectedTransform.count).isEqualTo(2);
+    assertThat(actualTransform.count).isEqualTo(2000);
+  }
+
+  @Test
+  public void testTransforming_viaIterableSubjectContainsExactly_failure() {
+    try {
+      assertThat(ImmutableList.of("abc", "de", "f"))
+          .comparingElementsUsing(EQUAL_IGNORING_CASE)
+          .containsExactly("F", "ABC", "xy");
+      fail("Expected AssertionError to be thrown but wasn't");
+    } catch (AssertionError expected) {
+      assertThat(expected)
+          .hasMessage(
+              "Not true that <[abc, de, f]> contains exactly one element that is equal ignoring "
+                  + "case to each element of <[F, ABC, xy]>. It is missing an element that is "
+                  + "equal ignoring case to <xy> and has unexpected elements <[de]>");
+    }
+  }
 }
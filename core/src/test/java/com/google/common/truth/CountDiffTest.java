@@ -0,0 +1,91 @@
+/*
+ * Copyright (c) 2017 Google, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.common.truth;
+
+import static com.google.common.truth.Truth.assertThat;
+import static com.google.common.truth.Truth.assertWithMessage;
+
+import com.google.common.collect.ImmutableMultiset;
+import com.google.common.collect.LinkedHashMultiset;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Multiset;
+import com.google.common.collect.TreeMultiset;
+import java.util.Random;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** Tests for {@link CountDiff}. */
+@RunWith(JUnit4.class)
+public final class CountDiffTest {
+
+  @Test
+  public void between_agreesWithMultisetDiff() {
+    Random rng = new Random(0x5eed);
+    for (int trial = 0; trial < 1000; trial++) {
+      Multiset<Integer> actual = randomMultiset(rng);
+      Multiset<Integer> expected = randomMultiset(rng);
+      CountDiff diff = CountDiff.between(actual, expected, true);
+      MultisetDiff naive = MultisetDiff.between(Lists.newArrayList(actual), expected);
+      String description = actual + " against " + expected;
+
+      assertWithMessage(description)
+          .that(Lists.newArrayList(diff.missing()))
+          .isEqualTo(naive.missing());
+      assertWithMessage(description)
+          .that(Lists.newArrayList(diff.extra()))
+          .isEqualTo(naive.extra());
+      assertWithMessage(description)
+          .that(Lists.newArrayList(CountDiff.between(actual, expected, false).missing()))
+          .isEqualTo(naive.missing());
+    }
+  }
+
+  @Test
+  public void between_sortedMultisetWithNullElement() {
+    Multiset<String> expected = LinkedHashMultiset.create();
+    expected.add(null);
+    Multiset<String> actual = TreeMultiset.create(ImmutableMultiset.of("a"));
+    CountDiff diff = CountDiff.between(actual, expected, true);
+    assertThat(diff.missing()).containsExactly((Object) null);
+    assertThat(diff.extra()).containsExactly("a");
+  }
+
+  @Test
+  public void inSameOrder() {
+    assertThat(CountDiff.inSameOrder(ImmutableMultiset.of(1, 1, 2), ImmutableMultiset.of(1, 2, 1)))
+        .isTrue();
+    assertThat(CountDiff.inSameOrder(ImmutableMultiset.of(1, 1, 2), ImmutableMultiset.of(2, 1, 1)))
+        .isFalse();
+  }
+
+  @Test
+  public void containsInOrder() {
+    ImmutableMultiset<Integer> actual = ImmutableMultiset.of(1, 1, 2, 3, 3);
+    assertThat(CountDiff.containsInOrder(actual, ImmutableMultiset.of(1, 3))).isTrue();
+    assertThat(CountDiff.containsInOrder(actual, ImmutableMultiset.of(3, 1))).isFalse();
+    assertThat(CountDiff.containsInOrder(actual, ImmutableMultiset.of(4))).isFalse();
+  }
+
+  private static Multiset<Integer> randomMultiset(Random rng) {
+    Multiset<Integer> multiset = LinkedHashMultiset.create();
+    int distinct = rng.nextInt(6);
+    for (int i = 0; i < distinct; i++) {
+      multiset.add(rng.nextInt(8), 1 + rng.nextInt(3));
+    }
+    return multiset;
+  }
+}
@@ -0,0 +1,161 @@
+/*
+ * Copyright (c) 2017 Google, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.common.truth;
+
+import static com.google.common.truth.Truth.assertThat;
+import static com.google.common.truth.Truth.assertWithMessage;
+import static java.util.Arrays.asList;
+import static org.junit.Assert.fail;
+
+import com.google.common.collect.Sets;
+import com.google.common.primitives.Longs;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** Tests for {@link Duplicates}. */
+@RunWith(JUnit4.class)
+public final class DuplicatesTest {
+
+  private static final long[] SPECIAL_VALUES = {
+    0, -1, 1, Long.MIN_VALUE, Long.MAX_VALUE, Integer.MIN_VALUE, Integer.MAX_VALUE
+  };
+
+  @Test
+  public void exist_agreesWithHashSet() {
+    ExecutorService executor = Executors.newFixedThreadPool(4);
+    try {
+      Random rng = new Random(0x5eed);
+      for (int trial = 0; trial < 500; trial++) {
+        long[] values = randomValues(rng);
+        List<Long> boxed = Longs.asList(values);
+        boolean expected = Sets.newHashSet(boxed).size() < values.length;
+
+        String description = Arrays.toString(values);
+        assertWithMessage(description)
+            .that(Duplicates.exist(Duplicates.of(values)))
+            .isEqualTo(expected);
+        assertWithMessage(description)
+            .that(Duplicates.exist(Duplicates.ofIntegral(boxed)))
+            .isEqualTo(expected);
+        assertWithMessage(description)
+            .that(Duplicates.exist(Duplicates.of(values), executor, 8))
+            .isEqualTo(expected);
+        assertWithMessage(description).that(Duplicates.exist(boxed)).isEqualTo(expected);
+        assertWithMessage(description)
+            .that(Duplicates.exist(boxed, executor, 8))
+            .isEqualTo(expected);
+      }
+    } finally {
+      executor.shutdown();
+    }
+  }
+
+  @Test
+  public void exist_manyDistinctValues() {
+    int[] values = new int[100000];
+    for (int i = 0; i < values.length; i++) {
+      values[i] = i * 1024;
+    }
+    assertThat(Duplicates.exist(Duplicates.of(values))).isFalse();
+    values[values.length - 1] = 0;
+    assertThat(Duplicates.exist(Duplicates.of(values))).isTrue();
+  }
+
+  @Test
+  public void exist_inParallel_hashesEachElementAtMostTwice() {
+    final AtomicInteger hashCodeCalls = new AtomicInteger();
+    List<Object> elements = new ArrayList<Object>();
+    for (int i = 0; i < 10000; i++) {
+      final int value = i;
+      elements.add(
+          new Object() {
+            @Override
+            public int hashCode() {
+              hashCodeCalls.incrementAndGet();
+              return value;
+            }
+          });
+    }
+    ExecutorService executor = Executors.newFixedThreadPool(4);
+    try {
+      assertThat(Duplicates.exist(elements, executor, 64)).isFalse();
+    } finally {
+      executor.shutdown();
+    }
+    // Once to find its partition, and once to add it to its partition's hash set.
+    assertThat(hashCodeCalls.get()).isEqualTo(2 * elements.size());
+  }
+
+  @Test
+  public void exist_inParallel_rethrowsWhenHashCodeThrows() {
+    Object unhashable =
+        new Object() {
+          @Override
+          public int hashCode() {
+            throw new UnsupportedOperationException("unhashable");
+          }
+        };
+    ExecutorService executor = Executors.newFixedThreadPool(4);
+    try {
+      try {
+        Duplicates.exist(asList(1, 2, unhashable, 3), executor, 8);
+        fail("Should have thrown.");
+      } catch (UnsupportedOperationException e) {
+        assertThat(e).hasMessage("unhashable");
+      }
+      assertThat(Duplicates.exist(asList(1, 2, unhashable, 1), executor, 8)).isTrue();
+    } finally {
+      executor.shutdown();
+    }
+  }
+
+  @Test
+  public void exist_chars() {
+    assertThat(Duplicates.exist(Duplicates.of(new char[] {'a', 'b', '\0'}))).isFalse();
+    assertThat(Duplicates.exist(Duplicates.of(new char[] {'a', 'b', 'a'}))).isTrue();
+  }
+
+  @Test
+  public void ofIntegral() {
+    assertThat(Duplicates.ofIntegral(asList((short) 1, (short) 2))).isNotNull();
+    assertThat(Duplicates.ofIntegral(asList('a', 'b'))).isNotNull();
+    // Equal values of different types aren't equal elements.
+    assertThat(Duplicates.ofIntegral(asList(1, 2, 2L))).isNull();
+    assertThat(Duplicates.ofIntegral(asList(1, null))).isNull();
+    assertThat(Duplicates.ofIntegral(asList(1.0, 2.0))).isNull();
+    assertThat(Duplicates.ofIntegral(asList())).isNull();
+  }
+
+  private static long[] randomValues(Random rng) {
+    long[] values = new long[1 + rng.nextInt(40)];
+    int range = 1 + rng.nextInt(100);
+    for (int i = 0; i < values.length; i++) {
+      values[i] =
+          rng.nextInt(4) == 0
+              ? SPECIAL_VALUES[rng.nextInt(SPECIAL_VALUES.length)]
+              : rng.nextInt(range) * 31L;
+    }
+    return values;
+  }
+}
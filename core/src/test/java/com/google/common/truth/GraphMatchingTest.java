@@ -16,7 +16,10 @@
 package com.google.common.truth;
 
 import static com.google.common.truth.GraphMatching.maximumCardinalityBipartiteMatching;
+import static com.google.common.truth.GraphMatching.maximumCardinalityBipartiteMatchingOfIndexes;
+import static com.google.common.truth.Truth.assertThat;
 import static com.google.common.truth.Truth.assertWithMessage;
+import static com.google.common.util.concurrent.MoreExecutors.directExecutor;
 import static org.junit.Assert.fail;
 
 import com.google.common.base.Preconditions;
@@ -32,6 +35,8 @@ import java.util.BitSet;
 import java.util.Deque;
 import java.util.Map;
 import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.junit.runners.JUnit4;
@@ -129,6 +134,110 @@ public final class GraphMatchingTest {
     }
   }
 
+  @Test
+  public void maximumCardinalityBipartiteMatchingOfIndexes_longChainOfForcedMatches() {
+    // Each LHS vertex but the last has edges to the RHS vertex with the next index and the one
+    // with the same index, and the last only has an edge to the RHS vertex with the same index.
+    // Matching the last pair leaves the previous LHS vertex with only one possible partner, and so
+    // on all the way back along the chain.
+    int size = 100000;
+    ImmutableListMultimap.Builder<Integer, Integer> edges = ImmutableListMultimap.builder();
+    for (int i = 0; i < size - 1; i++) {
+      edges.put(i, i + 1);
+      edges.put(i, i);
+    }
+    edges.put(size - 1, size - 1);
+    ImmutableBiMap<Integer, Integer> matching =
+        maximumCardinalityBipartiteMatchingOfIndexes(edges.build());
+    assertThat(matching).hasSize(size);
+    for (int i = 0; i < size; i++) {
+      assertThat(matching).containsEntry(i, i);
+    }
+  }
+
+  @Test
+  public void maximumCardinalityBipartiteMatchingOfIndexes_longAugmentingPath() {
+    // As above, but with each vertex doubled, so that no vertex ever has only one possible partner.
+    // Matching greedily pairs each LHS vertex with an RHS vertex at the next position, leaving the
+    // two LHS vertices at the last position unmatched, so the full algorithm has to flip two paths
+    // which run all the way back along the chain. A recursive search would overflow the stack on a
+    // chain this long.
+    int positions = 50000;
+    ImmutableListMultimap.Builder<Integer, Integer> edges = ImmutableListMultimap.builder();
+    for (int position = 0; position < positions; position++) {
+      for (int lhs = 2 * position; lhs < 2 * position + 2; lhs++) {
+        if (position < positions - 1) {
+          edges.put(lhs, 2 * position + 2);
+          edges.put(lhs, 2 * position + 3);
+        }
+        edges.put(lhs, 2 * position);
+        edges.put(lhs, 2 * position + 1);
+      }
+    }
+    ImmutableBiMap<Integer, Integer> matching =
+        maximumCardinalityBipartiteMatchingOfIndexes(edges.build());
+    assertThat(matching).hasSize(2 * positions);
+    for (int lhs = 0; lhs < 2 * positions; lhs++) {
+      assertThat(matching.get(lhs) / 2).isEqualTo(lhs / 2);
+    }
+  }
+
+  @Test
+  public void maximumCardinalityBipartiteMatchingOfIndexes_manyComponentsInParallel()
+      throws Exception {
+    // Many small components, most of which need the full algorithm after the greedy matching.
+    Random rng = new Random(0xc0ffee);
+    ImmutableListMultimap.Builder<Integer, Integer> edges = ImmutableListMultimap.builder();
+    ImmutableListMultimap.Builder<String, String> stringEdges = ImmutableListMultimap.builder();
+    int componentCount = 500;
+    for (int component = 0; component < componentCount; component++) {
+      BitSet bits = randomBits(4 * 4, 0.4, rng);
+      for (int lhs = 0; lhs < 4; lhs++) {
+        for (int rhs = 0; rhs < 4; rhs++) {
+          if (bits.get(lhs * 4 + rhs)) {
+            edges.put(4 * component + lhs, 4 * component + rhs);
+            stringEdges.put("L" + (4 * component + lhs), "R" + (4 * component + rhs));
+          }
+        }
+      }
+    }
+    ImmutableBiMap<Integer, Integer> sequential =
+        maximumCardinalityBipartiteMatchingOfIndexes(edges.build());
+    ExecutorService executor = Executors.newFixedThreadPool(4);
+    try {
+      ImmutableBiMap<Integer, Integer> parallel =
+          maximumCardinalityBipartiteMatchingOfIndexes(edges.build(), executor);
+      assertThat(parallel).isEqualTo(sequential);
+    } finally {
+      executor.shutdown();
+    }
+    assertThat(sequential)
+        .hasSize(maximumCardinalityBipartiteMatching(stringEdges.build()).size());
+  }
+
+  @Test
+  public void maximumCardinalityBipartiteMatching_indexes() {
+    int[] edgeStarts = {0, 2, 3, 3, 5};
+    int[] edgeTargets = {0, 1, 0, 1, 2};
+    int[] matching = GraphMatching.maximumCardinalityBipartiteMatching(edgeStarts, edgeTargets, 4);
+    assertThat(matching).hasLength(4);
+    assertThat(matching[2]).isEqualTo(GraphMatching.UNMATCHED);
+    assertThat(matching[1]).isEqualTo(0);
+    assertThat(matching[0]).isEqualTo(1);
+    assertThat(matching[3]).isEqualTo(2);
+  }
+
+  @Test
+  public void maximumCardinalityBipartiteMatchingOfIndexes_failsWithNegativeIndex() {
+    ListMultimap<Integer, Integer> edges = LinkedListMultimap.create();
+    edges.put(0, -1);
+    try {
+      BiMap<Integer, Integer> unused = maximumCardinalityBipartiteMatchingOfIndexes(edges);
+      fail("Should have thrown.");
+    } catch (IllegalArgumentException expected) {
+    }
+  }
+
   /** Representation of a bipartite graph to be used for testing. */
   private static class TestInstance {
 
@@ -185,21 +294,16 @@ public final class GraphMatchingTest {
      * bipartite matching found by a brute-force approach.
      */
     void testAgainstBruteForce() {
-      ImmutableBiMap<String, String> actual = maximumCardinalityBipartiteMatching(edges);
-      for (Map.Entry<String, String> entry : actual.entrySet()) {
+      ImmutableBiMap<String, String> expected = bruteForceMaximalMatching();
+      for (ImmutableBiMap<String, String> actual : matchingsUnderTest()) {
+        assertIsMatching(actual);
         assertWithMessage(
-                "The returned bimap <%s> was not a matching of the bipartite graph <%s>",
-                actual, edges)
-            .that(edges)
-            .containsEntry(entry.getKey(), entry.getValue());
+                "The returned matching for the bipartite graph <%s> was not the same size as "
+                    + "the brute-force maximal matching <%s>",
+                edges, expected)
+            .that(actual)
+            .hasSize(expected.size());
       }
-      ImmutableBiMap<String, String> expected = bruteForceMaximalMatching();
-      assertWithMessage(
-              "The returned matching for the bipartite graph <%s> was not the same size as "
-                  + "the brute-force maximal matching <%s>",
-              edges, expected)
-          .that(actual)
-          .hasSize(expected.size());
     }
 
     /**
@@ -207,7 +311,46 @@ public final class GraphMatchingTest {
      * actually a matching of this bipartite graph and that it has the expected size.
      */
     void testAgainstKnownSize(int expectedSize) {
-      ImmutableBiMap<String, String> actual = maximumCardinalityBipartiteMatching(edges);
+      for (ImmutableBiMap<String, String> actual : matchingsUnderTest()) {
+        assertIsMatching(actual);
+        assertWithMessage(
+                "The returned matching for the bipartite graph <%s> had the wrong size", edges)
+            .that(actual)
+            .hasSize(expectedSize);
+      }
+    }
+
+    /**
+     * Returns the matchings found by the methods under test: the generic one, and the one over
+     * indexes (with the vertices converted to and from indexes), both with and without an
+     * executor.
+     */
+    private ImmutableList<ImmutableBiMap<String, String>> matchingsUnderTest() {
+      ImmutableListMultimap.Builder<Integer, Integer> indexEdges = ImmutableListMultimap.builder();
+      for (Map.Entry<String, String> edge : edges.entries()) {
+        indexEdges.put(index(edge.getKey()), index(edge.getValue()));
+      }
+      ImmutableBiMap.Builder<String, String> indexed = ImmutableBiMap.builder();
+      for (Map.Entry<Integer, Integer> edge :
+          maximumCardinalityBipartiteMatchingOfIndexes(indexEdges.build()).entrySet()) {
+        indexed.put("L" + edge.getKey(), "R" + edge.getValue());
+      }
+      ImmutableBiMap.Builder<String, String> indexedWithExecutor = ImmutableBiMap.builder();
+      for (Map.Entry<Integer, Integer> edge :
+          maximumCardinalityBipartiteMatchingOfIndexes(indexEdges.build(), directExecutor())
+              .entrySet()) {
+        indexedWithExecutor.put("L" + edge.getKey(), "R" + edge.getValue());
+      }
+      return ImmutableList.of(
+          maximumCardinalityBipartiteMatching(edges), indexed.build(), indexedWithExecutor.build());
+    }
+
+    private static int index(String vertex) {
+      return Integer.parseInt(vertex.substring(1));
+    }
+
+    /** Asserts that the given bimap is a matching of this bipartite graph. */
+    private void assertIsMatching(ImmutableBiMap<String, String> actual) {
       for (Map.Entry<String, String> entry : actual.entrySet()) {
         assertWithMessage(
                 "The returned bimap <%s> was not a matching of the bipartite graph <%s>",
@@ -215,10 +358,6 @@ public final class GraphMatchingTest {
             .that(edges)
             .containsEntry(entry.getKey(), entry.getValue());
       }
-      assertWithMessage(
-              "The returned matching for the bipartite graph <%s> had the wrong size", edges)
-          .that(actual)
-          .hasSize(expectedSize);
     }
 
     /**
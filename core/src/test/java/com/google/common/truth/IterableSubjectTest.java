@@ -22,12 +22,24 @@ import static com.google.common.truth.Truth.assertWithMessage;
 import static java.util.Arrays.asList;
 import static org.junit.Assert.fail;
 
+import com.google.common.base.Function;
+import com.google.common.base.Functions;
+import com.google.common.base.Predicate;
 import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.Iterables;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Ordering;
+import com.google.common.truth.IterableSubject.ElementCheck;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.Comparator;
 import java.util.Iterator;
+import java.util.LinkedList;
 import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import javax.annotation.Nullable;
 import org.junit.Test;
 import org.junit.runner.RunWith;
@@ -130,6 +142,23 @@ public class IterableSubjectTest {
     }
   }
 
+  @Test
+  public void iterableMembershipAfterChangeWithoutChangingSize() {
+    List<Integer> list = Lists.newArrayList(1, 2, 3);
+    IterableSubject subject = assertThat(list);
+    subject.doesNotContain(4);
+    subject.containsNoneOf(4, 5);
+    list.set(0, 4);
+    subject.contains(4);
+    try {
+      subject.containsNoneOf(4, 5);
+      fail("Should have thrown.");
+    } catch (AssertionError e) {
+      assertThat(e)
+          .hasMessage("Not true that <[4, 2, 3]> contains none of <[4, 5]>. It contains <[4]>");
+    }
+  }
+
   @Test
   public void doesNotContainDuplicates() {
     assertThat(asList(1, 2, 3)).containsNoDuplicates();
@@ -150,6 +179,17 @@ public class IterableSubjectTest {
     }
   }
 
+  @Test
+  public void doesNotContainDuplicatesNonIntegralFailure() {
+    try {
+      assertThat(asList("a", "b", "a", null, null)).containsNoDuplicates();
+      fail("Should have thrown.");
+    } catch (AssertionError e) {
+      assertThat(e)
+          .hasMessage("<[a, b, a, null, null]> has the following duplicates: <[a x 2, null x 2]>");
+    }
+  }
+
   @Test
   public void iterableContainsAnyOf() {
     assertThat(asList(1, 2, 3)).containsAnyOf(1, 5);
@@ -319,6 +359,66 @@ public class IterableSubjectTest {
     }
   }
 
+  @Test
+  public void iterableContainsAllOfInOrderWithDuplicatesFailure() {
+    try {
+      assertThat(asList("x", "y", "x")).containsAllOf("x", "x", "y").inOrder();
+      fail("Should have thrown.");
+    } catch (AssertionError e) {
+      assertThat(e)
+          .hasMessage("Not true that <[x, y, x]> contains all elements in order <[x, x, y]>");
+    }
+  }
+
+  @Test
+  public void iterableContainsAllOfWithElementsWithInconsistentHashCodes() {
+    InconsistentHashCode a = new InconsistentHashCode("a");
+    InconsistentHashCode otherA = new InconsistentHashCode("a");
+    InconsistentHashCode b = new InconsistentHashCode("b");
+    InconsistentHashCode otherB = new InconsistentHashCode("b");
+
+    assertThat(asList(a, b)).containsAllOf(otherA, otherB).inOrder();
+    assertThat(asList(a, b, a)).containsAllOf(otherB, otherA);
+
+    try {
+      assertThat(asList(a, b)).containsAllOf(otherA, otherA);
+      fail("Should have thrown.");
+    } catch (AssertionError e) {
+      assertThat(e)
+          .hasMessage("Not true that <[a, b]> contains all of <[a, a]>. It is missing <[a]>");
+    }
+  }
+
+  @Test
+  public void iterableContainsAllInWithManyElements() {
+    List<Integer> actual = Lists.newArrayList();
+    List<Integer> expected = Lists.newArrayList();
+    for (int i = 0; i < 20000; i++) {
+      actual.add(i % 1000);
+      if (i % 7 == 0) {
+        expected.add(i % 1000);
+      }
+    }
+    assertThat(actual).containsAllIn(expected).inOrder();
+
+    expected.add(0, 999);
+    try {
+      assertThat(actual).named("actual").containsAllIn(expected).inOrder();
+      fail("Should have thrown.");
+    } catch (AssertionError e) {
+      assertThat(e.getMessage()).startsWith("Not true that actual (<[");
+      assertThat(e.getMessage()).contains("contains all elements in order");
+    }
+
+    expected.add(1000);
+    try {
+      assertThat(actual).named("actual").containsAllIn(expected);
+      fail("Should have thrown.");
+    } catch (AssertionError e) {
+      assertThat(e.getMessage()).endsWith("It is missing <[1000]>");
+    }
+  }
+
   @Test
   public void iterableContainsAllOfInOrderWithOneShotIterable() {
     final Iterable<Object> iterable = Arrays.<Object>asList(2, 1, null, 4, "a", 3, "b");
@@ -512,6 +612,99 @@ public class IterableSubjectTest {
     }
   }
 
+  @Test
+  public void iterableContainsExactlyWithElementsWithInconsistentHashCodes() {
+    InconsistentHashCode a = new InconsistentHashCode("a");
+    InconsistentHashCode otherA = new InconsistentHashCode("a");
+    InconsistentHashCode b = new InconsistentHashCode("b");
+
+    assertThat(asList(a, b)).containsExactly(b, otherA);
+
+    try {
+      assertThat(asList(a, b, b)).containsExactly(otherA, a, b);
+      fail("Should have thrown.");
+    } catch (AssertionError e) {
+      assertThat(e)
+          .hasMessage(
+              "Not true that <[a, b, b]> contains exactly <[a, a, b]>. "
+                  + "It is missing <[a]> and has unexpected items <[b]>");
+    }
+  }
+
+  @Test
+  public void iterableContainsExactlyWithDuplicateElementsWithInconsistentHashCodesFailure() {
+    InconsistentHashCode a = new InconsistentHashCode("a");
+    InconsistentHashCode otherA = new InconsistentHashCode("a");
+
+    try {
+      assertThat(asList()).containsExactly(a, otherA);
+      fail("Should have thrown.");
+    } catch (AssertionError e) {
+      assertThat(e)
+          .hasMessage(
+              "Not true that <[]> contains exactly <[a, a]>. It is missing <[a [2 copies]]>");
+    }
+  }
+
+  @Test
+  public void iterableContainsExactlyWithManyDistinctMissingElementsFailure() {
+    List<Integer> expected = Lists.newArrayList();
+    for (int i = 0; i < 20000; i++) {
+      expected.add(i / 2);
+    }
+    try {
+      assertThat(ImmutableList.of(-1)).named("actual").containsExactlyElementsIn(expected);
+      fail("Should have thrown.");
+    } catch (AssertionError e) {
+      assertThat(e.getMessage()).contains("It is missing <[0 [2 copies], 1 [2 copies], ");
+      assertThat(e.getMessage()).endsWith(", 9999 [2 copies]]> and has unexpected items <[-1]>");
+    }
+  }
+
+  /** An object which is equal to others with the same name, but has an identity hash code. */
+  private static class InconsistentHashCode {
+    private final String name;
+
+    InconsistentHashCode(String name) {
+      this.name = name;
+    }
+
+    @Override
+    public boolean equals(Object other) {
+      return other instanceof InconsistentHashCode
+          && ((InconsistentHashCode) other).name.equals(name);
+    }
+
+    @Override
+    public int hashCode() {
+      return System.identityHashCode(this);
+    }
+
+    @Override
+    public String toString() {
+      return name;
+    }
+  }
+
+  @Test
+  public void iterableContainsExactlyWithManyElementsFailure() {
+    List<Integer> actual = Lists.newArrayList();
+    List<Integer> expected = Lists.newArrayList();
+    for (int i = 0; i < 10000; i++) {
+      actual.add(i);
+      expected.add(9999 - i);
+    }
+    actual.set(5000, -1);
+    expected.add(7);
+    try {
+      assertThat(actual).named("actual").containsExactlyElementsIn(expected);
+      fail("Should have thrown.");
+    } catch (AssertionError e) {
+      assertThat(e.getMessage())
+          .endsWith("It is missing <[5000, 7]> and has unexpected items <[-1]>");
+    }
+  }
+
   @Test
   public void iterableContainsExactlyElementsInInOrderPassesWithEmptyExpectedAndActual() {
     assertThat(ImmutableList.of()).containsExactlyElementsIn(ImmutableList.of()).inOrder();
@@ -733,7 +926,27 @@ public class IterableSubjectTest {
       assertThat(e)
           .hasMessage(
               "Not true that <[1, null, 3]> contains exactly these elements in order "
-                  + "<[null, 1, 3]>");
+                  + "<[null, 1, 3]>. The differences from the expected order are: <[null]> moved "
+                  + "from expected index 0 to actual index 1");
+    }
+  }
+
+  @Test
+  public void iterableContainsExactlyInOrderWithFailureDescribesMovedElements() {
+    List<Integer> expected = Lists.newArrayList();
+    for (int i = 0; i < 100000; i++) {
+      expected.add(i);
+    }
+    List<Integer> actual = Lists.newArrayList(expected);
+    actual.add(actual.remove(500));
+    try {
+      assertThat(actual).containsExactlyElementsIn(expected).inOrder();
+      fail("Should have thrown.");
+    } catch (AssertionError e) {
+      assertThat(e.getMessage())
+          .endsWith(
+              ". The differences from the expected order are: "
+                  + "<[500]> moved from expected index 500 to actual index 99999");
     }
   }
 
@@ -861,6 +1074,238 @@ public class IterableSubjectTest {
     }
   }
 
+  @Test
+  public void inParallel_isOrdered() {
+    ExecutorService executor = Executors.newFixedThreadPool(4);
+    try {
+      List<Integer> elements = Lists.newArrayList();
+      for (int i = 0; i < 10000; i++) {
+        elements.add(i / 2);
+      }
+      assertThat(elements).inParallel(executor).isOrdered();
+      assertThat(new LinkedList<Integer>(elements)).inParallel(executor).isOrdered();
+      assertThat(asList()).inParallel(executor).isStrictlyOrdered();
+      assertThat(asList(1)).inParallel(executor).isStrictlyOrdered();
+      try {
+        assertThat(elements).inParallel(executor).isStrictlyOrdered();
+        fail("Should have thrown.");
+      } catch (AssertionError e) {
+        assertThat(e.getMessage()).endsWith(" is strictly ordered <0> <0>");
+      }
+    } finally {
+      executor.shutdown();
+    }
+  }
+
+  @Test
+  public void inParallel_isOrderedReportsFirstFailure() {
+    ExecutorService executor = Executors.newFixedThreadPool(4);
+    try {
+      List<Integer> elements = Lists.newArrayList();
+      for (int i = 0; i < 10000; i++) {
+        elements.add(i);
+      }
+      Collections.swap(elements, 2000, 2001);
+      Collections.swap(elements, 8000, 8001);
+      for (int attempt = 0; attempt < 10; attempt++) {
+        try {
+          assertThat(elements).inParallel(executor).isOrdered(Ordering.natural());
+          fail("Should have thrown.");
+        } catch (AssertionError e) {
+          assertThat(e.getMessage()).endsWith(" is ordered <2001> <2000>");
+        }
+      }
+    } finally {
+      executor.shutdown();
+    }
+  }
+
+  @Test
+  public void inParallel_containsNoDuplicates() {
+    ExecutorService executor = Executors.newFixedThreadPool(4);
+    try {
+      List<Integer> integers = Lists.newArrayList();
+      List<String> strings = Lists.newArrayList();
+      for (int i = 0; i < 10000; i++) {
+        integers.add(i);
+        strings.add("s" + i);
+      }
+      assertThat(integers).inParallel(executor).containsNoDuplicates();
+      assertThat(strings).inParallel(executor).containsNoDuplicates();
+      assertThat(new LinkedList<String>(strings)).inParallel(executor).containsNoDuplicates();
+      assertThat(asList()).inParallel(executor).containsNoDuplicates();
+      integers.set(5000, 7);
+      try {
+        assertThat(integers).inParallel(executor).containsNoDuplicates();
+        fail("Should have thrown.");
+      } catch (AssertionError e) {
+        assertThat(e.getMessage()).endsWith(" has the following duplicates: <[7 x 2]>");
+      }
+      strings.set(5000, "s7");
+      try {
+        assertThat(strings).inParallel(executor).containsNoDuplicates();
+        fail("Should have thrown.");
+      } catch (AssertionError e) {
+        assertThat(e.getMessage()).endsWith(" has the following duplicates: <[s7 x 2]>");
+      }
+    } finally {
+      executor.shutdown();
+    }
+  }
+
+  @Test
+  public void inParallel_isOrderedWithNonComparableElements() {
+    ExecutorService executor = Executors.newFixedThreadPool(4);
+    try {
+      List<Object> elements = Lists.newArrayList();
+      for (int i = 0; i < 1000; i++) {
+        elements.add(i);
+      }
+      elements.set(900, "900");
+      try {
+        assertThat(elements).inParallel(executor).isOrdered();
+        fail("Should have thrown.");
+      } catch (ClassCastException expected) {
+      }
+      // A pair out of order before the elements which can't be compared is reported instead.
+      Collections.swap(elements, 100, 101);
+      try {
+        assertThat(elements).inParallel(executor).isOrdered();
+        fail("Should have thrown.");
+      } catch (AssertionError e) {
+        assertThat(e.getMessage()).endsWith(" is ordered <101> <100>");
+      }
+    } finally {
+      executor.shutdown();
+    }
+  }
+
+  private static final Predicate<Integer> IS_EVEN =
+      new Predicate<Integer>() {
+        @Override
+        public boolean apply(Integer input) {
+          return input % 2 == 0;
+        }
+
+        @Override
+        public String toString() {
+          return "is even";
+        }
+      };
+
+  private static final ElementCheck<Integer> IS_POSITIVE =
+      new ElementCheck<Integer>() {
+        @Override
+        public void check(TestVerb verb, Integer element) {
+          verb.that(element).isGreaterThan(0);
+        }
+      };
+
+  @Test
+  public void eachElement_success() {
+    assertThat(asList(2, 4, 6)).eachElement().matches(IS_EVEN);
+    assertThat(asList(1, 2, 3)).eachElement().satisfies(IS_POSITIVE);
+    assertThat(asList()).eachElement().satisfies(IS_POSITIVE);
+  }
+
+  @Test
+  public void eachElement_matchesFailure() {
+    try {
+      assertThat(asList(2, 3, 4, 5)).eachElement().matches(IS_EVEN);
+      fail("Should have thrown.");
+    } catch (AssertionError e) {
+      assertThat(e)
+          .hasMessage(
+              "Not true that <[2, 3, 4, 5]> has each element matching <is even>. "
+                  + "2 elements failed:\n  at index 1: <3>\n  at index 3: <5>");
+    }
+  }
+
+  @Test
+  public void eachElement_satisfiesFailure() {
+    try {
+      assertThat(asList(1, -2, 3)).eachElement().satisfies(IS_POSITIVE);
+      fail("Should have thrown.");
+    } catch (AssertionError e) {
+      assertThat(e)
+          .hasMessage(
+              "Not true that <[1, -2, 3]> has each element satisfying the check. "
+                  + "1 element failed:\n  at index 1: Not true that <-2> is greater than <0>");
+    }
+  }
+
+  @Test
+  public void eachElement_reportingAtMost() {
+    try {
+      assertThat(asList(-1, -2, -3, 4)).eachElement().reportingAtMost(2).satisfies(IS_POSITIVE);
+      fail("Should have thrown.");
+    } catch (AssertionError e) {
+      assertThat(e)
+          .hasMessage(
+              "Not true that <[-1, -2, -3, 4]> has each element satisfying the check. "
+                  + "3 elements failed, the first 2 of which were:"
+                  + "\n  at index 0: Not true that <-1> is greater than <0>"
+                  + "\n  at index 1: Not true that <-2> is greater than <0>");
+    }
+  }
+
+  @Test
+  public void eachElement_inParallel() {
+    ExecutorService executor = Executors.newFixedThreadPool(4);
+    try {
+      List<Integer> elements = Lists.newArrayList();
+      for (int i = 0; i < 1000; i++) {
+        elements.add(i * 2);
+      }
+      assertThat(elements).eachElement().inParallel(executor).matches(IS_EVEN);
+      assertThat(ImmutableSet.of()).eachElement().inParallel(executor).matches(IS_EVEN);
+
+      elements.set(700, 1);
+      elements.set(100, 3);
+      elements.set(900, 5);
+      for (int attempt = 0; attempt < 10; attempt++) {
+        try {
+          assertThat(elements)
+              .eachElement()
+              .inParallel(executor)
+              .reportingAtMost(2)
+              .matches(IS_EVEN);
+          fail("Should have thrown.");
+        } catch (AssertionError e) {
+          assertThat(e.getMessage())
+              .endsWith(
+                  " has each element matching <is even>. 3 elements failed, the first 2 of which "
+                      + "were:\n  at index 100: <3>\n  at index 700: <1>");
+        }
+      }
+    } finally {
+      executor.shutdown();
+    }
+  }
+
+  @Test
+  public void eachElement_rethrowsFirstException() {
+    ExecutorService executor = Executors.newFixedThreadPool(4);
+    try {
+      List<Integer> elements = Lists.newArrayList();
+      for (int i = 0; i < 1000; i++) {
+        elements.add(i % 2 == 0 ? i : null);
+      }
+      try {
+        assertThat(elements).eachElement().inParallel(executor).matches(IS_EVEN);
+        fail("Should have thrown.");
+      } catch (NullPointerException expected) {
+      }
+      try {
+        assertThat(asList(2, null)).eachElement().matches(IS_EVEN);
+        fail("Should have thrown.");
+      } catch (NullPointerException expected) {
+      }
+    } finally {
+      executor.shutdown();
+    }
+  }
+
   @Test
   public void iterableIsStrictlyOrderedWithComparator() {
     Iterable<String> emptyStrings = asList();
@@ -900,6 +1345,271 @@ public class IterableSubjectTest {
     }
   }
 
+  @Test
+  public void streaming_passes() {
+    assertThat(oneShot()).streaming().isEmpty();
+    assertThat(oneShot(1)).streaming().isNotEmpty();
+    assertThat(oneShot(1, 2, 3)).streaming().hasSize(3);
+    assertThat(oneShot(1, 2, 3)).streaming().contains(2);
+    assertThat(oneShot(1, 2, 3)).streaming().doesNotContain(4);
+    assertThat(oneShot(1, 2, 3)).streaming().containsNoDuplicates();
+    assertThat(oneShot(1, 2, 3)).streaming().containsAnyOf(4, 3);
+    assertThat(oneShot(1, 2, 3)).streaming().containsNoneOf(4, 5);
+    assertThat(oneShot(1, 2, 2, 3)).streaming().containsAllOf(2, 3, 2);
+    assertThat(oneShot(1, 2, 2, 3)).streaming().containsAllOf(1, 2, 3).inOrder();
+    assertThat(oneShot(1, null, 3)).streaming().containsExactly(3, null, 1);
+    assertThat(oneShot(1, null, 3)).streaming().containsExactly(1, null, 3).inOrder();
+    assertThat(oneShot(1, 1, 2)).streaming().isOrdered();
+    assertThat(oneShot(1, 2, 3)).streaming().isStrictlyOrdered();
+  }
+
+  @Test
+  public void streaming_stopsAsSoonAsOutcomeIsKnown() {
+    OneShotIterable<Integer> iterable = oneShot(1, 2, 3, 4, 5, 6);
+    assertThat(iterable).streaming().contains(2);
+    assertThat(iterable.read).isEqualTo(2);
+
+    iterable = oneShot(1, 2, 3, 4, 5, 6);
+    assertThat(iterable).streaming().containsAllOf(1, 3).inOrder();
+    assertThat(iterable.read).isEqualTo(3);
+
+    // An infinite iterable can be checked as long as the outcome is known after finitely many.
+    Iterable<Integer> infinite = Iterables.cycle(1, 2);
+    assertThat(infinite).streaming().isNotEmpty();
+    assertThat(infinite).streaming().containsAnyOf(2, 3);
+    try {
+      assertThat(infinite).streaming().hasSize(3);
+      fail("Should have thrown.");
+    } catch (AssertionError e) {
+      assertThat(e)
+          .hasMessage("Not true that <[1, 2, 1, 2, ...]> has a size of <3>. It is <at least 4>");
+    }
+  }
+
+  @Test
+  public void streaming_hasSizeFailure() {
+    try {
+      assertThat(oneShot(1, 2, 3)).streaming().hasSize(4);
+      fail("Should have thrown.");
+    } catch (AssertionError e) {
+      assertThat(e).hasMessage("Not true that <[1, 2, 3]> has a size of <4>. It is <3>");
+    }
+  }
+
+  @Test
+  public void streaming_isEmptyFailure() {
+    try {
+      assertThat(oneShot(1, 2, 3)).named("numbers").streaming().isEmpty();
+      fail("Should have thrown.");
+    } catch (AssertionError e) {
+      assertThat(e).hasMessage("Not true that numbers (<[1, ...]>) is empty");
+    }
+  }
+
+  @Test
+  public void streaming_doesNotContainFailure() {
+    try {
+      assertThat(oneShot(1, 2, 3)).streaming().doesNotContain(2);
+      fail("Should have thrown.");
+    } catch (AssertionError e) {
+      assertThat(e).hasMessage("<[1, 2, ...]> should not have contained <2>");
+    }
+  }
+
+  @Test
+  public void streaming_containsNoDuplicatesFailure() {
+    try {
+      assertThat(oneShot("a", "b", "a", "b")).streaming().containsNoDuplicates();
+      fail("Should have thrown.");
+    } catch (AssertionError e) {
+      assertThat(e).hasMessage("<[a, b, a, ...]> has a duplicate: <a>");
+    }
+  }
+
+  @Test
+  public void streaming_containsNoDuplicatesWithElementsWithInconsistentHashCodes() {
+    InconsistentHashCode a = new InconsistentHashCode("a");
+    InconsistentHashCode otherA = new InconsistentHashCode("a");
+    InconsistentHashCode b = new InconsistentHashCode("b");
+    assertThat(oneShot(a, b)).streaming().containsNoDuplicates();
+    try {
+      assertThat(oneShot(a, b, otherA)).streaming().containsNoDuplicates();
+      fail("Should have thrown.");
+    } catch (AssertionError e) {
+      assertThat(e).hasMessage("<[a, b, a]> has a duplicate: <a>");
+    }
+  }
+
+  @Test
+  public void streaming_containsNoneOfFailure() {
+    try {
+      assertThat(oneShot(1, 2, 3)).streaming().containsNoneOf(2, 3);
+      fail("Should have thrown.");
+    } catch (AssertionError e) {
+      assertThat(e)
+          .hasMessage("Not true that <[1, 2, ...]> contains none of <[2, 3]>. It contains <2>");
+    }
+  }
+
+  @Test
+  public void streaming_containsAllOfFailures() {
+    try {
+      assertThat(oneShot(1, 2, 3)).streaming().containsAllOf(4, 2, 4);
+      fail("Should have thrown.");
+    } catch (AssertionError e) {
+      assertThat(e)
+          .hasMessage(
+              "Not true that <[1, 2, 3]> contains all of <[4, 2, 4]>. "
+                  + "It is missing <[4 [2 copies]]>");
+    }
+    try {
+      assertThat(oneShot(1, 2, 3)).streaming().containsAllOf(3, 1).inOrder();
+      fail("Should have thrown.");
+    } catch (AssertionError e) {
+      assertThat(e)
+          .hasMessage("Not true that <[1, 2, 3]> contains all elements in order <[3, 1]>");
+    }
+  }
+
+  @Test
+  public void streaming_containsExactlyFailures() {
+    try {
+      assertThat(oneShot(1, 2, 3, 4)).streaming().containsExactly(1, 2);
+      fail("Should have thrown.");
+    } catch (AssertionError e) {
+      assertThat(e)
+          .hasMessage(
+              "Not true that <[1, 2, 3, ...]> contains exactly <[1, 2]>. "
+                  + "It has unexpected item <3>");
+    }
+    try {
+      assertThat(oneShot(1, 2)).streaming().containsExactly(1, 2, 2);
+      fail("Should have thrown.");
+    } catch (AssertionError e) {
+      assertThat(e)
+          .hasMessage("Not true that <[1, 2]> contains exactly <[1, 2, 2]>. It is missing <[2]>");
+    }
+    try {
+      assertThat(oneShot(1, 2)).streaming().containsExactly(2, 1).inOrder();
+      fail("Should have thrown.");
+    } catch (AssertionError e) {
+      assertThat(e)
+          .hasMessage(
+              "Not true that <[1, 2]> contains exactly these elements in order <[2, 1]>");
+    }
+    try {
+      assertThat(oneShot(1)).streaming().containsExactly();
+      fail("Should have thrown.");
+    } catch (AssertionError e) {
+      assertThat(e).hasMessage("Not true that <[1]> is empty");
+    }
+  }
+
+  @Test
+  public void streaming_manyElementsWithoutKnownReliableHashCodes() {
+    // Lists aren't known to hash reliably, but these are still found by hashing rather than by
+    // comparing each actual element with each expected element.
+    List<List<Integer>> actual = Lists.newArrayList();
+    List<List<Integer>> expected = Lists.newArrayList();
+    List<List<Integer>> excluded = Lists.newArrayList();
+    for (int i = 0; i < 100000; i++) {
+      actual.add(asList(i));
+      expected.add(asList(99999 - i));
+      excluded.add(asList(-1 - i));
+    }
+    assertThat(actual).streaming().containsExactlyElementsIn(expected);
+    assertThat(actual).streaming().containsAllIn(expected);
+    assertThat(actual).streaming().containsAnyIn(expected.subList(50000, 100000));
+    assertThat(actual).streaming().containsNoneIn(excluded);
+  }
+
+  @Test
+  public void streaming_elementsWithInconsistentOrThrowingHashCodes() {
+    InconsistentHashCode a = new InconsistentHashCode("a");
+    InconsistentHashCode otherA = new InconsistentHashCode("a");
+    InconsistentHashCode b = new InconsistentHashCode("b");
+    HashCodeThrower thrower = new HashCodeThrower();
+    assertThat(oneShot(a, b, thrower)).streaming().containsExactly(thrower, b, otherA);
+    assertThat(oneShot(a, b, thrower)).streaming().containsAllOf(otherA, thrower);
+    assertThat(oneShot(a, thrower)).streaming().containsAnyOf(otherA, b);
+    try {
+      assertThat(oneShot(a, b)).streaming().containsNoneOf(otherA, thrower);
+      fail("Should have thrown.");
+    } catch (AssertionError e) {
+      assertThat(e)
+          .hasMessage("Not true that <[a, ...]> contains none of <[a, HCT]>. It contains <a>");
+    }
+  }
+
+  @Test
+  public void streaming_isOrderedFailure() {
+    try {
+      assertThat(oneShot(1, 3, 2, 4)).streaming().isStrictlyOrdered();
+      fail("Should have thrown.");
+    } catch (AssertionError e) {
+      assertThat(e).hasMessage("Not true that <[1, 3, 2, ...]> is strictly ordered <3> <2>");
+    }
+  }
+
+  @Test
+  public void streaming_failureMessageOnlyShowsFirstElements() {
+    List<Integer> huge = Lists.newArrayList();
+    for (int i = 0; i < BoundedRendering.DEFAULT_MAX_ELEMENTS + 5; i++) {
+      huge.add(i);
+    }
+    try {
+      assertThat(oneShot(huge.toArray(new Integer[0]))).streaming().contains(-1);
+      fail("Should have thrown.");
+    } catch (AssertionError e) {
+      assertThat(e.getMessage()).endsWith(", 9999, ...]> should have contained <-1>");
+    }
+  }
+
+  private static <T> OneShotIterable<T> oneShot(T... elements) {
+    return new OneShotIterable<T>(asList(elements));
+  }
+
+  /** An iterable which may only be iterated once, and which counts the elements read from it. */
+  private static final class OneShotIterable<T> implements Iterable<T> {
+    private final Iterator<T> elements;
+    private boolean iterated;
+    int read;
+
+    OneShotIterable(Iterable<T> elements) {
+      this.elements = elements.iterator();
+    }
+
+    @Override
+    public Iterator<T> iterator() {
+      if (iterated) {
+        throw new IllegalStateException("Already iterated");
+      }
+      iterated = true;
+      return new Iterator<T>() {
+        @Override
+        public boolean hasNext() {
+          return elements.hasNext();
+        }
+
+        @Override
+        public T next() {
+          read++;
+          return elements.next();
+        }
+
+        @Override
+        public void remove() {
+          throw new UnsupportedOperationException();
+        }
+      };
+    }
+
+    @Override
+    public String toString() {
+      throw new UnsupportedOperationException("Can't print a one-shot iterable");
+    }
+  }
+
   private static final Comparator<String> COMPARE_AS_DECIMAL =
       new Comparator<String>() {
         @Override
@@ -1278,6 +1988,56 @@ public class IterableSubjectTest {
     }
   }
 
+  @Test
+  public void comparingElementsUsing_containsExactlyElementsIn_toleranceManyValues() {
+    List<Double> expected = Lists.newArrayList();
+    List<Double> actual = Lists.newArrayList();
+    for (int i = 0; i < 100000; i++) {
+      expected.add(i * 0.5);
+      actual.add(i * 0.5 + 0.01);
+    }
+    Collections.shuffle(actual, new Random(0));
+    assertThat(actual).comparingElementsUsing(tolerance(0.1)).containsExactlyElementsIn(expected);
+  }
+
+  @Test
+  public void comparingElementsUsing_containsExactlyElementsIn_toleranceFailsInOneToOne() {
+    try {
+      assertThat(ImmutableList.of(1.0, 3.0, 1.0))
+          .comparingElementsUsing(tolerance(0.1))
+          .containsExactly(3.0, 1.0, 3.0);
+      fail("Should have thrown.");
+    } catch (AssertionError e) {
+      assertThat(e)
+          .hasMessage(
+              "Not true that <[1.0, 3.0, 1.0]> contains exactly one element that is a finite "
+                  + "number within 0.1 of each element of <[3.0, 1.0, 3.0]>. It contains at "
+                  + "least one element that matches each expected element, and every element it "
+                  + "contains matches at least one expected element, but there was no 1:1 "
+                  + "mapping between all the actual and expected elements. Using the most "
+                  + "complete 1:1 mapping (or one such mapping, if there is a tie), it is missing "
+                  + "an element that is a finite number within 0.1 of <3.0> and has unexpected "
+                  + "elements <[1.0]>");
+    }
+  }
+
+  @Test
+  public void comparingElementsUsing_containsExactlyElementsIn_toleranceFailsNonFinite() {
+    try {
+      assertThat(ImmutableList.of(1.0, Double.NaN))
+          .comparingElementsUsing(tolerance(0.1))
+          .containsExactly(Double.NaN, 1.0);
+      fail("Should have thrown.");
+    } catch (AssertionError e) {
+      assertThat(e)
+          .hasMessage(
+              "Not true that <[1.0, NaN]> contains exactly one element that is a finite "
+                  + "number within 0.1 of each element of <[NaN, 1.0]>. It is missing an element "
+                  + "that is a finite number within 0.1 of <NaN> and has unexpected elements "
+                  + "<[NaN]>");
+    }
+  }
+
   @Test
   public void comparingElementsUsing_containsExactlyElementsIn_inOrder_failsOutOfOrder() {
     ImmutableList<Integer> expected = ImmutableList.of(64, 128, 256, 128);
@@ -1707,4 +2467,267 @@ public class IterableSubjectTest {
                   + "parses to each of <[null]>");
     }
   }
+
+  /**
+   * A keyed version of {@link #STRING_PARSES_TO_INTEGER_CORRESPONDENCE}, in which the key of an
+   * actual string is the integer it parses to (or null if it doesn't parse) and the key of an
+   * expected integer is itself.
+   */
+  private static Correspondence<String, Integer> keyedStringParsesToInteger(
+      Correspondence<String, Integer> correspondence) {
+    return Correspondence.keyed(
+        new Function<String, Integer>() {
+          @Override
+          public Integer apply(@Nullable String actual) {
+            try {
+              return actual == null ? null : Integer.decode(actual);
+            } catch (NumberFormatException e) {
+              return null;
+            }
+          }
+        },
+        Functions.<Integer>identity(),
+        correspondence);
+  }
+
+  private static final Correspondence<String, Integer> KEYED_STRING_PARSES_TO_INTEGER =
+      keyedStringParsesToInteger(STRING_PARSES_TO_INTEGER_CORRESPONDENCE);
+
+  /** A correspondence which delegates to another, counting the calls to {@link #compare}. */
+  static final class CountingCorrespondence<A, E> extends Correspondence<A, E> {
+    private final Correspondence<A, E> delegate;
+    int count;
+
+    CountingCorrespondence(Correspondence<A, E> delegate) {
+      this.delegate = delegate;
+    }
+
+    @Override
+    public boolean compare(@Nullable A actual, @Nullable E expected) {
+      count++;
+      return delegate.compare(actual, expected);
+    }
+
+    @Override
+    public String toString() {
+      return delegate.toString();
+    }
+  }
+
+  @Test
+  public void comparingElementsUsing_keyed_onlyComparesElementsWithEqualKeys() {
+    List<String> actual = Lists.newArrayList();
+    List<Integer> expected = Lists.newArrayList();
+    for (int i = 0; i < 1000; i++) {
+      actual.add("+" + i);
+      expected.add(999 - i);
+    }
+    CountingCorrespondence<String, Integer> counting =
+        new CountingCorrespondence<String, Integer>(STRING_PARSES_TO_INTEGER_CORRESPONDENCE);
+    Correspondence<String, Integer> keyed = keyedStringParsesToInteger(counting);
+
+    // Each expected element has a key equal to that of one actual element, so that's one call for
+    // each expected element, plus at most one in the initial check for the elements being in order.
+    assertThat(actual).comparingElementsUsing(keyed).containsExactlyElementsIn(expected);
+    assertThat(counting.count).isAtMost(1001);
+
+    counting.count = 0;
+    assertThat(actual).comparingElementsUsing(keyed).containsAllIn(expected.subList(0, 500));
+    assertThat(counting.count).isAtMost(501);
+
+    counting.count = 0;
+    assertThat(actual).comparingElementsUsing(keyed).containsAnyIn(asList(-1, -2, 500));
+    assertThat(counting.count).isEqualTo(1);
+
+    counting.count = 0;
+    assertThat(actual).comparingElementsUsing(keyed).containsNoneIn(asList(-1, -2, -3));
+    assertThat(counting.count).isEqualTo(0);
+  }
+
+  @Test
+  public void comparingElementsUsing_comparesEachPairAtMostOnce() {
+    CountingCorrespondence<String, Integer> counting =
+        new CountingCorrespondence<String, Integer>(STRING_PARSES_TO_INTEGER_CORRESPONDENCE);
+    ImmutableList<String> actual = ImmutableList.of("+1", "+2", "+3", "+4");
+
+    // The in-order check compares three of the pairs before finding that the elements are out of
+    // order, and those aren't compared again when comparing all 16 pairs.
+    assertThat(actual).comparingElementsUsing(counting).containsExactly(1, 2, 4, 3);
+    assertThat(counting.count).isEqualTo(16);
+
+    // Likewise, the in-order check compares four of the pairs and then runs out of actual elements.
+    counting.count = 0;
+    assertThat(actual).comparingElementsUsing(counting).containsAllOf(1, 4, 3);
+    assertThat(counting.count).isEqualTo(12);
+  }
+
+  @Test
+  public void comparingElementsUsing_keyed_containsExactlyElementsIn_failure() {
+    ImmutableList<Integer> expected = ImmutableList.of(64, 128, 256, 128);
+    ImmutableList<String> actual = ImmutableList.of("+128", "+64", "+256", "0x40");
+    try {
+      assertThat(actual)
+          .comparingElementsUsing(KEYED_STRING_PARSES_TO_INTEGER)
+          .containsExactlyElementsIn(expected);
+      fail("Expected failure");
+    } catch (AssertionError e) {
+      assertThat(e)
+          .hasMessage(
+              "Not true that <[+128, +64, +256, 0x40]> contains exactly one element that parses "
+                  + "to each element of <[64, 128, 256, 128]>. It contains at least one element "
+                  + "that matches each expected element, and every element it contains matches "
+                  + "at least one expected element, but there was no 1:1 mapping between all the "
+                  + "actual and expected elements. Using the most complete 1:1 mapping (or one "
+                  + "such mapping, if there is a tie), it is missing an element that parses to "
+                  + "<128> and has unexpected elements <[0x40]>");
+    }
+  }
+
+  @Test
+  public void comparingElementsUsing_keyed_containsAllIn_failure() {
+    ImmutableList<Integer> expected = ImmutableList.of(64, 128, 256, 512);
+    ImmutableList<String> actual = ImmutableList.of("+128", "+64", "+256", "0x40");
+    try {
+      assertThat(actual)
+          .comparingElementsUsing(KEYED_STRING_PARSES_TO_INTEGER)
+          .containsAllIn(expected);
+      fail("Expected failure");
+    } catch (AssertionError e) {
+      assertThat(e)
+          .hasMessage(
+              "Not true that <[+128, +64, +256, 0x40]> contains at least one element that parses "
+                  + "to each element of <[64, 128, 256, 512]>. It is missing an element that "
+                  + "parses to <512>");
+    }
+  }
+
+  @Test
+  public void comparingElementsUsing_keyed_containsAnyIn_failure() {
+    List<String> actual = asList("+128", "+64", "+256", null);
+    try {
+      assertThat(actual)
+          .comparingElementsUsing(KEYED_STRING_PARSES_TO_INTEGER)
+          .containsAnyIn(ImmutableList.of(255, 257));
+      fail("Expected failure");
+    } catch (AssertionError e) {
+      assertThat(e)
+          .hasMessage(
+              "Not true that <[+128, +64, +256, null]> contains at least one element that parses "
+                  + "to any element in <[255, 257]>");
+    }
+  }
+
+  @Test
+  public void comparingElementsUsing_keyed_containsNoneIn_failure() {
+    List<String> actual = asList("+128", "+64", "0x40", null);
+    List<Integer> excluded = asList(255, 64, null, 64);
+    try {
+      assertThat(actual)
+          .comparingElementsUsing(KEYED_STRING_PARSES_TO_INTEGER)
+          .containsNoneIn(excluded);
+      fail("Expected failure");
+    } catch (AssertionError e) {
+      assertThat(e)
+          .hasMessage(
+              "Not true that <[+128, +64, 0x40, null]> contains no element that parses to "
+                  + "any element in <[255, 64, null, 64]>. It contains at least one element that "
+                  + "parses to each of <[64, 64, null]>");
+    }
+  }
+
+  @Test
+  public void comparingElementsUsing_inParallel_containsExactlyElementsIn() {
+    ExecutorService executor = Executors.newFixedThreadPool(4);
+    try {
+      List<String> actual = Lists.newArrayList();
+      List<Integer> expected = Lists.newArrayList();
+      for (int i = 0; i < 300; i++) {
+        actual.add("+" + i);
+        expected.add(299 - i);
+      }
+      assertThat(actual)
+          .comparingElementsUsing(STRING_PARSES_TO_INTEGER_CORRESPONDENCE)
+          .inParallel(executor)
+          .containsExactlyElementsIn(expected);
+
+      actual.set(150, "0x40");
+      try {
+        assertThat(actual)
+            .named("actual")
+            .comparingElementsUsing(STRING_PARSES_TO_INTEGER_CORRESPONDENCE)
+            .inParallel(executor)
+            .containsExactlyElementsIn(expected);
+        fail("Expected failure");
+      } catch (AssertionError e) {
+        // 0x40 parses to 64, which is expected, so the only problem is the missing 150.
+        assertThat(e.getMessage()).endsWith(". It is missing an element that parses to <150>");
+      }
+    } finally {
+      executor.shutdown();
+    }
+  }
+
+  @Test
+  public void comparingElementsUsing_inParallel_containsAllIn_keyed() {
+    ExecutorService executor = Executors.newFixedThreadPool(4);
+    try {
+      List<String> actual = Lists.newArrayList();
+      for (int i = 0; i < 300; i++) {
+        actual.add("+" + i);
+      }
+      assertThat(actual)
+          .comparingElementsUsing(KEYED_STRING_PARSES_TO_INTEGER)
+          .inParallel(executor)
+          .containsAllOf(250, 50, 150);
+      try {
+        assertThat(actual)
+            .named("actual")
+            .comparingElementsUsing(KEYED_STRING_PARSES_TO_INTEGER)
+            .inParallel(executor)
+            .containsAllOf(250, 500, 150);
+        fail("Expected failure");
+      } catch (AssertionError e) {
+        assertThat(e.getMessage()).endsWith("It is missing an element that parses to <500>");
+      }
+    } finally {
+      executor.shutdown();
+    }
+  }
+
+  @Test
+  public void comparingElementsUsing_inParallel_rethrowsFirstException() {
+    ExecutorService executor = Executors.newFixedThreadPool(4);
+    try {
+      List<String> actual = Lists.newArrayList();
+      for (int i = 0; i < 300; i++) {
+        actual.add(i % 100 == 99 ? "throw " + i : "+" + i);
+      }
+      Correspondence<String, Integer> throwing =
+          new Correspondence<String, Integer>() {
+            @Override
+            public boolean compare(String actual, Integer expected) {
+              if (actual.startsWith("throw")) {
+                throw new IllegalStateException(actual);
+              }
+              return STRING_PARSES_TO_INTEGER_CORRESPONDENCE.compare(actual, expected);
+            }
+
+            @Override
+            public String toString() {
+              return "parses to";
+            }
+          };
+      try {
+        assertThat(actual)
+            .comparingElementsUsing(throwing)
+            .inParallel(executor)
+            .containsExactly(1, 2, 3);
+        fail("Expected exception");
+      } catch (IllegalStateException expected) {
+        assertThat(expected).hasMessage("throw 99");
+      }
+    } finally {
+      executor.shutdown();
+    }
+  }
 }
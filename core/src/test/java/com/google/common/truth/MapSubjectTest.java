@@ -21,7 +21,9 @@ import static org.junit.Assert.fail;
 
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.Maps;
+import com.google.common.truth.IterableSubjectTest.CountingCorrespondence;
 import java.util.Map;
+import java.util.TreeMap;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.junit.runners.JUnit4;
@@ -123,7 +125,7 @@ public class MapSubjectTest {
     } catch (AssertionError expected) {
       assertThat(expected)
           .hasMessage(
-              "Not true that <[jan=1, feb=2, march=3]> contains exactly <[jan=1, feb=2]>. "
+              "Not true that <{jan=1, feb=2, march=3}> contains exactly <{jan=1, feb=2}>. "
                   + "It has unexpected items <[march=3]>");
       return;
     }
@@ -141,7 +143,7 @@ public class MapSubjectTest {
     } catch (AssertionError expected) {
       assertThat(expected)
           .hasMessage(
-              "Not true that <[jan=1, feb=2, march=3]> contains exactly <[feb=2, jan=1]>. "
+              "Not true that <{jan=1, feb=2, march=3}> contains exactly <{feb=2, jan=1}>. "
                   + "It has unexpected items <[march=3]>");
       return;
     }
@@ -160,13 +162,96 @@ public class MapSubjectTest {
     } catch (AssertionError expected) {
       assertThat(expected)
           .hasMessage(
-              "Not true that <[jan=1, feb=2, march=3]> contains exactly these elements in order "
-                  + "<[jan=1, march=3, feb=2]>");
+              "Not true that <{jan=1, feb=2, march=3}> contains exactly "
+                  + "<{jan=1, march=3, feb=2}> in order. The keys are not in order "
+                  + "(<[march]> moved from expected index 1 to actual index 2)");
       return;
     }
     fail("Should have thrown.");
   }
 
+  @Test
+  public void containsExactlyWrongValues() {
+    ImmutableMap<String, Integer> actual = ImmutableMap.of("jan", 1, "feb", 2, "march", 3);
+    try {
+      assertThat(actual).containsExactly("jan", 1, "feb", 4, "march", 5, "april", 6);
+    } catch (AssertionError expected) {
+      assertThat(expected)
+          .hasMessage(
+              "Not true that <{jan=1, feb=2, march=3}> contains exactly "
+                  + "<{jan=1, feb=4, march=5, april=6}>. It is missing <[april=6]> and "
+                  + "has wrong values for keys <[feb, march]>: <[2, 3]> instead of <[4, 5]>");
+      return;
+    }
+    fail("Should have thrown.");
+  }
+
+  @Test
+  public void containsExactlyEntriesIn_keysOnlyEqualByComparator() {
+    TreeMap<String, Integer> caseInsensitive = Maps.newTreeMap(String.CASE_INSENSITIVE_ORDER);
+    caseInsensitive.put("jan", 1);
+    caseInsensitive.put("feb", 2);
+    try {
+      assertThat(caseInsensitive).containsExactlyEntriesIn(ImmutableMap.of("JAN", 1, "feb", 2));
+    } catch (AssertionError expected) {
+      assertThat(expected)
+          .hasMessage(
+              "Not true that <{feb=2, jan=1}> contains exactly <{JAN=1, feb=2}>. "
+                  + "It is missing <[JAN=1]> and has unexpected items <[jan=1]>");
+      return;
+    }
+    fail("Should have thrown.");
+  }
+
+  @Test
+  public void containsExactlyEntriesIn_nullKeyInSortedMap() {
+    Map<String, Integer> expectedMap = Maps.newHashMap();
+    expectedMap.put(null, 1);
+    try {
+      assertThat((Map<String, Integer>) new TreeMap<String, Integer>(ImmutableMap.of("jan", 1)))
+          .containsExactlyEntriesIn(expectedMap);
+    } catch (AssertionError expected) {
+      assertThat(expected)
+          .hasMessage(
+              "Not true that <{jan=1}> contains exactly <{null=1}>. "
+                  + "It is missing <[null=1]> and has unexpected items <[jan=1]>");
+      return;
+    }
+    fail("Should have thrown.");
+  }
+
+  @Test
+  public void containsExactlyEntriesIn_largeMaps() {
+    Map<Integer, Integer> actual = Maps.newLinkedHashMap();
+    Map<Integer, Integer> expectedMap = Maps.newLinkedHashMap();
+    for (int i = 0; i < 1000000; i++) {
+      actual.put(i, i);
+      expectedMap.put(i, i);
+    }
+    assertThat(actual).containsExactlyEntriesIn(expectedMap).inOrder();
+
+    expectedMap.put(500000, -1);
+    expectedMap.remove(10);
+    expectedMap.put(10, 10);
+    try {
+      assertThat(actual).containsExactlyEntriesIn(expectedMap);
+    } catch (AssertionError expected) {
+      assertThat(expected.getMessage())
+          .endsWith("It has wrong values for keys <[500000]>: <[500000]> instead of <[-1]>");
+      expectedMap.put(500000, 500000);
+      try {
+        assertThat(actual).containsExactlyEntriesIn(expectedMap).inOrder();
+      } catch (AssertionError inOrderExpected) {
+        assertThat(inOrderExpected.getMessage())
+            .endsWith(
+                "The keys are not in order "
+                    + "(<[10]> moved from expected index 999999 to actual index 10)");
+        return;
+      }
+    }
+    fail("Should have thrown.");
+  }
+
   @Test
   public void containsExactlyBadNumberOfArgs() {
     ImmutableMap<String, Integer> actual =
@@ -753,9 +838,9 @@ public class MapSubjectTest {
     } catch (AssertionError e) {
       assertThat(e)
           .hasMessage(
-              "Not true that <[abc=123, def=456]> contains exactly one element that has a key "
+              "Not true that <{abc=123, def=456}> contains exactly one entry that has a key "
                   + "that is equal to and a value that parses to the key and value of each "
-                  + "element of <[def=456]>. It has unexpected elements <[abc=123]>");
+                  + "entry of <{def=456}>. It has unexpected items <[abc=123]>");
     }
   }
 
@@ -770,11 +855,9 @@ public class MapSubjectTest {
     } catch (AssertionError e) {
       assertThat(e)
           .hasMessage(
-              "Not true that <[abc=123, def=456]> contains exactly one element that has a key "
+              "Not true that <{abc=123, def=456}> contains exactly one entry that has a key "
                   + "that is equal to and a value that parses to the key and value of each "
-                  + "element of <[def=456, xyz=999, abc=123]>. It is missing an element that has a "
-                  + "key that is equal to and a value that parses to the key and value of "
-                  + "<xyz=999>");
+                  + "entry of <{def=456, xyz=999, abc=123}>. It is missing <[xyz=999]>");
     }
   }
 
@@ -789,11 +872,10 @@ public class MapSubjectTest {
     } catch (AssertionError e) {
       assertThat(e)
           .hasMessage(
-              "Not true that <[abc=123, def=456]> contains exactly one element that has a key "
+              "Not true that <{abc=123, def=456}> contains exactly one entry that has a key "
                   + "that is equal to and a value that parses to the key and value of each "
-                  + "element of <[def=456, cab=123]>. It is missing an element that has a "
-                  + "key that is equal to and a value that parses to the key and value of "
-                  + "<cab=123> and has unexpected elements <[abc=123]>");
+                  + "entry of <{def=456, cab=123}>. It is missing <[cab=123]> "
+                  + "and has unexpected items <[abc=123]>");
     }
   }
 
@@ -808,11 +890,10 @@ public class MapSubjectTest {
     } catch (AssertionError e) {
       assertThat(e)
           .hasMessage(
-              "Not true that <[abc=123, def=456]> contains exactly one element that has a key "
+              "Not true that <{abc=123, def=456}> contains exactly one entry that has a key "
                   + "that is equal to and a value that parses to the key and value of each "
-                  + "element of <[def=456, abc=321]>. It is missing an element that has a "
-                  + "key that is equal to and a value that parses to the key and value of "
-                  + "<abc=321> and has unexpected elements <[abc=123]>");
+                  + "entry of <{def=456, abc=321}>. It has wrong values for "
+                  + "keys <[abc]>: <[123]> instead of <[321]>");
     }
   }
 
@@ -828,9 +909,10 @@ public class MapSubjectTest {
     } catch (AssertionError e) {
       assertThat(e)
           .hasMessage(
-              "Not true that <[abc=123, def=456]> contains, in order, exactly one element that has"
+              "Not true that <{abc=123, def=456}> contains, in order, exactly one entry that has"
                   + " a key that is equal to and a value that parses to the key and value of each"
-                  + " element of <[def=456, abc=123]>");
+                  + " entry of <{def=456, abc=123}>. The keys are not in order "
+                  + "(<[def]> moved from expected index 0 to actual index 1)");
     }
   }
 
@@ -889,9 +971,9 @@ public class MapSubjectTest {
     } catch (AssertionError e) {
       assertThat(e)
           .hasMessage(
-              "Not true that <[abc=123, def=456]> contains exactly one element that has a key "
+              "Not true that <{abc=123, def=456}> contains exactly one entry that has a key "
                   + "that is equal to and a value that parses to the key and value of each "
-                  + "element of <[def=456]>. It has unexpected elements <[abc=123]>");
+                  + "entry of <{def=456}>. It has unexpected items <[abc=123]>");
     }
   }
 
@@ -907,11 +989,9 @@ public class MapSubjectTest {
     } catch (AssertionError e) {
       assertThat(e)
           .hasMessage(
-              "Not true that <[abc=123, def=456]> contains exactly one element that has a key "
+              "Not true that <{abc=123, def=456}> contains exactly one entry that has a key "
                   + "that is equal to and a value that parses to the key and value of each "
-                  + "element of <[def=456, xyz=999, abc=123]>. It is missing an element that has a "
-                  + "key that is equal to and a value that parses to the key and value of "
-                  + "<xyz=999>");
+                  + "entry of <{def=456, xyz=999, abc=123}>. It is missing <[xyz=999]>");
     }
   }
 
@@ -927,11 +1007,10 @@ public class MapSubjectTest {
     } catch (AssertionError e) {
       assertThat(e)
           .hasMessage(
-              "Not true that <[abc=123, def=456]> contains exactly one element that has a key "
+              "Not true that <{abc=123, def=456}> contains exactly one entry that has a key "
                   + "that is equal to and a value that parses to the key and value of each "
-                  + "element of <[def=456, cab=123]>. It is missing an element that has a "
-                  + "key that is equal to and a value that parses to the key and value of "
-                  + "<cab=123> and has unexpected elements <[abc=123]>");
+                  + "entry of <{def=456, cab=123}>. It is missing <[cab=123]> "
+                  + "and has unexpected items <[abc=123]>");
     }
   }
 
@@ -947,11 +1026,10 @@ public class MapSubjectTest {
     } catch (AssertionError e) {
       assertThat(e)
           .hasMessage(
-              "Not true that <[abc=123, def=456]> contains exactly one element that has a key "
+              "Not true that <{abc=123, def=456}> contains exactly one entry that has a key "
                   + "that is equal to and a value that parses to the key and value of each "
-                  + "element of <[def=456, abc=321]>. It is missing an element that has a "
-                  + "key that is equal to and a value that parses to the key and value of "
-                  + "<abc=321> and has unexpected elements <[abc=123]>");
+                  + "entry of <{def=456, abc=321}>. It has wrong values for "
+                  + "keys <[abc]>: <[123]> instead of <[321]>");
     }
   }
 
@@ -968,9 +1046,10 @@ public class MapSubjectTest {
     } catch (AssertionError e) {
       assertThat(e)
           .hasMessage(
-              "Not true that <[abc=123, def=456]> contains, in order, exactly one element that has"
+              "Not true that <{abc=123, def=456}> contains, in order, exactly one entry that has"
                   + " a key that is equal to and a value that parses to the key and value of each"
-                  + " element of <[def=456, abc=123]>");
+                  + " entry of <{def=456, abc=123}>. The keys are not in order "
+                  + "(<[def]> moved from expected index 0 to actual index 1)");
     }
   }
 
@@ -986,4 +1065,43 @@ public class MapSubjectTest {
     } catch (ClassCastException e) {
     }
   }
+
+  @Test
+  public void comparingValuesUsing_containsExactlyEntriesIn_onlyComparesValuesWithEqualKeys() {
+    Map<String, Integer> expected = Maps.newLinkedHashMap();
+    Map<String, String> actual = Maps.newLinkedHashMap();
+    for (int i = 0; i < 1000; i++) {
+      expected.put("k" + i, i);
+      actual.put("k" + (999 - i), "+" + (999 - i));
+    }
+    CountingCorrespondence<String, Integer> counting =
+        new CountingCorrespondence<String, Integer>(STRING_PARSES_TO_INTEGER_CORRESPONDENCE);
+    assertThat(actual).comparingValuesUsing(counting).containsExactlyEntriesIn(expected);
+    assertThat(counting.count).isEqualTo(1000);
+  }
+
+  @Test
+  public void comparingValuesUsing_containsExactlyEntriesIn_comparesValuesOncePerKeyOnFailure() {
+    Map<String, Integer> expected = Maps.newLinkedHashMap();
+    Map<String, String> actual = Maps.newLinkedHashMap();
+    for (int i = 0; i < 100000; i++) {
+      expected.put("k" + i, i);
+      actual.put("k" + i, "+" + i);
+    }
+    expected.put("k5", 6);
+    expected.remove("k7");
+    CountingCorrespondence<String, Integer> counting =
+        new CountingCorrespondence<String, Integer>(STRING_PARSES_TO_INTEGER_CORRESPONDENCE);
+    try {
+      assertThat(actual).comparingValuesUsing(counting).containsExactlyEntriesIn(expected);
+    } catch (AssertionError e) {
+      assertThat(e.getMessage())
+          .endsWith(
+              "It has unexpected items <[k7=+7]> and "
+                  + "has wrong values for keys <[k5]>: <[+5]> instead of <[6]>");
+      assertThat(counting.count).isEqualTo(99999);
+      return;
+    }
+    fail("Should have thrown.");
+  }
 }
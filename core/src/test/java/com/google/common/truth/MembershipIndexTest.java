@@ -0,0 +1,145 @@
+/*
+ * Copyright (c) 2017 Google, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.common.truth;
+
+import static com.google.common.truth.Truth.assertThat;
+import static com.google.common.truth.Truth.assertWithMessage;
+import static java.util.Arrays.asList;
+
+import com.google.common.collect.Iterables;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.TreeSet;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** Tests for {@link MembershipIndex}. */
+@RunWith(JUnit4.class)
+public final class MembershipIndexTest {
+
+  @Test
+  public void contains_agreesWithIterablesContains() {
+    Object sameAsOne =
+        new Object() {
+          @Override
+          public boolean equals(Object other) {
+            return other instanceof Integer && ((Integer) other) == 1;
+          }
+
+          @Override
+          public int hashCode() {
+            throw new UnsupportedOperationException();
+          }
+        };
+    List<Object> elements = asList(1, "a", null, 2L, sameAsOne);
+    List<Object> items = asList(1, 2, "a", "b", null, 2L, 2, sameAsOne, new Object());
+    MembershipIndex index = new MembershipIndex(elements);
+    // Look everything up twice, so that both the first scan and the index are exercised.
+    for (int pass = 0; pass < 2; pass++) {
+      for (Object item : items) {
+        assertWithMessage("contains(%s)", item)
+            .that(index.contains(item))
+            .isEqualTo(Iterables.contains(elements, item));
+      }
+    }
+  }
+
+  @Test
+  public void contains_unreliableItemFindsEqualElement() {
+    Object equalToEverything =
+        new Object() {
+          @Override
+          public boolean equals(Object other) {
+            return true;
+          }
+
+          @Override
+          public int hashCode() {
+            return 0;
+          }
+        };
+    MembershipIndex index = new MembershipIndex(asList(1, 2, 3));
+    assertThat(index.contains(4)).isFalse();
+    assertThat(index.contains(equalToEverything)).isTrue();
+  }
+
+  @Test
+  public void contains_boundsComparisonsOfUnreliableItems() {
+    final int[] comparisons = {0};
+    List<Object> elements = new ArrayList<Object>();
+    List<Object> items = new ArrayList<Object>();
+    for (int i = 0; i < 2000; i++) {
+      elements.add(new CountingEquals(i, comparisons));
+      items.add(new CountingEquals(-1 - i, comparisons));
+    }
+    MembershipIndex index = new MembershipIndex(elements);
+    assertThat(index.contains(new CountingEquals(1999, comparisons))).isTrue();
+    assertThat(index.containsAny(items)).isFalse();
+    assertThat(index.contains(new CountingEquals(5, comparisons))).isTrue();
+    assertThat(comparisons[0]).isAtMost(2000 + SubjectUtils.MAX_HASH_VERIFICATION_COMPARISONS + 2);
+  }
+
+  @Test
+  public void contains_delegatesToNonListCollections() {
+    TreeSet<String> caseInsensitive = new TreeSet<String>(String.CASE_INSENSITIVE_ORDER);
+    caseInsensitive.add("a");
+    MembershipIndex index = new MembershipIndex(caseInsensitive);
+    assertThat(index.contains("A")).isTrue();
+    assertThat(index.contains("A")).isTrue();
+  }
+
+  @Test
+  public void contains_iteratesNonCollectionsOnce() {
+    final int[] iterations = {0};
+    Iterable<Integer> iterable =
+        new Iterable<Integer>() {
+          @Override
+          public Iterator<Integer> iterator() {
+            iterations[0]++;
+            return asList(1, 2, 3).iterator();
+          }
+        };
+    MembershipIndex index = new MembershipIndex(iterable);
+    assertThat(index.contains(1)).isTrue();
+    assertThat(index.containsAny(asList(4, 5))).isFalse();
+    assertThat(index.containsAny(asList(5, 3))).isTrue();
+    assertThat(iterations[0]).isEqualTo(1);
+  }
+
+  /** An object equal to others with the same value, which counts its calls to equals. */
+  private static final class CountingEquals {
+    private final int value;
+    private final int[] comparisons;
+
+    CountingEquals(int value, int[] comparisons) {
+      this.value = value;
+      this.comparisons = comparisons;
+    }
+
+    @Override
+    public boolean equals(Object other) {
+      comparisons[0]++;
+      return other instanceof CountingEquals && ((CountingEquals) other).value == value;
+    }
+
+    @Override
+    public int hashCode() {
+      return value;
+    }
+  }
+}
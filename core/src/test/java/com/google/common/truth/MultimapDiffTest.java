@@ -0,0 +1,99 @@
+/*
+ * Copyright (c) 2017 Google, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.common.truth;
+
+import static com.google.common.truth.Truth.assertThat;
+import static com.google.common.truth.Truth.assertWithMessage;
+
+import com.google.common.collect.ImmutableListMultimap;
+import com.google.common.collect.LinkedHashMultiset;
+import com.google.common.collect.LinkedListMultimap;
+import com.google.common.collect.ListMultimap;
+import com.google.common.collect.Multimap;
+import com.google.common.collect.Multiset;
+import java.util.Random;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** Tests for {@link MultimapDiff}. */
+@RunWith(JUnit4.class)
+public final class MultimapDiffTest {
+
+  @Test
+  public void between_agreesWithMultisetDifference() {
+    Random rng = new Random(0x5eed);
+    for (int trial = 0; trial < 1000; trial++) {
+      ListMultimap<Integer, Integer> actual = randomMultimap(rng);
+      ListMultimap<Integer, Integer> expected = randomMultimap(rng);
+      MultimapDiff diff = MultimapDiff.between(actual, expected);
+      String description = actual + " against " + expected;
+
+      assertWithMessage(description)
+          .that(diff.missing())
+          .isEqualTo(difference(expected, actual));
+      assertWithMessage(description).that(diff.extra()).isEqualTo(difference(actual, expected));
+      assertWithMessage(description)
+          .that(diff.isEmpty())
+          .isEqualTo(
+              LinkedHashMultiset.create(actual.entries())
+                  .equals(LinkedHashMultiset.create(expected.entries())));
+      for (Integer key : expected.keySet()) {
+        assertWithMessage(description + " at key " + key)
+            .that(diff.valuesDiffer(key))
+            .isEqualTo(!actual.get(key).equals(expected.get(key)));
+      }
+    }
+  }
+
+  @Test
+  public void between_equalMultimaps() {
+    ImmutableListMultimap<String, Integer> multimap =
+        ImmutableListMultimap.of("a", 1, "a", 2, "b", 1);
+    MultimapDiff diff = MultimapDiff.between(LinkedListMultimap.create(multimap), multimap);
+    assertThat(diff.isEmpty()).isTrue();
+    assertThat(diff.anyValuesDiffer()).isFalse();
+
+    diff = MultimapDiff.between(ImmutableListMultimap.of("a", 2, "a", 1, "b", 1), multimap);
+    assertThat(diff.isEmpty()).isTrue();
+    assertThat(diff.valuesDiffer("a")).isTrue();
+    assertThat(diff.valuesDiffer("b")).isFalse();
+  }
+
+  /** The entries of the minuend which aren't in the subtrahend, counting copies. */
+  private static ListMultimap<Integer, Integer> difference(
+      Multimap<Integer, Integer> minuend, Multimap<Integer, Integer> subtrahend) {
+    ListMultimap<Integer, Integer> difference = LinkedListMultimap.create();
+    for (Integer key : minuend.keySet()) {
+      Multiset<Integer> remaining = LinkedHashMultiset.create(subtrahend.get(key));
+      for (Integer value : minuend.get(key)) {
+        if (!remaining.remove(value)) {
+          difference.put(key, value);
+        }
+      }
+    }
+    return difference;
+  }
+
+  private static ListMultimap<Integer, Integer> randomMultimap(Random rng) {
+    ListMultimap<Integer, Integer> multimap = LinkedListMultimap.create();
+    int size = rng.nextInt(12);
+    for (int i = 0; i < size; i++) {
+      multimap.put(rng.nextInt(4), rng.nextInt(3));
+    }
+    return multimap;
+  }
+}
@@ -77,7 +77,8 @@ public class MultimapSubjectTest {
           .hasMessage(
               "Not true that <{kurt=[kluever, russell, cobain]}> contains exactly "
                   + "<{kurt=[kluever, cobain, russell]}> in order. "
-                  + "The values for keys <[kurt]> are not in order");
+                  + "The values for keys <[kurt]> are not in order "
+                  + "(key <kurt>: <[cobain]> moved from expected index 1 to actual index 2)");
     }
   }
 
@@ -534,6 +535,47 @@ public class MultimapSubjectTest {
     }
   }
 
+  @Test
+  public void containsExactlyInOrderFailureKeysOnly() {
+    ImmutableMultimap<Integer, String> actual =
+        ImmutableMultimap.of(3, "one", 4, "five", 5, "six");
+    ImmutableMultimap<Integer, String> expected =
+        ImmutableMultimap.of(4, "five", 5, "six", 3, "one");
+
+    assertThat(actual).containsExactlyEntriesIn(expected);
+    try {
+      assertThat(actual).containsExactlyEntriesIn(expected).inOrder();
+      fail("Should have thrown.");
+    } catch (AssertionError e) {
+      assertThat(e)
+          .hasMessage(
+              String.format(
+                  "Not true that <%s> contains exactly <%s> in order. The keys are not in order "
+                      + "(<[3]> moved from expected index 2 to actual index 0)",
+                  actual, expected));
+    }
+  }
+
+  @Test
+  public void containsExactlyInOrderLargeMultimaps() {
+    ListMultimap<Integer, Integer> actual = ArrayListMultimap.create();
+    ListMultimap<Integer, Integer> expected = ArrayListMultimap.create();
+    for (int i = 0; i < 1000000; i++) {
+      actual.put(i % 1000, i);
+      expected.put(i % 1000, i);
+    }
+    assertThat(actual).containsExactlyEntriesIn(expected).inOrder();
+
+    expected.get(7).set(3, -1);
+    try {
+      assertThat(actual).containsExactlyEntriesIn(expected);
+      fail("Should have thrown.");
+    } catch (AssertionError e) {
+      assertThat(e.getMessage())
+          .endsWith("It is missing <{7=[-1]}> and has unexpected items <{7=[3007]}>");
+    }
+  }
+
   @Test
   public void containsExactlyInOrderFailureValuesOnly() {
     ImmutableMultimap<Integer, String> actual =
@@ -550,7 +592,8 @@ public class MultimapSubjectTest {
           .hasMessage(
               String.format(
                   "Not true that <%s> contains exactly <%s> in order. "
-                      + "The values for keys <[3]> are not in order",
+                      + "The values for keys <[3]> are not in order "
+                      + "(key <3>: <[one]> moved from expected index 2 to actual index 0)",
                   actual, expected));
     }
   }
@@ -0,0 +1,139 @@
+/*
+ * Copyright (c) 2017 Google, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.common.truth;
+
+import static com.google.common.truth.Truth.assertThat;
+import static com.google.common.truth.Truth.assertWithMessage;
+import static java.util.Arrays.asList;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** Tests for {@link MultisetDiff}. */
+@RunWith(JUnit4.class)
+public final class MultisetDiffTest {
+
+  @Test
+  public void between_equalMultisets() {
+    MultisetDiff diff = MultisetDiff.between(asList(1, 2, 2, null), asList(2, null, 1, 2));
+    assertThat(diff.isEmpty()).isTrue();
+  }
+
+  @Test
+  public void between_keepsOriginalOrderAndMultiplicity() {
+    MultisetDiff diff = MultisetDiff.between(asList(3, 1, 3, 5, 3), asList(4, 3, 1, 4, 2, 4));
+    assertThat(diff.missing()).containsExactly(4, 4, 2, 4).inOrder();
+    assertThat(diff.extra()).containsExactly(3, 5, 3).inOrder();
+    assertThat(diff.isEmpty()).isFalse();
+  }
+
+  @Test
+  public void between_agreesWithNaiveAlgorithm() {
+    Random random = new Random(0);
+    for (int trial = 0; trial < 500; trial++) {
+      List<Integer> actual = randomList(random);
+      List<Integer> expected = randomList(random);
+      List<Object> naiveMissing = new ArrayList<Object>(expected);
+      List<Object> naiveExtra = new ArrayList<Object>();
+      for (Integer item : actual) {
+        if (!naiveMissing.remove(item)) {
+          naiveExtra.add(item);
+        }
+      }
+      MultisetDiff diff = MultisetDiff.between(actual, expected);
+      String message = "actual " + actual + " and expected " + expected;
+      assertWithMessage(message).that(diff.missing()).containsExactlyElementsIn(naiveMissing)
+          .inOrder();
+      assertWithMessage(message).that(diff.extra()).containsExactlyElementsIn(naiveExtra)
+          .inOrder();
+    }
+  }
+
+  @Test
+  public void between_fallsBackWhenHashCodeThrows() {
+    Object thrower =
+        new Object() {
+          @Override
+          public int hashCode() {
+            throw new UnsupportedOperationException();
+          }
+        };
+    MultisetDiff diff = MultisetDiff.between(asList(thrower, 1), asList(1, 2));
+    assertThat(diff.missing()).containsExactly(2);
+    assertThat(diff.extra()).containsExactly(thrower);
+  }
+
+  @Test
+  public void between_fallsBackWhenEqualElementsHashDifferently() {
+    Object sameAsOne =
+        new Object() {
+          @Override
+          public boolean equals(Object other) {
+            return other instanceof Integer && ((Integer) other) == 1;
+          }
+
+          @Override
+          public int hashCode() {
+            return 0;
+          }
+        };
+    MultisetDiff diff = MultisetDiff.between(asList(sameAsOne, 2), asList(1, 3));
+    assertThat(diff.missing()).containsExactly(3);
+    assertThat(diff.extra()).containsExactly(2);
+  }
+
+  @Test
+  public void between_trustsHashCodesPastComparisonBudget() {
+    Object sameAsOne =
+        new Object() {
+          @Override
+          public boolean equals(Object other) {
+            return other instanceof Integer && ((Integer) other) == 1;
+          }
+
+          @Override
+          public int hashCode() {
+            return 0;
+          }
+        };
+    List<Object> actual = new ArrayList<Object>();
+    List<Object> expected = new ArrayList<Object>();
+    for (int i = 0; i < 300; i++) {
+      actual.add(new Object());
+      expected.add(new Object());
+    }
+    actual.add(sameAsOne);
+    expected.add(1);
+    MultisetDiff diff = MultisetDiff.between(actual, expected);
+    assertThat(diff.missing()).hasSize(301);
+    assertThat(diff.missing().get(300)).isEqualTo(1);
+    assertThat(diff.extra()).hasSize(301);
+    assertThat(diff.extra().get(300)).isSameAs(sameAsOne);
+  }
+
+  private static List<Integer> randomList(Random random) {
+    int size = random.nextInt(8);
+    List<Integer> list = new ArrayList<Integer>();
+    for (int i = 0; i < size; i++) {
+      list.add(random.nextInt(4));
+    }
+    return list;
+  }
+}
@@ -19,6 +19,7 @@ import static com.google.common.truth.Truth.assertThat;
 import static org.junit.Assert.fail;
 
 import com.google.common.collect.HashMultiset;
+import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableMultiset;
 import com.google.common.collect.Multiset;
 import org.junit.Test;
@@ -109,6 +110,138 @@ public class MultisetSubjectTest {
     fail("Should have thrown.");
   }
 
+  @Test
+  public void hasCounts() {
+    ImmutableMultiset<String> multiset = ImmutableMultiset.of("kurt", "kurt", "kluever");
+    assertThat(multiset).hasCounts(ImmutableMap.of("kurt", 2, "alfred", 0));
+    assertThat(multiset).hasCounts(ImmutableMap.<String, Integer>of());
+  }
+
+  @Test
+  public void hasCountsFail() {
+    ImmutableMultiset<String> multiset = ImmutableMultiset.of("kurt", "kurt", "kluever");
+    try {
+      assertThat(multiset).hasCounts(ImmutableMap.of("kurt", 3, "kluever", 1, "alfred", 1));
+    } catch (AssertionError e) {
+      assertThat(e)
+          .hasMessage(
+              "Not true that <[kurt x 2, kluever]> has counts <{kurt=3, kluever=1, alfred=1}>. "
+                  + "It has counts <{kurt=2, alfred=0}>");
+      return;
+    }
+    fail("Should have thrown.");
+  }
+
+  @Test
+  public void hasCountsNegative() {
+    try {
+      assertThat(ImmutableMultiset.of("kurt")).hasCounts(ImmutableMap.of("kurt", -1));
+      fail("Should have thrown.");
+    } catch (IllegalArgumentException expected) {
+      assertThat(expected).hasMessage("expectedCount(-1) for <kurt> must be >= 0");
+    }
+  }
+
+  @Test
+  public void hasCountsAtLeast() {
+    ImmutableMultiset<String> multiset = ImmutableMultiset.of("kurt", "kurt", "kluever");
+    assertThat(multiset).hasCountsAtLeast(ImmutableMultiset.of("kurt", "kurt"));
+    assertThat(multiset).hasCountsAtLeast(ImmutableMultiset.<String>of());
+  }
+
+  @Test
+  public void hasCountsAtLeastFail() {
+    ImmutableMultiset<String> multiset = ImmutableMultiset.of("kurt", "kurt", "kluever");
+    try {
+      assertThat(multiset).hasCountsAtLeast(ImmutableMultiset.of("kurt", "kurt", "kurt", "alfred"));
+    } catch (AssertionError e) {
+      assertThat(e)
+          .hasMessage(
+              "Not true that <[kurt x 2, kluever]> has at least the counts of "
+                  + "<[kurt x 3, alfred]>. It is missing <[kurt, alfred]>");
+      return;
+    }
+    fail("Should have thrown.");
+  }
+
+  @Test
+  public void containsExactlyCountsIn() {
+    ImmutableMultiset<String> multiset = ImmutableMultiset.of("kurt", "kurt", "kluever");
+    assertThat(multiset)
+        .containsExactlyCountsIn(ImmutableMultiset.of("kurt", "kurt", "kluever"))
+        .inOrder();
+    assertThat(multiset).containsExactlyCountsIn(ImmutableMultiset.of("kluever", "kurt", "kurt"));
+  }
+
+  @Test
+  public void containsExactlyCountsInFail() {
+    ImmutableMultiset<String> multiset = ImmutableMultiset.of("kurt", "kurt", "kluever");
+    try {
+      assertThat(multiset)
+          .containsExactlyCountsIn(ImmutableMultiset.of("kurt", "kurt", "kurt", "alfred"));
+    } catch (AssertionError e) {
+      assertThat(e)
+          .hasMessage(
+              "Not true that <[kurt x 2, kluever]> contains exactly <[kurt x 3, alfred]>. "
+                  + "It is missing <[kurt, alfred]> and has unexpected items <[kluever]>");
+      return;
+    }
+    fail("Should have thrown.");
+  }
+
+  @Test
+  public void containsExactlyCountsInNotInOrder() {
+    ImmutableMultiset<String> multiset = ImmutableMultiset.of("kurt", "kurt", "kluever");
+    try {
+      assertThat(multiset)
+          .containsExactlyCountsIn(ImmutableMultiset.of("kluever", "kurt", "kurt"))
+          .inOrder();
+    } catch (AssertionError e) {
+      assertThat(e)
+          .hasMessage(
+              "Not true that <[kurt x 2, kluever]> contains exactly these elements in order "
+                  + "<[kluever, kurt x 2]>");
+      return;
+    }
+    fail("Should have thrown.");
+  }
+
+  @Test
+  public void containsExactlyElementsIn_comparesCounts() {
+    // Iterating over every copy would take far too long.
+    Multiset<String> multiset = HashMultiset.create();
+    multiset.add("kurt", Integer.MAX_VALUE / 2);
+    multiset.add("kluever", Integer.MAX_VALUE / 2);
+    Multiset<String> expected = HashMultiset.create(multiset);
+    assertThat(multiset).containsExactlyElementsIn(expected).inOrder();
+    assertThat(multiset).containsAllIn(ImmutableMultiset.of("kluever", "kurt")).inOrder();
+
+    expected.add("kurt");
+    try {
+      assertThat(multiset).containsExactlyElementsIn(expected);
+    } catch (AssertionError e) {
+      assertThat(e.getMessage()).endsWith("It is missing <[kurt]>");
+      return;
+    }
+    fail("Should have thrown.");
+  }
+
+  @Test
+  public void containsAllIn_multisetNotInOrder() {
+    ImmutableMultiset<String> multiset = ImmutableMultiset.of("kurt", "kurt", "kluever");
+    assertThat(multiset).containsAllIn(ImmutableMultiset.of("kurt", "kluever")).inOrder();
+    try {
+      assertThat(multiset).containsAllIn(ImmutableMultiset.of("kluever", "kurt")).inOrder();
+    } catch (AssertionError e) {
+      assertThat(e)
+          .hasMessage(
+              "Not true that <[kurt x 2, kluever]> contains all elements in order "
+                  + "<[kluever, kurt]>");
+      return;
+    }
+    fail("Should have thrown.");
+  }
+
   @Test
   public void contains() {
     ImmutableMultiset<String> multiset = ImmutableMultiset.of("kurt", "kluever");
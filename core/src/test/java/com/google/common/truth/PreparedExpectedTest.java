@@ -0,0 +1,124 @@
+/*
+ * Copyright (c) 2017 Google, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.common.truth;
+
+import static com.google.common.truth.Truth.assertThat;
+import static java.util.Arrays.asList;
+import static org.junit.Assert.fail;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableListMultimap;
+import com.google.common.collect.LinkedListMultimap;
+import com.google.common.collect.ListMultimap;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** Tests for {@link PreparedExpected} and {@link ElementCounts}. */
+@RunWith(JUnit4.class)
+public final class PreparedExpectedTest {
+
+  @Test
+  public void elementCounts() {
+    ElementCounts counts = ElementCounts.of(asList("a", "b", "a", null, "a"));
+    assertThat(counts.distinctCount()).isEqualTo(3);
+    assertThat(counts.count(counts.indexOf("a"))).isEqualTo(3);
+    assertThat(counts.count(counts.indexOf("b"))).isEqualTo(1);
+    assertThat(counts.count(counts.indexOf(null))).isEqualTo(1);
+    assertThat(counts.indexOf("c")).isEqualTo(-1);
+  }
+
+  @Test
+  public void countsOf_cachesImmutableCollectionsByIdentity() {
+    PreparedExpected prepared = new PreparedExpected(2);
+    ImmutableList<Integer> expected = ImmutableList.of(1, 2, 2);
+    ImmutableList<Integer> equalExpected = ImmutableList.copyOf(new Integer[] {1, 2, 2});
+    assertThat(prepared.countsOf(expected)).isSameAs(prepared.countsOf(expected));
+    assertThat(prepared.countsOf(equalExpected)).isNotSameAs(prepared.countsOf(expected));
+  }
+
+  @Test
+  public void countsOf_doesNotCacheMutableCollections() {
+    PreparedExpected prepared = new PreparedExpected(2);
+    List<Integer> expected = new ArrayList<Integer>(asList(1, 2));
+    assertThat(prepared.caches(expected)).isFalse();
+    assertThat(prepared.countsOf(expected)).isNotSameAs(prepared.countsOf(expected));
+  }
+
+  @Test
+  public void countsOf_cachesNothingByDefault() {
+    PreparedExpected prepared = new PreparedExpected(0);
+    ImmutableList<Integer> expected = ImmutableList.of(1, 2);
+    assertThat(prepared.caches(expected)).isFalse();
+    assertThat(prepared.countsOf(expected)).isNotSameAs(prepared.countsOf(expected));
+  }
+
+  @Test
+  public void valueCountsOf_cachesImmutableMultimaps() {
+    PreparedExpected prepared = new PreparedExpected(2);
+    ImmutableListMultimap<String, Integer> expected = ImmutableListMultimap.of("a", 1, "a", 1);
+    assertThat(prepared.valueCountsOf(expected)).isSameAs(prepared.valueCountsOf(expected));
+    ElementCounts counts = prepared.valueCountsOf(expected).get("a");
+    assertThat(counts.count(counts.indexOf(1))).isEqualTo(2);
+
+    ListMultimap<String, Integer> mutable = LinkedListMultimap.create(expected);
+    assertThat(prepared.valueCountsOf(mutable)).isNotSameAs(prepared.valueCountsOf(mutable));
+  }
+
+  @Test
+  public void failureMessagesAreUnchangedWithCache() {
+    String oldValue = System.getProperty(PreparedExpected.CACHE_SIZE_PROPERTY);
+    System.setProperty(PreparedExpected.CACHE_SIZE_PROPERTY, "10");
+    try {
+      ImmutableList<Integer> expected = ImmutableList.of(1, 2, 3, 3);
+      for (int attempt = 0; attempt < 2; attempt++) {
+        try {
+          assertThat(asList(1, 3, 4, 2)).containsExactlyElementsIn(expected);
+          fail("Should have thrown.");
+        } catch (AssertionError e) {
+          assertThat(e)
+              .hasMessage(
+                  "Not true that <[1, 3, 4, 2]> contains exactly <[1, 2, 3, 3]>. "
+                      + "It is missing <[3]> and has unexpected items <[4]>");
+        }
+      }
+
+      ImmutableListMultimap<Integer, String> expectedMultimap =
+          ImmutableListMultimap.of(1, "a", 1, "a", 2, "b");
+      for (int attempt = 0; attempt < 2; attempt++) {
+        try {
+          assertThat(ImmutableListMultimap.of(1, "a", 1, "c", 3, "d"))
+              .containsExactlyEntriesIn(expectedMultimap);
+          fail("Should have thrown.");
+        } catch (AssertionError e) {
+          assertThat(e)
+              .hasMessage(
+                  "Not true that <{1=[a, c], 3=[d]}> contains exactly <{1=[a, a], 2=[b]}>. "
+                      + "It is missing <{1=[a], 2=[b]}> and has unexpected items "
+                      + "<{1=[c], 3=[d]}>");
+        }
+      }
+    } finally {
+      if (oldValue == null) {
+        System.clearProperty(PreparedExpected.CACHE_SIZE_PROPERTY);
+      } else {
+        System.setProperty(PreparedExpected.CACHE_SIZE_PROPERTY, oldValue);
+      }
+    }
+  }
+}
@@ -45,6 +45,17 @@ public class PrimitiveCharArraySubjectTest {
     assertThat(array('a', 'q', 'z')).asList().containsAllOf('a', 'z');
   }
 
+  @Test
+  public void asList_containsNoDuplicates() {
+    assertThat(array('a', 'q', 'z')).asList().containsNoDuplicates();
+    try {
+      assertThat(array('a', 'q', 'a')).asList().containsNoDuplicates();
+      throw new Error("Expected to throw.");
+    } catch (AssertionError e) {
+      assertThat(e).hasMessage("<[a, q, a]> has the following duplicates: <[a x 2]>");
+    }
+  }
+
   @Test
   public void isEqualTo_Fail_UnequalOrdering() {
     try {
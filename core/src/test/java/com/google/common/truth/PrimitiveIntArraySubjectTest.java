@@ -47,6 +47,17 @@ public class PrimitiveIntArraySubjectTest {
     assertThat(array(5, 2, 9)).asList().containsAllOf(2, 9);
   }
 
+  @Test
+  public void asList_containsNoDuplicates() {
+    assertThat(array(5, 2, 9)).asList().containsNoDuplicates();
+    try {
+      assertThat(array(5, 2, 9, 2)).asList().containsNoDuplicates();
+      throw new Error("Expected to throw.");
+    } catch (AssertionError e) {
+      assertThat(e).hasMessage("<[5, 2, 9, 2]> has the following duplicates: <[2 x 2]>");
+    }
+  }
+
   @Test
   public void hasLength() {
     assertThat(EMPTY).hasLength(0);
@@ -0,0 +1,140 @@
+/*
+ * Copyright (c) 2017 Google, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.common.truth;
+
+import static com.google.common.truth.Truth.assertThat;
+import static com.google.common.truth.Truth.assertWithMessage;
+import static java.util.Arrays.asList;
+
+import com.google.common.collect.Lists;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** Tests for {@link SequenceDiff}. */
+@RunWith(JUnit4.class)
+public final class SequenceDiffTest {
+
+  @Test
+  public void between_findsShortestEditScript() {
+    Random rng = new Random(0x5eed);
+    for (int trial = 0; trial < 2000; trial++) {
+      List<Integer> expected = randomSequence(rng);
+      List<Integer> actual = randomSequence(rng);
+      SequenceDiff diff = SequenceDiff.between(expected, actual);
+      String description = expected + " to " + actual;
+
+      // Applying the hunks to the expected sequence must give the actual one.
+      List<Integer> edited = Lists.newArrayList();
+      int expectedIndex = 0;
+      int editDistance = 0;
+      for (int[] hunk : diff.hunks()) {
+        edited.addAll(expected.subList(expectedIndex, hunk[0]));
+        edited.addAll(actual.subList(hunk[2], hunk[3]));
+        expectedIndex = hunk[1];
+        editDistance += (hunk[1] - hunk[0]) + (hunk[3] - hunk[2]);
+      }
+      edited.addAll(expected.subList(expectedIndex, expected.size()));
+      assertWithMessage(description).that(edited).isEqualTo(actual);
+      int commonLength = longestCommonSubsequence(expected, actual);
+      assertWithMessage(description)
+          .that(editDistance)
+          .isEqualTo(expected.size() + actual.size() - 2 * commonLength);
+      assertWithMessage(description).that(diff.isEmpty()).isEqualTo(expected.equals(actual));
+    }
+  }
+
+  @Test
+  public void between_givesUpOnVeryDifferentSequences() {
+    List<Integer> expected = Lists.newArrayList();
+    for (int i = 0; i < SequenceDiff.MAX_EDIT_DISTANCE; i++) {
+      expected.add(i);
+    }
+    List<Integer> reversed = Lists.reverse(expected);
+    assertThat(SequenceDiff.between(expected, reversed)).isNull();
+  }
+
+  @Test
+  public void between_manyElementsFewDifferences() {
+    List<Integer> expected = Lists.newArrayList();
+    for (int i = 0; i < 100000; i++) {
+      expected.add(i);
+    }
+    List<Integer> actual = Lists.newArrayList(expected);
+    Collections.swap(actual, 10, 90000);
+    assertThat(SequenceDiff.between(expected, actual).describe())
+        .isEqualTo(
+            "<[10]> moved from expected index 10 to actual index 90000; "
+                + "<[90000]> moved from expected index 90000 to actual index 10");
+  }
+
+  @Test
+  public void describe() {
+    assertThat(SequenceDiff.between(asList(1, 2, 3), asList(1, 3)).describe())
+        .isEqualTo("<[2]> missing at expected index 1");
+    assertThat(SequenceDiff.between(asList(1, 3), asList(1, 2, 3)).describe())
+        .isEqualTo("<[2]> unexpected at actual index 1");
+    assertThat(SequenceDiff.between(asList(1, 2, 3, 4), asList(3, 4, 1, 2)).describe())
+        .isEqualTo("<[1, 2]> moved from expected index 0 to actual index 2");
+    assertThat(SequenceDiff.between(asList(1, 2), asList(3, 4)).describe())
+        .isEqualTo("<[1, 2]> missing at expected index 0; <[3, 4]> unexpected at actual index 0");
+  }
+
+  @Test
+  public void describe_bounded() {
+    List<Integer> expected = Lists.newArrayList();
+    List<Integer> actual = Lists.newArrayList();
+    for (int i = 0; i < 30; i++) {
+      expected.add(i);
+      actual.add(i % 2 == 0 ? i : -i);
+    }
+    assertThat(SequenceDiff.between(expected, actual).describe())
+        .endsWith("<[-9]> unexpected at actual index 9; and 20 more");
+
+    List<Integer> run = Lists.newArrayList();
+    for (int i = 0; i < 20; i++) {
+      run.add(i);
+    }
+    assertThat(SequenceDiff.between(run, Collections.<Integer>emptyList()).describe())
+        .isEqualTo("<[0, 1, 2, 3, 4, 5, 6, 7, 8, 9, ...]> missing at expected index 0");
+  }
+
+  private static List<Integer> randomSequence(Random rng) {
+    List<Integer> sequence = Lists.newArrayList();
+    int length = rng.nextInt(20);
+    int range = 1 + rng.nextInt(6);
+    for (int i = 0; i < length; i++) {
+      sequence.add(rng.nextInt(range));
+    }
+    return sequence;
+  }
+
+  private static int longestCommonSubsequence(List<?> first, List<?> second) {
+    int[][] lengths = new int[first.size() + 1][second.size() + 1];
+    for (int i = first.size() - 1; i >= 0; i--) {
+      for (int j = second.size() - 1; j >= 0; j--) {
+        lengths[i][j] =
+            first.get(i).equals(second.get(j))
+                ? lengths[i + 1][j + 1] + 1
+                : Math.max(lengths[i + 1][j], lengths[i][j + 1]);
+      }
+    }
+    return lengths[0][0];
+  }
+}
@@ -335,4 +335,46 @@ public class SortedMapSubjectTest {
                   + "It does not contain this entry, and the last entry is <1=0>");
     }
   }
+
+  @Test
+  public void containsExactlyEntriesIn_sortedSameWay() {
+    assertThat(ImmutableSortedMap.of(1, "a", 2, "b"))
+        .containsExactlyEntriesIn(Maps.newTreeMap(ImmutableSortedMap.of(2, "b", 1, "a")))
+        .inOrder();
+  }
+
+  @Test
+  public void containsExactlyEntriesIn_sortedSameWayFailure() {
+    try {
+      assertThat(ImmutableSortedMap.of(1, "a", 2, "b", 3, "c", 5, "e"))
+          .containsExactlyEntriesIn(ImmutableSortedMap.of(1, "a", 2, "x", 3, "c", 4, "d"));
+      fail("Expected AssertionError");
+    } catch (AssertionError e) {
+      assertThat(e)
+          .hasMessage(
+              "Not true that <{1=a, 2=b, 3=c, 5=e}> contains exactly <{1=a, 2=x, 3=c, 4=d}>. "
+                  + "It is missing <[2=x, 4=d]> and has unexpected items <[2=b, 5=e]>. "
+                  + "It differs between keys <2> and <5>");
+    }
+
+    try {
+      assertThat(ImmutableSortedMap.of(1, "a"))
+          .containsExactlyEntriesIn(ImmutableSortedMap.of(1, "b"));
+      fail("Expected AssertionError");
+    } catch (AssertionError e) {
+      assertThat(e)
+          .hasMessage(
+              "Not true that <{1=a}> contains exactly <{1=b}>. "
+                  + "It is missing <[1=b]> and has unexpected items <[1=a]>. "
+                  + "It differs only at key <1>");
+    }
+  }
+
+  @Test
+  public void containsExactlyEntriesIn_sortedDifferently() {
+    SortedMap<Integer, String> reversed = Maps.newTreeMap(Ordering.natural().reverse());
+    reversed.put(1, "a");
+    reversed.put(2, "b");
+    assertThat(ImmutableSortedMap.of(1, "a", 2, "b")).containsExactlyEntriesIn(reversed);
+  }
 }
@@ -16,6 +16,7 @@
 package com.google.common.truth;
 
 import static com.google.common.truth.Truth.assertThat;
+import static java.util.Arrays.asList;
 import static java.util.Collections.unmodifiableSortedSet;
 import static org.junit.Assert.fail;
 
@@ -136,4 +137,70 @@ public class SortedSetSubjectTest {
                   + "It does not contain this element, and the last element is <0>");
     }
   }
+
+  @Test
+  public void containsExactlyElementsIn_sortedSameWay() {
+    assertThat(ImmutableSortedSet.of(1, 2, 3))
+        .containsExactlyElementsIn(Sets.newTreeSet(asList(3, 1, 2)))
+        .inOrder();
+  }
+
+  @Test
+  public void containsExactlyElementsIn_sortedSameWayFailure() {
+    try {
+      assertThat(ImmutableSortedSet.of(1, 2, 4, 5))
+          .containsExactlyElementsIn(ImmutableSortedSet.of(1, 3, 4, 6));
+      fail("Expected AssertionError");
+    } catch (AssertionError e) {
+      assertThat(e)
+          .hasMessage(
+              "Not true that <[1, 2, 4, 5]> contains exactly <[1, 3, 4, 6]>. It is missing "
+                  + "<[3, 6]> and has unexpected items <[2, 5]>. "
+                  + "It differs between elements <2> and <6>");
+    }
+
+    try {
+      assertThat(ImmutableSortedSet.of(1, 2)).containsExactlyElementsIn(ImmutableSortedSet.of(1));
+      fail("Expected AssertionError");
+    } catch (AssertionError e) {
+      assertThat(e)
+          .hasMessage(
+              "Not true that <[1, 2]> contains exactly <[1]>. "
+                  + "It has unexpected items <[2]>. It differs only at element <2>");
+    }
+  }
+
+  @Test
+  public void containsExactlyElementsIn_sortedDifferently() {
+    SortedSet<Integer> reversed = Sets.newTreeSet(Ordering.natural().reverse());
+    reversed.addAll(asList(1, 2));
+    assertThat(ImmutableSortedSet.of(1, 2)).containsExactlyElementsIn(reversed);
+    try {
+      assertThat(ImmutableSortedSet.of(1, 2)).containsExactlyElementsIn(reversed).inOrder();
+      fail("Expected AssertionError");
+    } catch (AssertionError e) {
+      assertThat(e)
+          .hasMessage(
+              "Not true that <[1, 2]> contains exactly these elements in order <[2, 1]>. The "
+                  + "differences from the expected order are: <[2]> moved from expected index 0 "
+                  + "to actual index 1");
+    }
+  }
+
+  @Test
+  public void containsExactlyElementsIn_comparatorInconsistentWithEquals() {
+    SortedSet<String> actual = Sets.newTreeSet(String.CASE_INSENSITIVE_ORDER);
+    actual.add("a");
+    SortedSet<String> expected = Sets.newTreeSet(String.CASE_INSENSITIVE_ORDER);
+    expected.add("A");
+    try {
+      assertThat(actual).containsExactlyElementsIn(expected);
+      fail("Expected AssertionError");
+    } catch (AssertionError e) {
+      assertThat(e)
+          .hasMessage(
+              "Not true that <[a]> contains exactly <[A]>. "
+                  + "It is missing <[A]> and has unexpected items <[a]>");
+    }
+  }
 }
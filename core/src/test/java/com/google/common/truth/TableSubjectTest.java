@@ -18,8 +18,14 @@ package com.google.common.truth;
 import static com.google.common.truth.Truth.assertThat;
 import static org.junit.Assert.fail;
 
+import com.google.common.base.Functions;
+import com.google.common.collect.ArrayTable;
+import com.google.common.collect.HashBasedTable;
+import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableTable;
 import com.google.common.collect.Table;
+import com.google.common.collect.Tables;
+import com.google.common.collect.TreeBasedTable;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.junit.runners.JUnit4;
@@ -163,4 +169,89 @@ public class TableSubjectTest {
           .hasMessage("Not true that <{row={col=val}}> does not contain cell <(row,col)=val>");
     }
   }
+
+  @Test
+  public void containsExactlyCellsIn() {
+    ImmutableTable<String, String, Integer> table =
+        ImmutableTable.<String, String, Integer>builder()
+            .put("a", "x", 1)
+            .put("a", "y", 2)
+            .put("b", "x", 3)
+            .build();
+    assertThat(table).containsExactlyCellsIn(HashBasedTable.create(table));
+    TreeBasedTable<String, String, Integer> sorted = TreeBasedTable.create();
+    sorted.putAll(table);
+    assertThat(sorted).containsExactlyCellsIn(table);
+  }
+
+  @Test
+  public void containsExactlyCellsInFailure() {
+    ImmutableTable<String, String, Integer> table =
+        ImmutableTable.<String, String, Integer>builder()
+            .put("a", "x", 1)
+            .put("a", "y", 2)
+            .put("b", "x", 3)
+            .build();
+    ImmutableTable<String, String, Integer> expected =
+        ImmutableTable.<String, String, Integer>builder()
+            .put("a", "x", 1)
+            .put("a", "y", 4)
+            .put("a", "z", 5)
+            .put("c", "x", 6)
+            .build();
+    try {
+      assertThat(table).containsExactlyCellsIn(expected);
+      fail("Should have thrown.");
+    } catch (AssertionError e) {
+      assertThat(e)
+          .hasMessage(
+              "Not true that <{a={x=1, y=2}, b={x=3}}> contains exactly the cells of "
+                  + "<{a={x=1, y=4, z=5}, c={x=6}}>. It is missing cells <{a={z=5}, c={x=6}}>, "
+                  + "has unexpected cells <{b={x=3}}> and has wrong values <{a={y=2}}> "
+                  + "instead of <{a={y=4}}>");
+    }
+  }
+
+  @Test
+  public void containsExactlyCellsInWithNullValues() {
+    ArrayTable<String, String, Integer> table =
+        ArrayTable.create(ImmutableList.of("r"), ImmutableList.of("c1", "c2"));
+    table.put("r", "c1", 1);
+    ArrayTable<String, String, Integer> expected = ArrayTable.create(table);
+    assertThat(table).isEqualTo(expected);
+    assertThat(table).containsExactlyCellsIn(expected);
+    // A view of the table, which is copied before its cells are looked up.
+    assertThat(Tables.transformValues(table, Functions.<Integer>identity()))
+        .containsExactlyCellsIn(expected);
+
+    expected.put("r", "c2", 2);
+    try {
+      assertThat(table).containsExactlyCellsIn(expected);
+      fail("Should have thrown.");
+    } catch (AssertionError e) {
+      assertThat(e.getMessage())
+          .endsWith("It has wrong values <{r={c2=null}}> instead of <{r={c2=2}}>");
+    }
+  }
+
+  @Test
+  public void containsExactlyCellsInLargeTables() {
+    Table<Integer, Integer, Integer> table = HashBasedTable.create();
+    for (int row = 0; row < 1000; row++) {
+      for (int column = 0; column < 1000; column++) {
+        table.put(row, column, row * column);
+      }
+    }
+    Table<Integer, Integer, Integer> expected = HashBasedTable.create(table);
+    assertThat(table).containsExactlyCellsIn(expected);
+
+    expected.put(500, 7, -1);
+    try {
+      assertThat(table).containsExactlyCellsIn(expected);
+      fail("Should have thrown.");
+    } catch (AssertionError e) {
+      assertThat(e.getMessage())
+          .endsWith("It has wrong values <{500={7=3500}}> instead of <{500={7=-1}}>");
+    }
+  }
 }
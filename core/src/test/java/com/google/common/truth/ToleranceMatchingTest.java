@@ -0,0 +1,111 @@
+/*
+ * Copyright (c) 2017 Google, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.common.truth;
+
+import static com.google.common.truth.Truth.assertThat;
+import static com.google.common.truth.Truth.assertWithMessage;
+import static java.util.Arrays.asList;
+import static org.junit.Assert.fail;
+
+import com.google.common.collect.ArrayListMultimap;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ListMultimap;
+import com.google.common.collect.Lists;
+import java.util.List;
+import java.util.Random;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** Tests for {@link ToleranceMatching}. */
+@RunWith(JUnit4.class)
+public final class ToleranceMatchingTest {
+
+  private static final double[] SPECIAL_VALUES = {
+    Double.NaN, Double.POSITIVE_INFINITY, Double.NEGATIVE_INFINITY, -0.0, 0.0, Double.MAX_VALUE
+  };
+
+  @Test
+  public void between_agreesWithComparingEveryPair() {
+    Random rng = new Random(0x5eed);
+    for (int trial = 0; trial < 1000; trial++) {
+      List<Double> actual = randomValues(rng);
+      List<Double> expected = randomValues(rng);
+      double tolerance = rng.nextInt(4) * 0.5;
+      ToleranceMatching matching = ToleranceMatching.between(actual, expected, tolerance);
+
+      // Compare every pair, as the general algorithm does.
+      ListMultimap<Integer, Integer> edges = ArrayListMultimap.create();
+      List<Double> actualWithoutCandidates = Lists.newArrayList();
+      for (int actualIndex = 0; actualIndex < actual.size(); actualIndex++) {
+        for (int expectedIndex = 0; expectedIndex < expected.size(); expectedIndex++) {
+          if (MathUtil.equalWithinTolerance(
+              actual.get(actualIndex), expected.get(expectedIndex), tolerance)) {
+            edges.put(actualIndex, expectedIndex);
+          }
+        }
+        if (!edges.containsKey(actualIndex)) {
+          actualWithoutCandidates.add(actual.get(actualIndex));
+        }
+      }
+      List<Double> expectedWithoutCandidates = Lists.newArrayList();
+      for (int expectedIndex = 0; expectedIndex < expected.size(); expectedIndex++) {
+        if (!edges.containsValue(expectedIndex)) {
+          expectedWithoutCandidates.add(expected.get(expectedIndex));
+        }
+      }
+      int maximumSize = GraphMatching.maximumCardinalityBipartiteMatchingOfIndexes(edges).size();
+
+      String description = actual + " and " + expected + " within " + tolerance;
+      assertWithMessage(description)
+          .that(matching.actualWithoutCandidates(actual))
+          .isEqualTo(actualWithoutCandidates);
+      assertWithMessage(description)
+          .that(matching.expectedWithoutCandidates(expected))
+          .isEqualTo(expectedWithoutCandidates);
+      assertWithMessage(description)
+          .that(matching.unmatchedActual(actual))
+          .hasSize(actual.size() - maximumSize);
+      assertWithMessage(description)
+          .that(matching.unmatchedExpected(expected))
+          .hasSize(expected.size() - maximumSize);
+    }
+  }
+
+  @Test
+  public void between_nullWithNothingToCompare() {
+    ToleranceMatching matching =
+        ToleranceMatching.between(asList((Double) null), ImmutableList.<Double>of(), 1.0);
+    assertThat(matching.unmatchedActual(asList("a"))).containsExactly("a");
+    try {
+      ToleranceMatching.between(asList((Double) null), asList(1.0), 1.0);
+      fail("Should have thrown.");
+    } catch (NullPointerException expected) {
+    }
+  }
+
+  private static List<Double> randomValues(Random rng) {
+    int size = rng.nextInt(8);
+    List<Double> values = Lists.newArrayListWithCapacity(size);
+    for (int i = 0; i < size; i++) {
+      values.add(
+          rng.nextInt(10) == 0
+              ? SPECIAL_VALUES[rng.nextInt(SPECIAL_VALUES.length)]
+              : rng.nextInt(20) * 0.25);
+    }
+    return values;
+  }
+}